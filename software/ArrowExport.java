@@ -0,0 +1,408 @@
+package software;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Writes a dataset to an Apache Arrow IPC file (.arrow, the "Feather v2"
+ * format), that pandas, polars or pyarrow map in memory without parsing: each
+ * column of the dataset is a non-nullable float64 column named as in the
+ * charts, and all the rows are in one record batch. The file is:
+ * <ul>
+ * <li>"ARROW1" and two zeros</li>
+ * <li>the schema message, the record batch message then its body (the values
+ * of each column, one after the other, each one starting on a multiple of 64
+ * bytes), and the end of stream marker</li>
+ * <li>the footer (schema and position of the record batch), its length and
+ * "ARROW1"</li>
+ * </ul>
+ * The messages and the footer are FlatBuffers tables (see Message.fbs,
+ * Schema.fbs and File.fbs of the Arrow format, metadata version 5), written
+ * here front to back by a few lines of code instead of depending on the Arrow
+ * library and its dependencies. The values are written from the dataset, as
+ * little-endian doubles, without copying it. The file is written next to its
+ * destination, then moved in place once complete (see ExportFile).
+ */
+final class ArrowExport {
+
+	private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+
+	/* values of the enums and unions of the Arrow format */
+	private static final int METADATA_V5 = 4;
+	private static final int HEADER_SCHEMA = 1;
+	private static final int HEADER_RECORD_BATCH = 3;
+	private static final int TYPE_FLOATING_POINT = 3;
+	private static final int PRECISION_DOUBLE = 2;
+
+	/* start of each message, followed by the length of its metadata */
+	private static final int CONTINUATION = 0xFFFFFFFF;
+
+	/* the buffers of the body start on a multiple of 64 bytes, as advised */
+	private static final int ALIGNMENT = 64;
+
+	/* size of the buffer written to the file at once */
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	/* values written between two calls of the Progress */
+	private static final int PROGRESS_STEP = 64 * 1024;
+
+	private ArrowExport() {
+	}
+
+	/**
+	 * Write a dataset to an Arrow IPC file, overwriting it
+	 *
+	 * @param path:     path of the file
+	 * @param columns:  title of the columns of the file
+	 * @param data:     data to save in the file (a snapshot if an other thread
+	 *                  adds rows)
+	 * @param progress: called every few rows, can stop the writing
+	 * @return false if the writing was stopped (the file is left as it was)
+	 * @throws IOException: if the file can't be written
+	 */
+	static boolean write(String path, String[] columns, ColumnStore data, ExportFormat.Progress progress)
+			throws IOException {
+		int nbRow = data.getRowCount();
+		boolean complete = ExportFile.write(path, out -> {
+			long columnLength = 8L * nbRow;
+			long paddedLength = (columnLength + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+			long bodyLength = paddedLength * columns.length;
+
+			ExportFile.writeFully(out, ByteBuffer.wrap(Arrays.copyOf(MAGIC, 8)));
+			ExportFile.writeFully(out, message(HEADER_SCHEMA, schema(columns), 0, out.position()));
+			long batchOffset = out.position();
+			ByteBuffer batch = message(HEADER_RECORD_BATCH, recordBatch(columns.length, nbRow, paddedLength),
+					bodyLength, batchOffset);
+			int metadataLength = batch.remaining();
+			ExportFile.writeFully(out, batch);
+
+			/* the body: each column, padded with zeros */
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			long nbValue = (long) columns.length * nbRow;
+			long written = 0;
+			for (int j = 0; j < columns.length; j++) {
+				for (int i = 0; i < nbRow; i++) {
+					if (buffer.remaining() < 8) {
+						ExportFile.flush(out, buffer);
+					}
+					if (written++ % PROGRESS_STEP == 0
+							&& !progress.rowsWritten((int) (written * nbRow / nbValue), nbRow)) {
+						return false;
+					}
+					buffer.putDouble(data.get(i, j));
+				}
+				for (long k = columnLength; k < paddedLength; k++) {
+					if (!buffer.hasRemaining()) {
+						ExportFile.flush(out, buffer);
+					}
+					buffer.put((byte) 0);
+				}
+			}
+			ExportFile.flush(out, buffer);
+
+			/* end of the stream, then the footer */
+			ByteBuffer end = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(CONTINUATION).putInt(0);
+			((Buffer) end).flip();
+			ExportFile.writeFully(out, end);
+			ByteBuffer footer = footer(columns, batchOffset, metadataLength, bodyLength);
+			int footerLength = footer.remaining();
+			ExportFile.writeFully(out, footer);
+			ByteBuffer trailer = ByteBuffer.allocate(4 + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN)
+					.putInt(footerLength).put(MAGIC);
+			((Buffer) trailer).flip();
+			ExportFile.writeFully(out, trailer);
+			return true;
+		});
+		if (complete) {
+			progress.rowsWritten(nbRow, nbRow);
+		}
+		return complete;
+	}
+
+	/**
+	 * Schema table: a float64 field per column
+	 */
+	private static Table schema(String[] columns) {
+		List<Node> fields = new ArrayList<Node>();
+		for (String column : columns) {
+			Table floatingPoint = new Table().scalar(0, 2, PRECISION_DOUBLE);
+			fields.add(new Table().child(0, new Text(column)).scalar(1, 1, 0).scalar(2, 1, TYPE_FLOATING_POINT)
+					.child(3, floatingPoint).child(5, new Vector(new ArrayList<Node>())));
+		}
+		/* endianness: little (the default) */
+		return new Table().child(1, new Vector(fields));
+	}
+
+	/**
+	 * RecordBatch table: every row, a validity buffer (empty, no value is null)
+	 * and a data buffer per column
+	 */
+	private static Table recordBatch(int nbColumn, int nbRow, long paddedLength) {
+		ByteBuffer nodes = ByteBuffer.allocate(16 * nbColumn).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer buffers = ByteBuffer.allocate(32 * nbColumn).order(ByteOrder.LITTLE_ENDIAN);
+		for (int j = 0; j < nbColumn; j++) {
+			/* FieldNode: length, null count */
+			nodes.putLong(nbRow).putLong(0);
+			/* Buffer: offset in the body, length */
+			buffers.putLong(j * paddedLength).putLong(0);
+			buffers.putLong(j * paddedLength).putLong(8L * nbRow);
+		}
+		return new Table().scalar(0, 8, nbRow).child(1, new StructVector(nbColumn, nodes.array()))
+				.child(2, new StructVector(2 * nbColumn, buffers.array()));
+	}
+
+	/**
+	 * A message: 0xFFFFFFFF, the length of the metadata, then the metadata (a
+	 * Message table, padded so the body starts on a multiple of ALIGNMENT in the
+	 * file)
+	 *
+	 * @param position: position of the message in the file, a multiple of 8
+	 */
+	private static ByteBuffer message(int headerType, Table header, long bodyLength, long position) {
+		Table message = new Table().scalar(0, 2, METADATA_V5).scalar(1, 1, headerType).child(2, header)
+				.scalar(3, 8, bodyLength);
+		byte[] metadata = Flat.root(message, 8);
+		int length = (int) ((position + 8 + metadata.length + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT - position);
+		ByteBuffer bytes = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.putInt(CONTINUATION).putInt(length - 8).put(metadata);
+		((Buffer) bytes).position(length);
+		((Buffer) bytes).flip();
+		return bytes;
+	}
+
+	/**
+	 * Footer table: the schema, no dictionary, and the position of the record
+	 * batch (Block: offset, metadata length, body length)
+	 */
+	private static ByteBuffer footer(String[] columns, long batchOffset, int metadataLength, long bodyLength) {
+		ByteBuffer block = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+		block.putLong(batchOffset).putInt(metadataLength).putInt(0).putLong(bodyLength);
+		Table footer = new Table().scalar(0, 2, METADATA_V5).child(1, schema(columns))
+				.child(2, new StructVector(0, new byte[0])).child(3, new StructVector(1, block.array()));
+		return ByteBuffer.wrap(Flat.root(footer, 8));
+	}
+
+	/**
+	 * Bytes of a FlatBuffers buffer, written front to back: an object is always
+	 * written before the objects it refers to, so every offset is positive.
+	 * Each value is aligned on its size from the start of the buffer.
+	 */
+	private static final class Flat {
+		private ByteBuffer bytes = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+		/**
+		 * The buffer of a root table, padded to a multiple of alignment
+		 */
+		static byte[] root(Table table, int alignment) {
+			Flat out = new Flat();
+			out.putInt(0);
+			out.patchOffset(0, table.write(out));
+			out.align(alignment);
+			return Arrays.copyOf(out.bytes.array(), out.position());
+		}
+
+		int position() {
+			return bytes.position();
+		}
+
+		void align(int alignment) {
+			while (position() % alignment != 0) {
+				put(1, 0);
+			}
+		}
+
+		void putInt(int value) {
+			put(4, value);
+		}
+
+		/* a little-endian value of size bytes */
+		void put(int size, long value) {
+			if (bytes.remaining() < size) {
+				ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+				((Buffer) bytes).flip();
+				bytes = larger.put(bytes);
+			}
+			for (int i = 0; i < size; i++) {
+				bytes.put((byte) (value >>> (8 * i)));
+			}
+		}
+
+		/* the offset at a position refers to the object at target */
+		void patchOffset(int at, int target) {
+			bytes.putInt(at, target - at);
+		}
+	}
+
+	/**
+	 * An object of the buffer referred to by an offset
+	 */
+	private abstract static class Node {
+		/**
+		 * @return position of the object in the buffer
+		 */
+		abstract int write(Flat out);
+	}
+
+	/**
+	 * A table: its vtable, then its fields, then the objects it refers to
+	 */
+	private static final class Table extends Node {
+		/* slot, size and value of each field (value unused for the children) */
+		private final List<long[]> fields = new ArrayList<long[]>();
+		private final List<Node> children = new ArrayList<Node>();
+
+		Table scalar(int slot, int size, long value) {
+			fields.add(new long[] { slot, size, value });
+			children.add(null);
+			return this;
+		}
+
+		Table child(int slot, Node child) {
+			fields.add(new long[] { slot, 4, 0 });
+			children.add(child);
+			return this;
+		}
+
+		int write(Flat out) {
+			/* largest fields first, each one aligned on its size after the soffset */
+			Integer[] order = new Integer[fields.size()];
+			for (int f = 0; f < order.length; f++) {
+				order[f] = f;
+			}
+			Arrays.sort(order, Comparator.comparingLong(f -> -fields.get(f)[1]));
+			int[] offsets = new int[fields.size()];
+			int size = 4;
+			int nbSlot = 0;
+			for (int f : order) {
+				int fieldSize = (int) fields.get(f)[1];
+				size = (size + fieldSize - 1) / fieldSize * fieldSize;
+				offsets[f] = size;
+				size += fieldSize;
+				nbSlot = Math.max(nbSlot, (int) fields.get(f)[0] + 1);
+			}
+
+			/* vtable: its size, the size of the table, the offset of each slot */
+			out.align(2);
+			int vtable = out.position();
+			int[] slots = new int[nbSlot];
+			for (int f = 0; f < fields.size(); f++) {
+				slots[(int) fields.get(f)[0]] = offsets[f];
+			}
+			out.put(2, 4 + 2 * nbSlot);
+			out.put(2, size);
+			for (int slot : slots) {
+				out.put(2, slot);
+			}
+
+			/* the table starts on a multiple of 8, so its fields are aligned */
+			out.align(8);
+			int table = out.position();
+			out.putInt(table - vtable);
+			for (int f : order) {
+				while (out.position() < table + offsets[f]) {
+					out.put(1, 0);
+				}
+				out.put((int) fields.get(f)[1], fields.get(f)[2]);
+			}
+			while (out.position() < table + size) {
+				out.put(1, 0);
+			}
+			for (int f = 0; f < fields.size(); f++) {
+				if (children.get(f) != null) {
+					out.patchOffset(table + offsets[f], children.get(f).write(out));
+				}
+			}
+			return table;
+		}
+	}
+
+	/**
+	 * A vector of tables or strings: its length, an offset per element, then the
+	 * elements
+	 */
+	private static final class Vector extends Node {
+		private final List<Node> elements;
+
+		Vector(List<Node> elements) {
+			this.elements = elements;
+		}
+
+		int write(Flat out) {
+			out.align(4);
+			int vector = out.position();
+			out.putInt(elements.size());
+			for (int i = 0; i < elements.size(); i++) {
+				out.putInt(0);
+			}
+			for (int i = 0; i < elements.size(); i++) {
+				out.patchOffset(vector + 4 + 4 * i, elements.get(i).write(out));
+			}
+			return vector;
+		}
+	}
+
+	/**
+	 * A vector of structs of longs: its length, then the structs (on a multiple
+	 * of 8)
+	 */
+	private static final class StructVector extends Node {
+		private final int length;
+		private final byte[] structs;
+
+		StructVector(int length, byte[] structs) {
+			this.length = length;
+			this.structs = structs;
+		}
+
+		int write(Flat out) {
+			out.align(4);
+			if (out.position() % 8 == 0) {
+				out.putInt(0);
+			}
+			int vector = out.position();
+			out.putInt(length);
+			for (byte b : structs) {
+				out.put(1, b);
+			}
+			return vector;
+		}
+	}
+
+	/**
+	 * A string: its length, its UTF-8 bytes and a zero
+	 */
+	private static final class Text extends Node {
+		private final byte[] text;
+
+		Text(String text) {
+			this.text = text.getBytes(StandardCharsets.UTF_8);
+		}
+
+		int write(Flat out) {
+			out.align(4);
+			int string = out.position();
+			out.putInt(text.length);
+			for (byte b : text) {
+				out.put(1, b);
+			}
+			out.put(1, 0);
+			return string;
+		}
+	}
+}
@@ -0,0 +1,398 @@
+package software;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Batch mode of our software: treats finished data files with a factor file,
+ * without any window, and writes the chosen datasets to xlsx files. The rows
+ * go through the same ExperimentSession as in the Window, read as fast as the
+ * file can be parsed instead of waiting for the MIMS. Runs with
+ * java.awt.headless=true (e.g. on a server):
+ *
+ * java -cp MIMS_Analysis.jar software.Batch -factor factor.csv -data data.csv
+ * [-output folder] [-datasets gasConcentration,gasExchangeRates,...]
+ * [-normalization 1] [-pKa1 6.4] [-pKa2 10.3] [-showH2O] [-noCi] [-threads n]
+ *
+ * -data is a data file, a folder (every csv file in it except the factor
+ * file) or a pattern on the file names of a folder (e.g. archive/*.csv). The
+ * files are treated in parallel on a work-stealing pool of -threads threads
+ * (the number of processors by default), each one by its own session: a file
+ * which fails doesn't stop the others, and the time of each file is reported.
+ *
+ * The parameters not given are the ones saved by the Window (see Settings).
+ */
+public class Batch {
+
+	/**
+	 * Parameters of a batch run
+	 */
+	static final class Options {
+		String factorAddress;
+		/* data file, folder or pattern of data files */
+		String dataAddress;
+		/* number of files treated at the same time */
+		int threads = Runtime.getRuntime().availableProcessors();
+		/* folder of the written files (null: the folder of the data file) */
+		String outputFolder;
+		List<ExperimentSession.Dataset> datasets = new ArrayList<ExperimentSession.Dataset>();
+		/* format of the written files */
+		ExportFormat format = ExportFormat.XLSX;
+		double normalizationFactor;
+		double pKa1;
+		double pKa2;
+		/* true if H2O (18) isn't written, true if Ci is calculated */
+		boolean hideH2O;
+		boolean ci;
+
+		/**
+		 * Parameters saved by the Window, every dataset
+		 */
+		Options(Properties settings) {
+			normalizationFactor = Double.parseDouble(settings.getProperty("normalizationFactor", "1"));
+			pKa1 = Double.parseDouble(settings.getProperty("pKa1", "6.4"));
+			pKa2 = Double.parseDouble(settings.getProperty("pKa2", "10.3"));
+			hideH2O = Boolean.parseBoolean(settings.getProperty("displayH2O", "true"));
+			ci = Boolean.parseBoolean(settings.getProperty("displayCi", "true"));
+		}
+	}
+
+	/**
+	 * Outcome of the treatment of one data file
+	 */
+	static final class Result {
+		final String dataAddress;
+		int nbRow;
+		long nanos;
+		/* written files, or the reason of the failure */
+		List<String> paths = Collections.emptyList();
+		Exception error;
+
+		Result(String dataAddress) {
+			this.dataAddress = dataAddress;
+		}
+	}
+
+	private static final String USAGE = "Usage: java -cp MIMS_Analysis.jar software.Batch -factor <factor.csv> "
+			+ "-data <data.csv> [-output <folder>] [-datasets <name,name,...>] [-normalization <factor>] "
+			+ "[-pKa1 <value>] [-pKa2 <value>] [-showH2O] [-noCi] [-threads <number>] [-format xlsx|csv|bin|arrow]";
+
+	/**
+	 * Main Method of the batch mode
+	 */
+	public static void main(String[] args) {
+		/* no window is ever created, even if a display is available */
+		System.setProperty("java.awt.headless", "true");
+
+		Options options;
+		try {
+			options = parseArguments(args, Settings.load());
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		List<String> dataFiles;
+		Map<Integer, String[]> factor;
+		try {
+			dataFiles = dataFiles(options);
+			factor = FactorFile.read(options.factorAddress);
+		} catch (IOException | NumberFormatException e) {
+			Main.logger.severe("Error while reading the files: " + e.toString());
+			System.exit(1);
+			return;
+		}
+		if (dataFiles.isEmpty()) {
+			Main.logger.severe("No data file found for " + options.dataAddress);
+			System.exit(1);
+			return;
+		}
+
+		long start = System.nanoTime();
+		int nbFailure = 0;
+		long nbRow = 0;
+		for (Result result : processAll(dataFiles, factor, options)) {
+			if (result.error != null) {
+				nbFailure++;
+				Main.logger.severe(result.dataAddress + " failed: " + result.error.toString());
+			} else {
+				nbRow += result.nbRow;
+				Main.logger.info(result.dataAddress + ": " + result.nbRow + " rows in " + result.nanos / 1000000
+						+ " ms (" + Math.round(result.nbRow / (result.nanos / 1e9)) + " rows/s), saved "
+						+ result.paths);
+			}
+		}
+		Main.logger.info((dataFiles.size() - nbFailure) + " of " + dataFiles.size() + " files treated, " + nbRow
+				+ " rows in " + (System.nanoTime() - start) / 1000000 + " ms");
+		if (nbFailure > 0) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Read the command line
+	 *
+	 * @param args:     arguments of the command line
+	 * @param settings: parameters saved by the Window, used by default
+	 * @throws IllegalArgumentException: if an argument is missing or unknown
+	 */
+	static Options parseArguments(String[] args, Properties settings) {
+		Options options = new Options(settings);
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-showH2O":
+				options.hideH2O = false;
+				continue;
+			case "-noCi":
+				options.ci = false;
+				continue;
+			default:
+				break;
+			}
+			if (i + 1 == args.length) {
+				throw new IllegalArgumentException("Missing value after " + args[i]);
+			}
+			String value = args[++i];
+			try {
+				switch (args[i - 1]) {
+				case "-factor":
+					options.factorAddress = value;
+					break;
+				case "-data":
+					options.dataAddress = value;
+					break;
+				case "-output":
+					options.outputFolder = value;
+					break;
+				case "-datasets":
+					for (String name : value.split(",")) {
+						options.datasets.add(dataset(name.trim()));
+					}
+					break;
+				case "-normalization":
+					options.normalizationFactor = Double.parseDouble(value);
+					break;
+				case "-pKa1":
+					options.pKa1 = Double.parseDouble(value);
+					break;
+				case "-pKa2":
+					options.pKa2 = Double.parseDouble(value);
+					break;
+				case "-threads":
+					options.threads = Integer.parseInt(value);
+					break;
+				case "-format":
+					options.format = ExportFormat.named(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown argument " + args[i - 1]);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Not a number after " + args[i - 1] + ": " + value);
+			}
+		}
+		if (options.factorAddress == null || options.dataAddress == null) {
+			throw new IllegalArgumentException("The factor file and the data file are needed");
+		}
+		if (options.normalizationFactor == 0) {
+			throw new IllegalArgumentException("Normalization factor can't be 0");
+		}
+		if (options.threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		if (options.datasets.isEmpty()) {
+			for (ExperimentSession.Dataset dataset : ExperimentSession.Dataset.values()) {
+				options.datasets.add(dataset);
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * True if the file was written by a previous batch with -format csv
+	 */
+	private static boolean isExport(String name) {
+		for (ExperimentSession.Dataset dataset : ExperimentSession.Dataset.values()) {
+			if (name.toLowerCase().endsWith(("_" + dataset.fileName + ".csv").toLowerCase())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static ExperimentSession.Dataset dataset(String name) {
+		for (ExperimentSession.Dataset dataset : ExperimentSession.Dataset.values()) {
+			if (dataset.fileName.equals(name)) {
+				return dataset;
+			}
+		}
+		throw new IllegalArgumentException("Unknown dataset " + name);
+	}
+
+	/**
+	 * The data files given by -data, sorted by name
+	 *
+	 * @param options: -data is a file, a folder or a pattern (*, ?, [..] or {..,..})
+	 *                 on the names of the files of a folder
+	 * @throws IOException: if the folder can't be listed
+	 */
+	static List<String> dataFiles(Options options) throws IOException {
+		String pattern = options.dataAddress;
+		File folder;
+		PathMatcher matcher;
+		if (new File(pattern).isDirectory()) {
+			folder = new File(pattern);
+			matcher = FileSystems.getDefault().getPathMatcher("glob:*.{csv,CSV}");
+		} else if (pattern.matches(".*[*?\\[{].*")) {
+			/* the pattern only applies to the file names, not to the folders */
+			int separator = Math.max(pattern.lastIndexOf('/'), pattern.lastIndexOf(File.separatorChar));
+			folder = new File(separator >= 0 ? pattern.substring(0, separator + 1) : ".");
+			matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(separator + 1));
+		} else {
+			return Collections.singletonList(pattern);
+		}
+		File[] files = folder.listFiles();
+		if (files == null) {
+			throw new IOException("Can't list the folder " + folder);
+		}
+		File factorFile = new File(options.factorAddress).getCanonicalFile();
+		List<String> dataFiles = new ArrayList<String>();
+		for (File file : files) {
+			if (file.isFile() && matcher.matches(Paths.get(file.getName()))
+					&& !file.getCanonicalFile().equals(factorFile) && !isExport(file.getName())) {
+				dataFiles.add(file.getPath());
+			}
+		}
+		Collections.sort(dataFiles);
+		return dataFiles;
+	}
+
+	/**
+	 * Treat data files in parallel, each one by its own session, on a
+	 * work-stealing pool of options.threads threads
+	 *
+	 * @param dataFiles: addresses of the data files
+	 * @param factor:    content of the factor file (only read)
+	 * @param options:   parameters of the calculus and of the output
+	 * @return the outcome of each file, in the order of dataFiles
+	 */
+	static List<Result> processAll(List<String> dataFiles, Map<Integer, String[]> factor, Options options) {
+		ForkJoinPool pool = new ForkJoinPool(options.threads);
+		try {
+			List<ForkJoinTask<Result>> tasks = new ArrayList<ForkJoinTask<Result>>();
+			for (String dataFile : dataFiles) {
+				tasks.add(pool.submit(() -> process(dataFile, factor, options)));
+			}
+			List<Result> results = new ArrayList<Result>();
+			for (ForkJoinTask<Result> task : tasks) {
+				results.add(task.join());
+			}
+			return results;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Read a data file and write its datasets, never throws: the failure is kept
+	 * in the result
+	 */
+	static Result process(String dataFile, Map<Integer, String[]> factor, Options options) {
+		Result result = new Result(dataFile);
+		long start = System.nanoTime();
+		try {
+			ExperimentSession session = read(dataFile, factor, options);
+			result.nbRow = session.getRowCount();
+			result.paths = write(session, dataFile, options);
+		} catch (IOException | ParseException | RuntimeException e) {
+			/* a malformed file (missing cells, unknown M/Z...) must not stop the others */
+			result.error = e;
+		}
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	/**
+	 * Read every row of a finished data file
+	 *
+	 * @param address: address of the data file
+	 * @param factor:  content of the factor file
+	 * @param options: parameters of the calculus
+	 * @throws IOException:           if the file can't be read or is empty
+	 * @throws ParseException:        if a date isn't a date
+	 * @throws NumberFormatException: if the files contain something else than
+	 *                                numbers
+	 */
+	static ExperimentSession read(String address, Map<Integer, String[]> factor, Options options)
+			throws IOException, ParseException {
+		try (DataFileTailer fichier = new DataFileTailer(address, false)) {
+			if (!fichier.nextLine()) {
+				throw new IOException("No header in " + address);
+			}
+			String header = fichier.lineString();
+			ExperimentSession session = new ExperimentSession(Window.parseDataLine(header), factor,
+					ExperimentSession.denoisedMass(factor), options.hideH2O, options.ci, options.pKa1, options.pKa2,
+					options.normalizationFactor);
+			/* only the chosen datasets (and the ones they need) are computed */
+			session.activate(options.datasets);
+			/*
+			 * the rows are read from the binary copy of a file already treated, or parsed
+			 * in parallel with the threads of the batch
+			 */
+			SidecarCache.load(session, address, header, fichier.linePosition());
+			return session;
+		}
+	}
+
+	/**
+	 * Write the chosen datasets available in the experiment, each in its file:
+	 * (name of the data file)_(dataset).xlsx (or .csv, .bin, .arrow)
+	 *
+	 * @param session:     the experiment, completely read
+	 * @param dataAddress: address of its data file
+	 * @param options:     the chosen datasets, their format and the output folder
+	 * @return the paths of the written files
+	 * @throws IOException: if a file can't be written
+	 */
+	static List<String> write(ExperimentSession session, String dataAddress, Options options) throws IOException {
+		File data = new File(dataAddress).getAbsoluteFile();
+		File folder = options.outputFolder != null ? new File(options.outputFolder) : data.getParentFile();
+		String name = data.getName();
+		if (name.toLowerCase().endsWith(".csv")) {
+			name = name.substring(0, name.length() - 4);
+		}
+		List<String> paths = new ArrayList<String>();
+		for (ExperimentSession.Dataset dataset : options.datasets) {
+			if (!session.isAvailable(dataset)) {
+				Main.logger.info(dataset.fileName + " isn't available for " + dataAddress);
+				continue;
+			}
+			String path = new File(folder, name + "_" + dataset.fileName + "." + options.format.extension).getPath();
+			options.format.write(path, session.getColumnNames(dataset), session.getData(dataset));
+			paths.add(path);
+		}
+		return paths;
+	}
+}
@@ -0,0 +1,160 @@
+package software;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Loads the rows already written in a data file at once, instead of replaying
+ * them one by one: the file is memory-mapped and split in parts of about
+ * CHUNK_SIZE bytes ending on an end of line, the parts are parsed in parallel
+ * (each into an ExperimentSession.Block), then the session computes and
+ * appends them (see ExperimentSession.addBlocks). Only complete lines are
+ * loaded, the DataFileTailer then follows the file from the returned position.
+ */
+final class BulkLoader {
+
+	/* size of the parts parsed by one thread */
+	static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+	/* a row of the data file is about this long, to size the blocks */
+	private static final int ROW_LENGTH_ESTIMATE = 64;
+
+	private BulkLoader() {
+	}
+
+	/**
+	 * A part of the file: its bytes, and once parsed, its rows or the error of its
+	 * first wrong row
+	 */
+	private static final class Chunk {
+		private final MappedByteBuffer bytes;
+		private final int length;
+		private ExperimentSession.Block block;
+		private Exception error;
+
+		private Chunk(MappedByteBuffer bytes, int length) {
+			this.bytes = bytes;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * Add to the session every complete row of the data file from a position
+	 *
+	 * @param session: the experiment, whose header was read
+	 * @param address: address of the data file
+	 * @param start:   position in the file of the first row to load
+	 * @return the position in the file just after the last loaded row
+	 * @throws IOException:           if the file can't be read
+	 * @throws ParseException:        if the date of a row isn't a date (the rows
+	 *                                before it are added)
+	 * @throws NumberFormatException: if a value is missing or isn't a number (the
+	 *                                rows before it are added)
+	 */
+	static long load(ExperimentSession session, String address, long start) throws IOException, ParseException {
+		return load(session, address, start, CHUNK_SIZE);
+	}
+
+	/**
+	 * Same as load(session, address, start), with parts of chunkSize bytes
+	 */
+	static long load(ExperimentSession session, String address, long start, int chunkSize)
+			throws IOException, ParseException {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		long end = start;
+		try (FileChannel channel = FileChannel.open(Paths.get(address), StandardOpenOption.READ)) {
+			long size = channel.size();
+			/* cut the file (sequentially, it only looks for the ends of line) */
+			while (end < size) {
+				Chunk chunk = nextChunk(channel, end, size, chunkSize);
+				if (chunk == null) {
+					/* no complete line left, the MIMS is writing it */
+					break;
+				}
+				chunks.add(chunk);
+				end += chunk.length;
+			}
+		}
+		/* a mapping stays valid once its channel is closed */
+		chunks.parallelStream().forEach(chunk -> parse(session, chunk));
+
+		/* add the rows up to the first wrong one, as reading row by row would */
+		List<ExperimentSession.Block> blocks = new ArrayList<ExperimentSession.Block>();
+		for (Chunk chunk : chunks) {
+			blocks.add(chunk.block);
+			if (chunk.error != null) {
+				session.addBlocks(blocks);
+				if (chunk.error instanceof ParseException) {
+					throw (ParseException) chunk.error;
+				}
+				throw (RuntimeException) chunk.error;
+			}
+		}
+		session.addBlocks(blocks);
+		return end;
+	}
+
+	/**
+	 * Map the part of the file starting at a position, up to its last end of line
+	 * (larger than chunkSize if a line is longer)
+	 *
+	 * @return null if there is no end of line after the position
+	 */
+	private static Chunk nextChunk(FileChannel channel, long position, long size, int chunkSize)
+			throws IOException {
+		long length = chunkSize;
+		while (true) {
+			int mapped = (int) Math.min(length, size - position);
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, mapped);
+			for (int i = mapped - 1; i >= 0; i--) {
+				if (bytes.get(i) == '\n') {
+					return new Chunk(bytes, i + 1);
+				}
+			}
+			if (position + mapped >= size || length > Integer.MAX_VALUE / 2) {
+				return null;
+			}
+			length *= 2;
+		}
+	}
+
+	/**
+	 * Parse the rows of a part of the file (the data file is plain ASCII), keeping
+	 * the error of the first wrong row instead of throwing it
+	 */
+	private static void parse(ExperimentSession session, Chunk chunk) {
+		char[] chars = new char[chunk.length];
+		for (int i = 0; i < chunk.length; i++) {
+			chars[i] = (char) (chunk.bytes.get(i) & 0xFF);
+		}
+		chunk.block = session.new Block(chunk.length / ROW_LENGTH_ESTIMATE);
+		int lineStart = 0;
+		try {
+			for (int i = 0; i < chunk.length; i++) {
+				if (chars[i] == '\n') {
+					/* drop the '\r' of windows line endings */
+					int lineEnd = i > lineStart && chars[i - 1] == '\r' ? i - 1 : i;
+					chunk.block.addRow(chars, lineStart, lineEnd);
+					lineStart = i + 1;
+				}
+			}
+		} catch (ParseException | RuntimeException e) {
+			chunk.error = e;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package software;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Refreshes every open chart from one thread, instead of one thread sleeping
+ * 1.5 s per chart. The charts subscribe, the thread reading the data file warns
+ * the scheduler after each batch of new rows (requestRefresh), and the
+ * scheduler refreshes every subscriber at most framesPerSecond times per second:
+ * the warnings arriving in between are merged into the next refresh, and no
+ * thread wakes up while no data arrives.
+ *
+ * A subscriber prepares its new rows on the scheduler thread (e.g. the moving
+ * average) and hands them to its DisplayCurve, which updates the Swing
+ * components on the EDT.
+ */
+final class ChartRefreshScheduler {
+
+	/**
+	 * A chart refreshed by the scheduler
+	 */
+	interface Subscriber {
+		/**
+		 * Add the rows which arrived since the last refresh to the chart
+		 *
+		 * @return false once the chart is closed, to be unsubscribed
+		 */
+		boolean refresh();
+	}
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<Subscriber>();
+	private final ScheduledExecutorService executor;
+	/* true while a refresh is scheduled and not started yet */
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	private volatile long periodNanos;
+	/* start of the last refresh (only used by the scheduler thread and requestRefresh) */
+	private volatile long lastRefresh;
+
+	/**
+	 * @param framesPerSecond: maximum number of refreshes per second
+	 */
+	ChartRefreshScheduler(int framesPerSecond) {
+		setFramesPerSecond(framesPerSecond);
+		lastRefresh = System.nanoTime() - periodNanos;
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Chart refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Change the maximum number of refreshes per second (at least 1)
+	 */
+	void setFramesPerSecond(int framesPerSecond) {
+		periodNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, framesPerSecond);
+	}
+
+	void subscribe(Subscriber subscriber) {
+		subscribers.add(subscriber);
+	}
+
+	/**
+	 * Forget every chart (e.g. when an other data file is loaded)
+	 */
+	void clear() {
+		subscribers.clear();
+	}
+
+	int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+	/**
+	 * Warn that new data arrived: every chart will be refreshed once, as soon as
+	 * the frame rate allows it. Called by any thread, never blocks.
+	 */
+	void requestRefresh() {
+		if (scheduled.compareAndSet(false, true)) {
+			long delay = Math.max(0, lastRefresh + periodNanos - System.nanoTime());
+			executor.schedule(this::refreshAll, delay, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void refreshAll() {
+		/* a warning arriving from now on needs a new refresh */
+		scheduled.set(false);
+		lastRefresh = System.nanoTime();
+		for (Subscriber subscriber : subscribers) {
+			try {
+				if (!subscriber.refresh()) {
+					subscribers.remove(subscriber);
+				}
+			} catch (RuntimeException e) {
+				/* a broken chart must not stop the refresh of the others */
+				Main.logger.severe("Chart refresh failed: " + e.toString());
+				subscribers.remove(subscriber);
+			}
+		}
+	}
+}
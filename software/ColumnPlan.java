@@ -0,0 +1,402 @@
+package software;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * The header line of the data file compiled once against the factor file:
+ * the role of each amperometric column (M/Z), the column of gasConcentration
+ * it is written to, and every factor already parsed to a double. Converting a
+ * row of amperometric signals into gas concentrations is then a loop over
+ * primitive arrays (see convert). Read-only once compiled.
+ */
+final class ColumnPlan {
+
+	/* role of an amperometric column in the gas concentration calculus */
+	/* M/Z=12: CO2 part of M/Z=44, kept for the 44 column, no output */
+	private static final byte CO2_12 = 0;
+	/* M/Z=27: METOH part of M/Z=31, kept for the 31 column, no output */
+	private static final byte METOH_27 = 1;
+	/* M/Z=30 with M/Z=12: NO, written by the 44 column (needs the N2O value) */
+	private static final byte NO_30 = 2;
+	/* M/Z=18 when H2O is hidden: no output */
+	private static final byte HIDDEN_18 = 3;
+	/* M/Z=31 with M/Z=27: ETOH and METOH */
+	private static final byte ETOH_METOH_31 = 4;
+	/* M/Z=44 with M/Z=12: CO2, N2O (and Ci) */
+	private static final byte CO2_N2O_44 = 5;
+	/* M/Z=44 without M/Z=12: CO2 (and Ci) */
+	private static final byte CO2_44 = 6;
+	/* any other M/Z: C(t)=(A(t)-A_0)×C_max/((A_max-A_0)) */
+	private static final byte PLAIN = 7;
+
+	/* names of the M/Z of each amperometric column, including the abscissa */
+	final String[] amperometricColumnName;
+	/* names of the molecules (gasConcentration columns), including the abscissa */
+	final List<String> elements;
+	final String[] gasConcentrationColumnName;
+	final String[] gasExchangeRatesColumnName;
+	/* same without the mass used for denoised calculus */
+	final String[] denoisedGasExchangeRatesColumnName;
+	final String[] denoisedCumulatedGasExchangeColumnName;
+
+	/* number of amperometric columns and of molecule columns (curves + abscissa) */
+	final int nbAmperometricColumn;
+	final int nbMoleculeColumn;
+
+	/*
+	 * correction[i-1] is the factor C_max/((A_max-A_0)) of the molecule of the
+	 * gasConcentration column i (or the Ci factor for the Ci column), and
+	 * consumption[i-1] its factor k, used to obtain gasExchangeRatesData
+	 * (v(t)=(delta(C(t)))/delta(t)-k×C(t))
+	 */
+	final double[] correction;
+	final double[] consumption;
+
+	/* the mass for denoised calculus, and its column in gasConcentration */
+	final boolean presenceMass;
+	final int indexMass;
+
+	/* columns of 32 and 36 (for o2ExchangeRates and o2Exchange) in gasConcentration and gasExchangeRates */
+	final boolean presence32;
+	final boolean presence36;
+	final int indexgasConcentration32;
+	final int indexgasConcentration36;
+	final int indexgasExchangeRates32;
+	final int indexgasExchangeRates36;
+
+	/* columns of 2, 3 and 4 (for hydrogenase activity) in gasConcentration */
+	final boolean presence2;
+	final boolean presence3;
+	final boolean presence4;
+	final int index2;
+	final int index3;
+	final int index4;
+
+	/* compiled conversion: for each amperometric column, its role, output column and factors */
+	private final byte[] role;
+	private final int[] output;
+	private final double[] baseline;
+	private final double[] secondBaseline;
+	private final double[] ratio;
+	/* NO (M/Z=30 with M/Z=12) column in gasConcentration (-1 if none), and its factors */
+	private final int outputNO;
+	private final double ratioNO;
+	private final double baselineNO;
+	private final boolean ci;
+
+	/**
+	 * Compile the header of the data file
+	 *
+	 * @param header:    header cells, as returned by Window.parseDataLine (the
+	 *                   last one, empty, is ignored)
+	 * @param factor:    content of the factor file (M/Z -> row, -M/Z for a
+	 *                   second molecule with the same M/Z)
+	 * @param mass:      M/Z used for denoised calculus
+	 * @param hideH2O:   true if H2O (18) isn't displayed
+	 * @param ci:        true if Ci is calculated and displayed
+	 * @param pKa1Value: pKa of the CO2/HCO3- equilibrium
+	 * @param pKa2Value: pKa of the HCO3-/CO3-- equilibrium
+	 * @throws NumberFormatException: if the header or the factor file contain
+	 *                                something else than numbers
+	 */
+	ColumnPlan(String[] header, Map<Integer, String[]> factor, int mass, boolean hideH2O, boolean ci,
+			double pKa1Value, double pKa2Value) {
+		this.ci = ci;
+		/* the -1 is here to delete the last column, which is empty */
+		nbAmperometricColumn = header.length - 1;
+		amperometricColumnName = new String[nbAmperometricColumn];
+		role = new byte[nbAmperometricColumn];
+		output = new int[nbAmperometricColumn];
+		baseline = new double[nbAmperometricColumn];
+		secondBaseline = new double[nbAmperometricColumn];
+		ratio = new double[nbAmperometricColumn];
+
+		List<Double> correctionList = new ArrayList<Double>();
+		List<Double> consumptionList = new ArrayList<Double>();
+		elements = new ArrayList<String>();
+		/* set the first row to Time (min) (because header[0]="Time$Flags$") */
+		elements.add("Time (min)");
+
+		boolean presence12 = false;
+		boolean presence27 = false;
+		boolean hasMass = false;
+		int massIndex = 0;
+		boolean has32 = false;
+		boolean has36 = false;
+		int index32 = 0;
+		int index36 = 0;
+		boolean has2 = false;
+		boolean has3 = false;
+		boolean has4 = false;
+		int i2 = 0;
+		int i3 = 0;
+		int i4 = 0;
+		int no = -1;
+		double noRatio = 0;
+		double noBaseline = 0;
+
+		/* j serves so that i-j is the index for gasConcentrationData and others */
+		int j = 0;
+		for (int i = 1; i < nbAmperometricColumn; i++) {
+			/* delete "" surrounding our amperometric values */
+			String currentMZ = header[i].replaceAll("\"", "");
+			amperometricColumnName[i] = currentMZ;
+			int key = Integer.parseInt(currentMZ);
+
+			/* if we find a key corresponding to our denoised mass (mass can't be 18,12 or 27) */
+			if (key == mass && key != 18 && key != 12 && key != 27) {
+				massIndex = i - j;
+				hasMass = true;
+			}
+
+			if (key == 12) {
+				/* A_(N_2 O) (44)=A(44)-(A_(CO_2 )(12))/0.0871, kept for the 44 column */
+				presence12 = true;
+				role[i] = CO2_12;
+				ratio[i] = parse(factor, 44, 5);
+				/* j++ because we "skip one column" */
+				j++;
+			} else if (key == 27) {
+				/* A_(ETOH) (31)=A(31)-(A_((METOH)) (27))/0.0871, kept for the 31 column */
+				presence27 = true;
+				role[i] = METOH_27;
+				ratio[i] = parse(factor, 31, 5);
+				j++;
+			} else if (key == 44 && presence12) {
+				/* if we have 12 and 44, it means that we have a CO2 and N2O */
+				role[i] = CO2_N2O_44;
+				output[i] = i - j;
+				baseline[i] = parse(factor, key, 3);
+				secondBaseline[i] = parse(factor, -key, 3);
+				elements.add("CO2");
+				elements.add("N2O");
+				addFactors(factor, key, correctionList, consumptionList);
+				addFactors(factor, -key, correctionList, consumptionList);
+				/* j-- because we write two column in "surplus" */
+				j--;
+				if (ci) {
+					addCi(factor, key, pKa1Value, pKa2Value, correctionList, consumptionList);
+					j--;
+				}
+			} else if (key == 44) {
+				/* if we have 44 but not 12 (this condition is here for carbon inorganic) */
+				role[i] = CO2_44;
+				output[i] = i - j;
+				baseline[i] = parse(factor, key, 3);
+				elements.add(factor.get(key)[0]);
+				addFactors(factor, key, correctionList, consumptionList);
+				if (ci) {
+					addCi(factor, key, pKa1Value, pKa2Value, correctionList, consumptionList);
+					j--;
+				}
+			} else if (key == 31 && presence27) {
+				/* if we have 31 and 27, it means that we have a ETOH and METOH */
+				role[i] = ETOH_METOH_31;
+				output[i] = i - j;
+				baseline[i] = parse(factor, key, 3);
+				/* METOH info is saved in the map factor at -key */
+				secondBaseline[i] = parse(factor, -key, 3);
+				elements.add("ETOH");
+				elements.add("METOH");
+				addFactors(factor, key, correctionList, consumptionList);
+				addFactors(factor, -key, correctionList, consumptionList);
+				j--;
+			} else if (key == 18 && hideH2O) {
+				/* delete H2O, unless the user said so */
+				role[i] = HIDDEN_18;
+				j++;
+			} else {
+				/* for o2 and hydrogenase we want to know if we have (32&36) and (2&3&4) */
+				if (key == 32) {
+					index32 = i - j;
+					has32 = true;
+				}
+				if (key == 36) {
+					index36 = i - j;
+					has36 = true;
+				}
+				if (key == 2) {
+					i2 = i - j;
+					has2 = true;
+				}
+				if (key == 3) {
+					i3 = i - j;
+					has3 = true;
+				}
+				if (key == 4) {
+					i4 = i - j;
+					has4 = true;
+				}
+				if (key == 30 && presence12) {
+					/*
+					 * A_(NO) (30)=(A_(30)-A(N2O)(44)*0.311): we need the value of N2O, so the 44
+					 * column writes it
+					 */
+					role[i] = NO_30;
+					no = i - j;
+					noRatio = parse(factor, 30, 5);
+					noBaseline = parse(factor, 30, 3);
+				} else {
+					role[i] = PLAIN;
+					baseline[i] = parse(factor, key, 3);
+				}
+				output[i] = i - j;
+				elements.add(factor.get(key)[0]);
+				addFactors(factor, key, correctionList, consumptionList);
+			}
+		}
+		outputNO = no;
+		ratioNO = noRatio;
+		baselineNO = noBaseline;
+
+		correction = new double[correctionList.size()];
+		consumption = new double[consumptionList.size()];
+		for (int i = 0; i < correction.length; i++) {
+			correction[i] = correctionList.get(i);
+			consumption[i] = consumptionList.get(i);
+		}
+
+		presenceMass = hasMass;
+		indexMass = massIndex;
+		presence32 = has32;
+		presence36 = has36;
+		indexgasConcentration32 = index32;
+		indexgasConcentration36 = index36;
+		presence2 = has2;
+		presence3 = has3;
+		presence4 = has4;
+		index2 = i2;
+		index3 = i3;
+		index4 = i4;
+
+		/*
+		 * index of 32 and 36 in the denoised gasExchangeRates, where the mass column
+		 * is "deleted" (2,3,and 4 can't move)
+		 */
+		indexgasExchangeRates32 = hasMass && massIndex < index32 ? index32 - 1 : index32;
+		indexgasExchangeRates36 = hasMass && massIndex < index36 ? index36 - 1 : index36;
+
+		/* create and edit the ColumnName for each Curve */
+		nbMoleculeColumn = elements.size();
+		gasConcentrationColumnName = new String[nbMoleculeColumn];
+		gasExchangeRatesColumnName = new String[nbMoleculeColumn];
+		/*-1 is here do delete the mass*/
+		denoisedGasExchangeRatesColumnName = new String[nbMoleculeColumn - 1];
+		denoisedCumulatedGasExchangeColumnName = new String[nbMoleculeColumn - 1];
+
+		amperometricColumnName[0] = elements.get(0);
+		gasConcentrationColumnName[0] = elements.get(0);
+		gasExchangeRatesColumnName[0] = elements.get(0);
+		denoisedGasExchangeRatesColumnName[0] = elements.get(0);
+		denoisedCumulatedGasExchangeColumnName[0] = elements.get(0);
+		int k = 1;
+		for (int i = 1; i < nbMoleculeColumn; i++) {
+			gasConcentrationColumnName[i] = elements.get(i) + "  (µM)";
+			gasExchangeRatesColumnName[i] = elements.get(i) + "  (µM / min)";
+			if (presenceMass && i != indexMass) {
+				denoisedGasExchangeRatesColumnName[k] = elements.get(i) + "  (µM / min)";
+				denoisedCumulatedGasExchangeColumnName[k] = elements.get(i) + "  (µM)";
+				k++;
+			}
+		}
+	}
+
+	private static double parse(Map<Integer, String[]> factor, int key, int column) {
+		return Double.parseDouble(factor.get(key)[column]);
+	}
+
+	/**
+	 * Add C_max/((A_max-A_0)) and k of the molecule at key of the factor file
+	 */
+	private static void addFactors(Map<Integer, String[]> factor, int key, List<Double> correctionList,
+			List<Double> consumptionList) {
+		correctionList.add(parse(factor, key, 1) / (parse(factor, key, 2) - parse(factor, key, 3)));
+		consumptionList.add(parse(factor, key, 4));
+	}
+
+	/**
+	 * Add the Ci column after CO2:
+	 * Ci=Cco2*(1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))), so the
+	 * correction of the Ci column is 1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))
+	 * (pH is in the M/Z=2 row)
+	 */
+	private void addCi(Map<Integer, String[]> factor, int key, double pKa1Value, double pKa2Value,
+			List<Double> correctionList, List<Double> consumptionList) {
+		elements.add("Ci");
+		correctionList.add(CarbonateChemistry.ciCorrectionFactor(parse(factor, 2, 6), pKa1Value, pKa2Value));
+		consumptionList.add(parse(factor, key, 4));
+	}
+
+	/**
+	 * Convert a row of amperometric signals into gas concentrations.
+	 *
+	 * @param amperometric:  time (amperometric[0]) and signal of each M/Z
+	 * @param concentration: receives time and the concentration of each molecule
+	 *                       (nbMoleculeColumn values)
+	 */
+	void convert(double[] amperometric, double[] concentration) {
+		concentration[0] = amperometric[0];
+		/* value to store amperometric value of CO2, ETOH and NO */
+		double valueCO2 = 0;
+		double valueETOH = 0;
+		double valueNO = 0;
+		for (int i = 1; i < nbAmperometricColumn; i++) {
+			double value = amperometric[i];
+			int index = output[i];
+			switch (role[i]) {
+			case CO2_12:
+				/* (A_(CO_2 )(12))/0.0871 */
+				valueCO2 = value / ratio[i];
+				break;
+			case METOH_27:
+				valueETOH = value / ratio[i];
+				break;
+			case NO_30:
+				valueNO = value;
+				break;
+			case HIDDEN_18:
+				break;
+			case ETOH_METOH_31:
+				/* A_(ETOH) (31)=(A_(ETOH)(27))/0.2241 */
+				concentration[index] = (valueETOH - baseline[i]) * correction[index - 1];
+				/* A_(METOH)(31)=A(27)-(A_((METOH))(27))//0.2241 */
+				concentration[index + 1] = ((value - valueETOH) - secondBaseline[i]) * correction[index];
+				break;
+			case CO2_N2O_44:
+				/* same than above but with A_(N_2 O) (44)=A(44)-(A_(CO_2 )(12))/0.0871 */
+				concentration[index] = (valueCO2 - baseline[i]) * correction[index - 1];
+				concentration[index + 1] = ((value - valueCO2) - secondBaseline[i]) * correction[index];
+				if (outputNO != -1) {
+					/* A_(NO) (30)=(A_(30)-A(N2O)(44)*0.311) */
+					concentration[outputNO] = ((valueNO - (value - valueCO2) * ratioNO) - baselineNO)
+							* correction[outputNO - 1];
+				}
+				if (ci) {
+					concentration[index + 2] = concentration[index] * correction[index + 1];
+				}
+				break;
+			case CO2_44:
+				concentration[index] = (value - baseline[i]) * correction[index - 1];
+				if (ci) {
+					concentration[index + 1] = concentration[index] * correction[index];
+				}
+				break;
+			default:
+				/* C(t)=(A(t)-A_0)×C_max/((A_max-A_0)) */
+				concentration[index] = (value - baseline[i]) * correction[index - 1];
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package software;
+
+import java.util.Arrays;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Multi-resolution aggregates of a DoubleColumn: level 0 splits the column in
+ * blocks of 16 rows, each level above in blocks twice larger, and each block
+ * keeps the row of its min, the row of its max and the sum of its values. The
+ * blocks are computed by the thread adding the values, as soon as they are
+ * complete (O(1) per value on average).
+ *
+ * The min, max or sum of any range of rows is then computed from O(log n)
+ * blocks (plus at most 2 * 16 single values), whatever the length of the range:
+ * the charts use it to decimate the visible rows, the JTable for its averages.
+ *
+ * Readers only use the blocks of the rows published by the ColumnStore, which
+ * are written before its row count; the arrays are replaced (not modified
+ * below the published blocks) when they grow, through volatile references.
+ */
+final class ColumnPyramid {
+
+	/* 16 rows per block at level 0 */
+	static final int BASE_SHIFT = 4;
+	private static final int BASE_MASK = (1 << BASE_SHIFT) - 1;
+
+	/**
+	 * The blocks of one level
+	 */
+	private static final class Level {
+		private volatile int[] minRow = new int[16];
+		private volatile int[] maxRow = new int[16];
+		private volatile double[] sum = new double[16];
+
+		private void set(int block, int rowOfMin, int rowOfMax, double sumOfValues) {
+			if (block == minRow.length) {
+				/* copied before being published by the volatile writes */
+				minRow = Arrays.copyOf(minRow, block * 2);
+				maxRow = Arrays.copyOf(maxRow, block * 2);
+				sum = Arrays.copyOf(sum, block * 2);
+			}
+			minRow[block] = rowOfMin;
+			maxRow[block] = rowOfMax;
+			sum[block] = sumOfValues;
+		}
+	}
+
+	private final DoubleColumn values;
+	private volatile Level[] levels = new Level[0];
+
+	ColumnPyramid(DoubleColumn values) {
+		this.values = values;
+	}
+
+	/**
+	 * Update the blocks completed by the value just added to the column (only
+	 * called by the thread adding the values)
+	 *
+	 * @param row: index of the value
+	 */
+	void added(int row) {
+		if ((row & BASE_MASK) != BASE_MASK) {
+			return;
+		}
+		/* a block of level 0 is complete */
+		int block = row >>> BASE_SHIFT;
+		int first = block << BASE_SHIFT;
+		int rowOfMin = first;
+		int rowOfMax = first;
+		double sumOfValues = 0;
+		for (int r = first; r <= row; r++) {
+			double value = values.get(r);
+			sumOfValues += value;
+			if (value < values.get(rowOfMin)) {
+				rowOfMin = r;
+			}
+			if (value > values.get(rowOfMax)) {
+				rowOfMax = r;
+			}
+		}
+		level(0).set(block, rowOfMin, rowOfMax, sumOfValues);
+
+		/* the second block of a pair completes the block of the level above */
+		for (int k = 0; (block & 1) == 1; k++) {
+			Level lower = levels[k];
+			int left = block - 1;
+			rowOfMin = lowerOf(lower.minRow[left], lower.minRow[block]);
+			rowOfMax = higherOf(lower.maxRow[left], lower.maxRow[block]);
+			sumOfValues = lower.sum[left] + lower.sum[block];
+			block >>>= 1;
+			level(k + 1).set(block, rowOfMin, rowOfMax, sumOfValues);
+		}
+	}
+
+	private Level level(int k) {
+		if (k == levels.length) {
+			Level[] larger = Arrays.copyOf(levels, k + 1);
+			larger[k] = new Level();
+			levels = larger;
+		}
+		return levels[k];
+	}
+
+	/* row with the lowest value (the first one if equal) */
+	private int lowerOf(int row1, int row2) {
+		return values.get(row2) < values.get(row1) ? row2 : row1;
+	}
+
+	/* row with the highest value (the first one if equal) */
+	private int higherOf(int row1, int row2) {
+		return values.get(row2) > values.get(row1) ? row2 : row1;
+	}
+
+	/**
+	 * Highest level whose block starting on a row fits in [row, last], -1 if none
+	 */
+	private int fittingLevel(Level[] current, int row, int last) {
+		int k = Math.min((row == 0 ? 31 : Integer.numberOfTrailingZeros(row)) - BASE_SHIFT, current.length - 1);
+		while (k >= 0 && row + (1 << (BASE_SHIFT + k)) - 1 > last) {
+			k--;
+		}
+		return k;
+	}
+
+	/**
+	 * Rows of the min and of the max of a range of published rows
+	 *
+	 * @param first:  first row of the range
+	 * @param last:   last row of the range (included)
+	 * @param result: result[0] is set to the row of the min, result[1] to the row
+	 *                of the max
+	 */
+	void minMaxRows(int first, int last, int[] result) {
+		Level[] current = levels;
+		int rowOfMin = first;
+		int rowOfMax = first;
+		int row = first;
+		while (row <= last) {
+			int k = fittingLevel(current, row, last);
+			if (k < 0) {
+				rowOfMin = lowerOf(rowOfMin, row);
+				rowOfMax = higherOf(rowOfMax, row);
+				row++;
+			} else {
+				int block = row >>> (BASE_SHIFT + k);
+				rowOfMin = lowerOf(rowOfMin, current[k].minRow[block]);
+				rowOfMax = higherOf(rowOfMax, current[k].maxRow[block]);
+				row += 1 << (BASE_SHIFT + k);
+			}
+		}
+		result[0] = rowOfMin;
+		result[1] = rowOfMax;
+	}
+
+	/**
+	 * Sum of the values of a range of published rows
+	 *
+	 * @param first: first row of the range
+	 * @param last:  last row of the range (included)
+	 */
+	double sum(int first, int last) {
+		Level[] current = levels;
+		double sumOfValues = 0;
+		int row = first;
+		while (row <= last) {
+			int k = fittingLevel(current, row, last);
+			if (k < 0) {
+				sumOfValues += values.get(row);
+				row++;
+			} else {
+				sumOfValues += current[k].sum[row >>> (BASE_SHIFT + k)];
+				row += 1 << (BASE_SHIFT + k);
+			}
+		}
+		return sumOfValues;
+	}
+}
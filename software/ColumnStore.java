@@ -0,0 +1,190 @@
+package software;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * A dataset (the rows of one chart or one saved file) stored column by column
+ * in primitive DoubleColumns, instead of a list of boxed Double[] rows.
+ * Column 0 is the abscissa. Every dataset computed from a row of the data file
+ * has the time of that row as abscissa (row r of the rates has the time of
+ * row r of the concentrations), so these datasets share one time column: the
+ * owner of the column adds the time, the others only add their own values.
+ *
+ * One thread (the one reading the data file) adds the rows, any number of
+ * threads read them without locks: the values of a row are written before
+ * the volatile row count is increased, so a reader that reads the row count
+ * sees every value of these rows. Readers work on a snapshot(), whose row
+ * count doesn't move while they loop over it.
+ *
+ * Each column except the abscissa has a ColumnPyramid of min/max/sum blocks,
+ * updated by the thread adding the rows, so the min, max and sum of any range
+ * of rows cost O(log n) instead of a scan of the range.
+ */
+final class ColumnStore {
+
+	private final DoubleColumn[] columns;
+	/* aggregates of each column (null for the abscissa) */
+	private final ColumnPyramid[] pyramids;
+	/* true if column 0 belongs to an other store (which adds its values) */
+	private final boolean sharedAbscissa;
+	/* true for a snapshot, which can't be modified */
+	private final boolean readOnly;
+	/* published after the values of the new rows (see above) */
+	private volatile int rowCount;
+
+	/**
+	 * Dataset with its own abscissa
+	 *
+	 * @param nbColumn: number of columns, including the abscissa
+	 */
+	ColumnStore(int nbColumn) {
+		columns = new DoubleColumn[nbColumn];
+		pyramids = new ColumnPyramid[nbColumn];
+		columns[0] = new DoubleColumn();
+		for (int i = 1; i < nbColumn; i++) {
+			columns[i] = new DoubleColumn();
+			pyramids[i] = new ColumnPyramid(columns[i]);
+		}
+		sharedAbscissa = false;
+		readOnly = false;
+	}
+
+	/**
+	 * Dataset whose abscissa is the abscissa of an other dataset: row r of this
+	 * dataset has the abscissa of row r of the other one, which must be added
+	 * first
+	 *
+	 * @param abscissa: dataset which owns the abscissa column
+	 * @param nbColumn: number of columns, including the abscissa
+	 */
+	ColumnStore(ColumnStore abscissa, int nbColumn) {
+		columns = new DoubleColumn[nbColumn];
+		pyramids = new ColumnPyramid[nbColumn];
+		columns[0] = abscissa.columns[0];
+		for (int i = 1; i < nbColumn; i++) {
+			columns[i] = new DoubleColumn();
+			pyramids[i] = new ColumnPyramid(columns[i]);
+		}
+		sharedAbscissa = true;
+		readOnly = false;
+	}
+
+	/**
+	 * Snapshot of a dataset: the same columns, with a fixed row count
+	 */
+	private ColumnStore(DoubleColumn[] columns, ColumnPyramid[] pyramids, int rowCount) {
+		this.columns = columns;
+		this.pyramids = pyramids;
+		this.rowCount = rowCount;
+		sharedAbscissa = true;
+		readOnly = true;
+	}
+
+	/**
+	 * Consistent read-only view of the rows added so far, for the threads which
+	 * don't add the rows: its row count and values don't change, even while new
+	 * rows are added to this dataset. Costs no copy.
+	 */
+	ColumnStore snapshot() {
+		return new ColumnStore(columns, pyramids, rowCount);
+	}
+
+	/**
+	 * Add a row at the end of the dataset (row[0] is ignored if the abscissa is
+	 * shared). Only called by the thread which owns the dataset.
+	 *
+	 * @param row: values of each column
+	 * @throws UnsupportedOperationException: if this is a snapshot
+	 */
+	void addRow(double[] row) {
+		if (readOnly) {
+			throw new UnsupportedOperationException("A snapshot can't be modified");
+		}
+		if (!sharedAbscissa) {
+			columns[0].add(row[0]);
+		}
+		for (int i = 1; i < columns.length; i++) {
+			columns[i].add(row[i]);
+			pyramids[i].added(rowCount);
+		}
+		/* single writer: the read-increment-write isn't racing with an other one */
+		rowCount = rowCount + 1;
+	}
+
+	/**
+	 * Value of a cell
+	 *
+	 * @param row:    index of the row (0 <= row < getRowCount())
+	 * @param column: index of the column (0 is the abscissa)
+	 */
+	double get(int row, int column) {
+		return columns[column].get(row);
+	}
+
+	/**
+	 * Rows of the min and of the max of a column over a range of rows (the first
+	 * one if several rows are equal), in O(log n)
+	 *
+	 * @param column: index of the column (not the abscissa)
+	 * @param first:  first row of the range
+	 * @param last:   last row of the range (included, < getRowCount())
+	 * @param result: result[0] is set to the row of the min, result[1] to the row
+	 *                of the max
+	 */
+	void minMaxRows(int column, int first, int last, int[] result) {
+		pyramids[column].minMaxRows(first, last, result);
+	}
+
+	/**
+	 * Sum of a column over a range of rows, in O(log n)
+	 *
+	 * @param column: index of the column (not the abscissa)
+	 * @param first:  first row of the range
+	 * @param last:   last row of the range (included, < getRowCount())
+	 */
+	double sum(int column, int first, int last) {
+		return pyramids[column].sum(first, last);
+	}
+
+	/**
+	 * Index of the first row whose abscissa is greater than or equal to a value
+	 * (getRowCount() if there is none), by binary search: the abscissa must be
+	 * in ascending order (the time)
+	 *
+	 * @param abscissa: value searched
+	 */
+	int lowerBound(double abscissa) {
+		int low = 0;
+		int high = rowCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (columns[0].get(middle) < abscissa) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Number of rows of the dataset
+	 */
+	int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Number of columns of the dataset, including the abscissa
+	 */
+	int getColumnCount() {
+		return columns.length;
+	}
+}
@@ -0,0 +1,205 @@
+package software;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.xy.AbstractXYDataset;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * The curve of one column of a dataset, as a JFreeChart dataset: x and y are
+ * read from the ColumnStore by index, without copying the rows into an
+ * XYSeries. The abscissa must be in ascending order (the time), so the
+ * renderer can find the visible items by binary search.
+ *
+ * Only the rows needed to draw the visible part of the curve are items of the
+ * dataset: when the visible range holds more rows than ITEMS_PER_PIXEL times
+ * the width of the chart, the rows are split in one bucket per pixel and each
+ * bucket keeps its first, min, max and last rows. The drawn curve is the same
+ * (same extremes in each pixel column), the whole experiment stays visible,
+ * and zooming in (setView) decimates the visible range again, down to every
+ * row. The min and max of a bucket come from the ColumnPyramid of the column,
+ * at the level matching the bucket, so a zoom, a pan or a resize costs
+ * O(width * log n) whatever the number of visible rows. The domain bounds are
+ * the bounds of every row, for the auto range.
+ *
+ * Only used on the EDT: setData replaces the rows (a snapshot with more rows,
+ * or new rows) and fires one DatasetChangeEvent, whatever the number of new
+ * rows.
+ */
+final class ColumnXYDataset extends AbstractXYDataset implements DomainInfo {
+	private static final long serialVersionUID = 1L;
+
+	/* rows kept per pixel of width: first, min, max and last of the pixel */
+	static final int ITEMS_PER_PIXEL = 4;
+	/* width used until the chart is displayed */
+	static final int DEFAULT_WIDTH = 2000;
+
+	private final String key;
+	/* column of the curve in the data (0 is the abscissa) */
+	private final int column;
+	private transient ColumnStore data;
+
+	/* visible abscissa range and width of the chart (in pixels) */
+	private double viewLower = Double.NEGATIVE_INFINITY;
+	private double viewUpper = Double.POSITIVE_INFINITY;
+	private int viewWidth = DEFAULT_WIDTH;
+
+	/* rows drawn, in ascending order: items[0..itemCount[ */
+	private int[] items = new int[0];
+	private int itemCount = 0;
+	/* rows of the min and max of a bucket */
+	private final int[] extremes = new int[2];
+
+	/**
+	 * @param key:    name of the curve
+	 * @param data:   rows of the curve
+	 * @param column: column of the curve in the data
+	 */
+	ColumnXYDataset(String key, ColumnStore data, int column) {
+		this.key = key;
+		this.column = column;
+		this.data = data;
+		decimate();
+	}
+
+	/**
+	 * Display new rows (one event for the whole batch)
+	 */
+	void setData(ColumnStore data) {
+		this.data = data;
+		decimate();
+		fireDatasetChanged();
+	}
+
+	/**
+	 * Change the visible part of the curve (after a zoom, a pan or a resize)
+	 *
+	 * @param lower: lowest visible abscissa (-infinity for every row)
+	 * @param upper: highest visible abscissa (+infinity for every row)
+	 * @param width: width of the chart, in pixels
+	 */
+	void setView(double lower, double upper, int width) {
+		viewLower = lower;
+		viewUpper = upper;
+		viewWidth = width > 0 ? width : DEFAULT_WIDTH;
+		decimate();
+		fireDatasetChanged();
+	}
+
+	/**
+	 * Choose the rows to draw
+	 */
+	private void decimate() {
+		int nbRow = data.getRowCount();
+		/* rows of the view, plus the row before and after so the line reaches the border */
+		int from = Math.max(0, data.lowerBound(viewLower) - 1);
+		int to = Math.min(nbRow - 1, data.lowerBound(Math.nextUp(viewUpper)));
+		int nbVisible = to - from + 1;
+		if (nbVisible <= 0) {
+			itemCount = 0;
+			return;
+		}
+		if (nbVisible <= ITEMS_PER_PIXEL * viewWidth) {
+			ensureCapacity(nbVisible);
+			for (int r = from; r <= to; r++) {
+				items[r - from] = r;
+			}
+			itemCount = nbVisible;
+			return;
+		}
+		ensureCapacity(ITEMS_PER_PIXEL * viewWidth);
+		itemCount = 0;
+		for (int bucket = 0; bucket < viewWidth; bucket++) {
+			int first = from + (int) ((long) nbVisible * bucket / viewWidth);
+			int last = from + (int) ((long) nbVisible * (bucket + 1) / viewWidth) - 1;
+			data.minMaxRows(column, first, last, extremes);
+			addItem(first);
+			addItem(Math.min(extremes[0], extremes[1]));
+			addItem(Math.max(extremes[0], extremes[1]));
+			addItem(last);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (items.length < capacity) {
+			items = new int[capacity];
+		}
+	}
+
+	/**
+	 * Add a row to draw, once (the first, min, max and last rows of a pixel can be
+	 * the same)
+	 */
+	private void addItem(int row) {
+		if (itemCount == 0 || items[itemCount - 1] < row) {
+			items[itemCount++] = row;
+		}
+	}
+
+	@Override
+	public int getSeriesCount() {
+		return 1;
+	}
+
+	@Override
+	public Comparable<String> getSeriesKey(int series) {
+		return key;
+	}
+
+	@Override
+	public DomainOrder getDomainOrder() {
+		return DomainOrder.ASCENDING;
+	}
+
+	@Override
+	public int getItemCount(int series) {
+		return itemCount;
+	}
+
+	@Override
+	public double getXValue(int series, int item) {
+		return data.get(items[item], 0);
+	}
+
+	@Override
+	public double getYValue(int series, int item) {
+		return data.get(items[item], column);
+	}
+
+	@Override
+	public Number getX(int series, int item) {
+		return getXValue(series, item);
+	}
+
+	@Override
+	public Number getY(int series, int item) {
+		return getYValue(series, item);
+	}
+
+	@Override
+	public double getDomainLowerBound(boolean includeInterval) {
+		return data.getRowCount() == 0 ? Double.NaN : data.get(0, 0);
+	}
+
+	@Override
+	public double getDomainUpperBound(boolean includeInterval) {
+		return data.getRowCount() == 0 ? Double.NaN : data.get(data.getRowCount() - 1, 0);
+	}
+
+	@Override
+	public Range getDomainBounds(boolean includeInterval) {
+		if (data.getRowCount() == 0) {
+			return null;
+		}
+		return new Range(getDomainLowerBound(includeInterval), getDomainUpperBound(includeInterval));
+	}
+}
@@ -0,0 +1,109 @@
+package software;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Writes a dataset to a binary file of columns, that a script can map in
+ * memory (for example with numpy.memmap) instead of parsing it. Everything is
+ * little-endian:
+ * <ul>
+ * <li>"MIMSDATA" (8 ASCII bytes), the version (int, 1), the number of columns
+ * (int) and of rows (long)</li>
+ * <li>the name of each column: its length in bytes (int), then its UTF-8
+ * bytes</li>
+ * <li>zeros up to a multiple of 8 bytes</li>
+ * <li>each column, one after the other: a double per row</li>
+ * </ul>
+ * The file is written next to its destination, then moved in place once
+ * complete (see ExportFile).
+ */
+final class ColumnarExport {
+
+	static final byte[] MAGIC = "MIMSDATA".getBytes(StandardCharsets.US_ASCII);
+	static final int VERSION = 1;
+
+	/* size of the buffer written to the file at once */
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	/* values written between two calls of the Progress */
+	private static final int PROGRESS_STEP = 64 * 1024;
+
+	private ColumnarExport() {
+	}
+
+	/**
+	 * Write a dataset to a binary file, overwriting it
+	 *
+	 * @param path:     path of the file
+	 * @param columns:  title of the columns of the file
+	 * @param data:     data to save in the file (a snapshot if an other thread
+	 *                  adds rows)
+	 * @param progress: called every few rows, can stop the writing
+	 * @return false if the writing was stopped (the file is left as it was)
+	 * @throws IOException: if the file can't be written
+	 */
+	static boolean write(String path, String[] columns, ColumnStore data, ExportFormat.Progress progress)
+			throws IOException {
+		int nbRow = data.getRowCount();
+		boolean complete = ExportFile.write(path, out -> {
+			ExportFile.writeFully(out, header(columns, nbRow));
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			/* the progress counts the rows of every column as a part of the rows */
+			long nbValue = (long) columns.length * nbRow;
+			long written = 0;
+			for (int j = 0; j < columns.length; j++) {
+				for (int i = 0; i < nbRow; i++) {
+					if (!buffer.hasRemaining()) {
+						ExportFile.flush(out, buffer);
+					}
+					if (written++ % PROGRESS_STEP == 0
+							&& !progress.rowsWritten((int) (written * nbRow / nbValue), nbRow)) {
+						return false;
+					}
+					buffer.putDouble(data.get(i, j));
+				}
+			}
+			ExportFile.flush(out, buffer);
+			return true;
+		});
+		if (complete) {
+			progress.rowsWritten(nbRow, nbRow);
+		}
+		return complete;
+	}
+
+	/**
+	 * The header of the file, up to the first value
+	 */
+	private static ByteBuffer header(String[] columns, int nbRow) {
+		byte[][] names = new byte[columns.length][];
+		int length = MAGIC.length + 4 + 4 + 8;
+		for (int j = 0; j < columns.length; j++) {
+			names[j] = columns[j].getBytes(StandardCharsets.UTF_8);
+			length += 4 + names[j].length;
+		}
+		/* the values start on a multiple of 8 */
+		ByteBuffer header = ByteBuffer.allocate((length + 7) & ~7).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(MAGIC).putInt(VERSION).putInt(columns.length).putLong(nbRow);
+		for (byte[] name : names) {
+			header.putInt(name.length).put(name);
+		}
+		((Buffer) header).position(header.capacity());
+		((Buffer) header).flip();
+		return header;
+	}
+}
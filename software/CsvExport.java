@@ -0,0 +1,98 @@
+package software;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Writes a dataset to a csv file: a header line with the name of each column
+ * (UTF-8, quoted if needed), then one line per row, the values separated by
+ * commas with a point as decimal separator. The text of the values is written
+ * by a DoubleFormatter into a large direct buffer, which is written to the
+ * file each time it is full: no String is created per value. The file is
+ * written next to its destination, then moved in place once complete (see
+ * ExportFile).
+ */
+final class CsvExport {
+
+	/* size of the buffer written to the file at once */
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	/* rows written between two calls of the Progress */
+	private static final int PROGRESS_STEP = 16 * 1024;
+
+	private CsvExport() {
+	}
+
+	/**
+	 * Write a dataset to a csv file, overwriting it
+	 *
+	 * @param path:     path of the file
+	 * @param columns:  title of the columns of the file
+	 * @param data:     data to save in the file (a snapshot if an other thread
+	 *                  adds rows)
+	 * @param progress: called every PROGRESS_STEP rows, can stop the writing
+	 * @return false if the writing was stopped (the file is left as it was)
+	 * @throws IOException: if the file can't be written
+	 */
+	static boolean write(String path, String[] columns, ColumnStore data, ExportFormat.Progress progress)
+			throws IOException {
+		int nbRow = data.getRowCount();
+		boolean written = ExportFile.write(path, out -> {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			ExportFile.writeFully(out, ByteBuffer.wrap(header(columns).getBytes(StandardCharsets.UTF_8)));
+
+			DoubleFormatter formatter = new DoubleFormatter();
+			for (int i = 0; i < nbRow; i++) {
+				if (i % PROGRESS_STEP == 0 && !progress.rowsWritten(i, nbRow)) {
+					return false;
+				}
+				for (int j = 0; j < columns.length; j++) {
+					if (buffer.remaining() < DoubleFormatter.MAX_LENGTH + 2) {
+						ExportFile.flush(out, buffer);
+					}
+					if (j > 0) {
+						buffer.put((byte) ',');
+					}
+					formatter.append(buffer, data.get(i, j));
+				}
+				buffer.put((byte) '\n');
+			}
+			ExportFile.flush(out, buffer);
+			return true;
+		});
+		if (written) {
+			progress.rowsWritten(nbRow, nbRow);
+		}
+		return written;
+	}
+
+	/**
+	 * Header line: the names of the columns, quoted if they contain a comma or a
+	 * quote
+	 */
+	static String header(String[] columns) {
+		StringBuilder line = new StringBuilder();
+		for (int j = 0; j < columns.length; j++) {
+			if (j > 0) {
+				line.append(',');
+			}
+			String name = columns[j];
+			if (name.indexOf(',') >= 0 || name.indexOf('"') >= 0) {
+				line.append('"').append(name.replace("\"", "\"\"")).append('"');
+			} else {
+				line.append(name);
+			}
+		}
+		return line.append('\n').toString();
+	}
+}
@@ -0,0 +1,216 @@
+package software;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Follows the data file while the MIMS is still writing it. Bytes are read
+ * with a FileChannel from the last known position, and only complete
+ * (newline terminated) lines are handed out: a row the instrument is still in
+ * the middle of writing stays buffered until its end of line arrives. Waiting
+ * for new data relies on a WatchService notification on the file's folder,
+ * with a short growing timeout as fallback for file systems where
+ * notifications are late or unsupported.
+ */
+class DataFileTailer implements Closeable {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/* bounds (in ms) of the wait between two checks when no notification comes */
+	private static final long MIN_BACKOFF = 2;
+	private static final long MAX_BACKOFF = 250;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/* position in the file of the next byte to read into the buffer */
+	private long position = 0;
+
+	/* current line (complete or still partial), the data file is plain ASCII */
+	private char[] line = new char[256];
+	private int pendingLength = 0;
+	private int lineLength = 0;
+
+	/* null if the file system can't notify us, we then only rely on the backoff */
+	private WatchService watcher;
+	private long backoff = MIN_BACKOFF;
+
+	/**
+	 * Constructor of DataFileTailer
+	 *
+	 * @param address: address of the data file to follow
+	 * @throws IOException: if the file can't be opened
+	 */
+	DataFileTailer(String address) throws IOException {
+		this(address, true);
+	}
+
+	/**
+	 * Constructor of DataFileTailer
+	 *
+	 * @param address: address of the data file to read
+	 * @param follow:  false for a finished file, which is read until its end
+	 *                 without watching its folder (awaitData then only sleeps)
+	 * @throws IOException: if the file can't be opened
+	 */
+	DataFileTailer(String address, boolean follow) throws IOException {
+		path = Paths.get(address).toAbsolutePath();
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		/*
+		 * empty buffer, the first nextLine() fills it (Buffer casts keep the jar
+		 * runnable on Java 8, where ByteBuffer doesn't override flip/clear)
+		 */
+		((Buffer) buffer).flip();
+		if (!follow) {
+			return;
+		}
+		try {
+			watcher = FileSystems.getDefault().newWatchService();
+			path.getParent().register(watcher, ENTRY_MODIFY, ENTRY_CREATE);
+		} catch (IOException | UnsupportedOperationException e) {
+			Main.logger.info("No file notification available, polling the data file: " + e.toString());
+			closeWatcher();
+		}
+	}
+
+	/**
+	 * Read the next complete line of the file, if any. The line is then available
+	 * through lineChars()/lineLength() (or lineString()) until the next call.
+	 *
+	 * @return false if no complete line is available yet
+	 */
+	boolean nextLine() throws IOException {
+		while (true) {
+			while (buffer.hasRemaining()) {
+				byte b = buffer.get();
+				if (b == '\n') {
+					/* drop the '\r' of windows line endings */
+					lineLength = pendingLength > 0 && line[pendingLength - 1] == '\r' ? pendingLength - 1
+							: pendingLength;
+					pendingLength = 0;
+					return true;
+				}
+				if (pendingLength == line.length) {
+					char[] larger = new char[line.length * 2];
+					System.arraycopy(line, 0, larger, 0, pendingLength);
+					line = larger;
+				}
+				line[pendingLength++] = (char) (b & 0xFF);
+			}
+			/* the buffer is consumed, get the next bytes of the file */
+			((Buffer) buffer).clear();
+			int read = channel.read(buffer, position);
+			((Buffer) buffer).flip();
+			if (read <= 0) {
+				return false;
+			}
+			position += read;
+			backoff = MIN_BACKOFF;
+		}
+	}
+
+	/**
+	 * Characters of the last line returned by nextLine() (only the lineLength()
+	 * first ones are meaningful)
+	 */
+	char[] lineChars() {
+		return line;
+	}
+
+	/**
+	 * Length of the last line returned by nextLine()
+	 */
+	int lineLength() {
+		return lineLength;
+	}
+
+	/**
+	 * The last line returned by nextLine(), as a String
+	 */
+	String lineString() {
+		return new String(line, 0, lineLength);
+	}
+
+	/**
+	 * Position in the file just after the last complete line returned
+	 */
+	long linePosition() {
+		return position - buffer.remaining() - pendingLength;
+	}
+
+	/**
+	 * Follow the file from a position, forgetting what was read after it (used
+	 * once the rows up to this position were loaded at once, see BulkLoader)
+	 *
+	 * @param newPosition: position in the file of the start of a line
+	 */
+	void seek(long newPosition) {
+		position = newPosition;
+		pendingLength = 0;
+		((Buffer) buffer).clear();
+		((Buffer) buffer).flip();
+	}
+
+	/**
+	 * Block until the file might have grown: returns at once if unread bytes are
+	 * already there, otherwise when the folder is notified of a modification or
+	 * when the (growing) backoff delay has elapsed.
+	 */
+	void awaitData() throws IOException, InterruptedException {
+		if (channel.size() > position) {
+			return;
+		}
+		if (watcher != null) {
+			WatchKey key = watcher.poll(backoff, TimeUnit.MILLISECONDS);
+			if (key != null) {
+				/* events of other files of the folder just cost us one extra check */
+				key.pollEvents();
+				key.reset();
+			}
+		} else {
+			Thread.sleep(backoff);
+		}
+		backoff = Math.min(backoff * 2, MAX_BACKOFF);
+	}
+
+	private void closeWatcher() {
+		if (watcher != null) {
+			try {
+				watcher.close();
+			} catch (IOException e) {
+				Main.logger.info(e.toString());
+			}
+			watcher = null;
+		}
+	}
+
+	/**
+	 * Close the file and stop watching its folder
+	 */
+	public void close() throws IOException {
+		closeWatcher();
+		channel.close();
+	}
+}
@@ -0,0 +1,182 @@
+package software;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Parses the rows of the data file ("date;$Flags$;value;value;...;") straight
+ * from the characters of the line into a primitive row, without creating any
+ * String. Gives the same numbers as Window.parseDataLine followed by
+ * Double.parseDouble on each cell: the values are decoded exactly when they
+ * fit in a long mantissa with a small power of ten (every value written by the
+ * MIMS), and the rare other cells fall back on Double.parseDouble.
+ *
+ * One instance per thread: the position of the timestamp of the last parsed
+ * line is kept in the instance.
+ */
+final class DataLineParser {
+
+	/* powers of ten exactly representable as a double */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/* larger mantissas aren't exact doubles, so the fast path can't round correctly */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/* bounds of the timestamp (first cell) of the last parsed line */
+	private int timestampStart;
+	private int timestampEnd;
+
+	/**
+	 * Parse one data row. row[0] is left untouched (it's the time, decoded from
+	 * the timestamp cell), row[1..] receive the amperometric values.
+	 *
+	 * @param chars: characters of the line
+	 * @param start: index of the first character of the line
+	 * @param end:   index after the last character of the line
+	 * @param row:   receives the values, its length is the number of columns
+	 * @throws NumberFormatException: if a cell is missing or isn't a number
+	 */
+	void parse(char[] chars, int start, int end, double[] row) {
+		/* first cell: the date */
+		int index = nextSeparator(chars, start, end);
+		timestampStart = start;
+		timestampEnd = index;
+		/* second cell: "$Flags$", always empty, skipped */
+		index = nextSeparator(chars, index + 1, end);
+		for (int i = 1; i < row.length; i++) {
+			int cellStart = index + 1;
+			if (cellStart > end) {
+				throw new NumberFormatException("Missing value in column " + i);
+			}
+			index = nextSeparator(chars, cellStart, end);
+			row[i] = parseDouble(chars, cellStart, index);
+		}
+	}
+
+	/**
+	 * Index of the first character of the timestamp of the last parsed line
+	 */
+	int timestampStart() {
+		return timestampStart;
+	}
+
+	/**
+	 * Index after the last character of the timestamp of the last parsed line
+	 */
+	int timestampEnd() {
+		return timestampEnd;
+	}
+
+	private static int nextSeparator(char[] chars, int from, int end) {
+		int index = from;
+		while (index < end && chars[index] != ';') {
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Decode the number written in chars[start..end), with either '.' or ',' as
+	 * decimal separator (same result as Double.parseDouble after replacing ','
+	 * by '.')
+	 */
+	static double parseDouble(char[] chars, int start, int end) {
+		/* Double.parseDouble ignores surrounding whitespace (the '\r' of the last cell for example) */
+		while (start < end && chars[start] <= ' ') {
+			start++;
+		}
+		while (end > start && chars[end - 1] <= ' ') {
+			end--;
+		}
+		int index = start;
+		boolean negative = false;
+		if (index < end && (chars[index] == '-' || chars[index] == '+')) {
+			negative = chars[index] == '-';
+			index++;
+		}
+		long mantissa = 0;
+		/* number of significant digits in mantissa, and of digits after the separator */
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean anyDigit = false;
+		boolean separator = false;
+		for (; index < end; index++) {
+			char c = chars[index];
+			if (c >= '0' && c <= '9') {
+				anyDigit = true;
+				if (separator) {
+					fractionDigits++;
+				}
+				/* leading zeros don't count as significant digits */
+				if (mantissa != 0 || c != '0') {
+					if (++digits > 18) {
+						return slowParse(chars, start, end);
+					}
+					mantissa = mantissa * 10 + (c - '0');
+				}
+			} else if ((c == '.' || c == ',') && !separator) {
+				separator = true;
+			} else {
+				break;
+			}
+		}
+		if (!anyDigit) {
+			return slowParse(chars, start, end);
+		}
+		int exponent = 0;
+		if (index < end) {
+			/* only an exponent may follow the digits */
+			if (chars[index] != 'e' && chars[index] != 'E') {
+				return slowParse(chars, start, end);
+			}
+			index++;
+			boolean negativeExponent = false;
+			if (index < end && (chars[index] == '-' || chars[index] == '+')) {
+				negativeExponent = chars[index] == '-';
+				index++;
+			}
+			if (index == end) {
+				return slowParse(chars, start, end);
+			}
+			for (; index < end; index++) {
+				char c = chars[index];
+				if (c < '0' || c > '9' || exponent > 10_000) {
+					return slowParse(chars, start, end);
+				}
+				exponent = exponent * 10 + (c - '0');
+			}
+			if (negativeExponent) {
+				exponent = -exponent;
+			}
+		}
+		exponent -= fractionDigits;
+		double value;
+		if (mantissa == 0) {
+			value = 0;
+		} else if (mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+			/*
+			 * both operands are exact doubles, so the single multiplication or division
+			 * is correctly rounded, exactly as Double.parseDouble
+			 */
+			value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		} else {
+			return slowParse(chars, start, end);
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Rarely used path (very long or unusual numbers, NaN...): let
+	 * Double.parseDouble decode the cell
+	 */
+	private static double slowParse(char[] chars, int start, int end) {
+		return Double.parseDouble(new String(chars, start, end - start).replace(',', '.'));
+	}
+}
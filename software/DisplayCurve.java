@@ -7,6 +7,8 @@ import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,13 +21,16 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.block.BlockBorder;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.jfree.chart.title.TextTitle;
+import org.jfree.data.xy.XYDataset;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
 
@@ -44,22 +49,36 @@ You should have received a copy of the GNU General Public License along with thi
 public class DisplayCurve extends JPanel {
 	private static final long serialVersionUID = 1L;
 
-	/* maximum number of points kept per curve on screen, see createDataset() */
+	/* maximum number of points kept per curve on screen (XYSeries only), see createDataset() */
 	private static final int MAX_CHART_POINTS = 20_000;
 
+	/* delay (ms) merging the new min and max of the curves in one JTable refresh */
+	private static final int TABLE_REFRESH_DELAY = 100;
+
 	private ChartPanel chartPanel;
 
 	/* The scrollPane contain the JTable */
 	private JScrollPane scrollPane;
 
 	/* contains data displayed */
-	List<Double[]> data;
+	ColumnStore data;
 
 	/* heading of JTable */
 	private List<String> heading = new ArrayList<String>();
 
 	/* list of dataset (one for each column of data, except abscissa) */
-	private List<XYSeriesCollection> dataset = new ArrayList<XYSeriesCollection>();
+	private List<XYDataset> dataset = new ArrayList<XYDataset>();
+
+	/*
+	 * true if the abscissa is in ascending order (the time): the curves read the
+	 * data through ColumnXYDatasets. Else (e.g. a rate according to a
+	 * concentration) each curve is a copy of the data in a XYSeries, sorted by
+	 * abscissa.
+	 */
+	private final boolean orderedAbscissa;
+
+	/* list of ColumnXYDataset (one for each column of data, except abscissa) */
+	private List<ColumnXYDataset> listColumnDataset = new ArrayList<ColumnXYDataset>();
 
 	/* list of XYSeries (one for each column of data, except abscissa) */
 	private List<XYSeries> listSerie = new ArrayList<XYSeries>();
@@ -82,6 +101,12 @@ public class DisplayCurve extends JPanel {
 	/* JTable */
 	private JTable table;
 
+	/*
+	 * refreshes the JTable once, TABLE_REFRESH_DELAY after the first new min or
+	 * max: the ones arriving in between are shown by the same refresh
+	 */
+	private final Timer tableRefresh = new Timer(TABLE_REFRESH_DELAY, e -> updateTable(data));
+
 	/* Panel which contain the chart and the JTable */
 	private JPanel principalPanel = new JPanel(new BorderLayout());
 
@@ -113,9 +138,30 @@ public class DisplayCurve extends JPanel {
 	 * @throws ParseException: Parsing the data to Double or Int
 	 */
 
-	public DisplayCurve(List<Double[]> datas, String[] column, int nbColumn, List<String> heading, String title)
+	public DisplayCurve(ColumnStore datas, String[] column, int nbColumn, List<String> heading, String title)
 			throws ParseException {
+		this(datas, column, nbColumn, heading, title, true);
+	}
+
+	/**
+	 * Constructor of the JChart and the JTable
+	 * 
+	 * @param datas:           The data to display in the chart
+	 * @param column:          The name of each curves to display in the chart,
+	 *                         including the abscissa
+	 * @param nbColumn:        Number of each curves to display in the chart,
+	 *                         including the abscissa
+	 * @param heading:         Heading of each row of the JTable
+	 * @param title:           Title of the JChart
+	 * @param orderedAbscissa: true if the abscissa of the rows is in ascending
+	 *                         order (the time)
+	 * @throws ParseException: Parsing the data to Double or Int
+	 */
+	public DisplayCurve(ColumnStore datas, String[] column, int nbColumn, List<String> heading, String title,
+			boolean orderedAbscissa) throws ParseException {
 
+		this.orderedAbscissa = orderedAbscissa;
+		tableRefresh.setRepeats(false);
 		/* name of curves */
 		this.column = column;
 		/* heading of the Jtable */
@@ -133,6 +179,15 @@ public class DisplayCurve extends JPanel {
 		chartPanel = new ChartPanel(finalChart);
 		chartPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
 		chartPanel.setBackground(Color.white);
+		if (orderedAbscissa) {
+			/* the curves draw only the rows needed for the visible range and width */
+			finalChart.getXYPlot().getDomainAxis().addChangeListener(event -> updateView());
+			chartPanel.addComponentListener(new ComponentAdapter() {
+				public void componentResized(ComponentEvent e) {
+					updateView();
+				}
+			});
+		}
 
 		/*
 		 * set the value of JtextField with lower and upper abscissa value (of the
@@ -194,24 +249,32 @@ public class DisplayCurve extends JPanel {
 	}
 
 	/**
-	 * Transform the data into a dataset (each curves is a XYSeriesCollection)
+	 * Transform the data into a dataset (each curves is a ColumnXYDataset, or a
+	 * XYSeriesCollection if the abscissa isn't ordered)
 	 * 
 	 * @param datas
 	 * @return
 	 * @throws ParseException
 	 */
-	private List<XYSeriesCollection> createDataset(List<Double[]> datas) throws ParseException {
+	private List<XYDataset> createDataset(ColumnStore datas) throws ParseException {
 
 		/* Create a XYSeriesCollection for each curves */
-		for (int j = 0; j < datas.size(); j++) {
-			if (upperAbscissa < datas.get(j)[0]) {
-				upperAbscissa = datas.get(j)[0];
+		for (int j = 0; j < datas.getRowCount(); j++) {
+			if (upperAbscissa < datas.get(j, 0)) {
+				upperAbscissa = datas.get(j, 0);
 			}
-			if (lowerAbscissa > datas.get(j)[0]) {
-				lowerAbscissa = datas.get(j)[0];
+			if (lowerAbscissa > datas.get(j, 0)) {
+				lowerAbscissa = datas.get(j, 0);
 			}
 		}
 		for (int i = 1; i < nbColumn; i++) {
+			/* the curve reads the column of the data, no copy */
+			if (orderedAbscissa) {
+				ColumnXYDataset columnDataset = new ColumnXYDataset(column[i], datas, i);
+				listColumnDataset.add(columnDataset);
+				dataset.add(columnDataset);
+				continue;
+			}
 
 			/*
 			 * we create a XYSerieCollection which contain one XYSeries. All XYSeries aren't
@@ -231,9 +294,9 @@ public class DisplayCurve extends JPanel {
 			 * keeps every row regardless, only the on-screen curve is capped
 			 */
 			serie.setMaximumItemCount(MAX_CHART_POINTS);
-			for (int j = 0; j < datas.size(); j++) {
+			for (int j = 0; j < datas.getRowCount(); j++) {
 				/* we add the (X,Y) to the XYserie */
-				serie.add(datas.get(j)[0], datas.get(j)[i]);
+				serie.add(datas.get(j, 0), datas.get(j, i));
 			}
 			/* we had the XYseries to the XYSeriecollection and then to the dataset */
 			listSerie.add(serie);
@@ -241,17 +304,17 @@ public class DisplayCurve extends JPanel {
 			dataset.add(dataserie);
 		}
 		/* we change the index of the last data row treated */
-		currentRow += datas.size();
+		currentRow += datas.getRowCount();
 		return dataset;
 	}
 
 	/**
 	 * Create the Chart
 	 * 
-	 * @param dataset: XYSeriesCollection, containing data for each curves
+	 * @param dataset: XYDataset, containing data for each curves
 	 * @return
 	 */
-	private JFreeChart createChart(final List<XYSeriesCollection> dataset) {
+	private JFreeChart createChart(final List<XYDataset> dataset) {
 		/* create a new plot, a personalize one */
 		XYPlot plot = new XYPlot();
 		/* define the horizontal axis */
@@ -291,7 +354,7 @@ public class DisplayCurve extends JPanel {
 			renderer.add(new XYLineAndShapeRenderer());
 			axis.add(new NumberAxis(column[i + 1]));
 
-			/* plot the corresponding XYSeriesCollection */
+			/* plot the corresponding XYDataset */
 			plot.setDataset(i, dataset.get(i));
 
 			/* change color of curves, axis and caption depending of curve name */
@@ -360,8 +423,8 @@ public class DisplayCurve extends JPanel {
 			plot.setRenderer(i, renderer.get(i));
 
 			/* get max and min for each curves (with 3 significant figure) */
-			max.add(significantDigit(dataset.get(i).getRangeUpperBound(true), 3));
-			min.add(significantDigit(dataset.get(i).getRangeLowerBound(true), 3));
+			max.add(significantDigit(columnBound(data, i + 1, true), 3));
+			min.add(significantDigit(columnBound(data, i + 1, false), 3));
 
 			/* set range of vertical axis */
 			axis.get(i).setRange(min.get(i) - Math.abs(min.get(i) / 100), max.get(i) + Math.abs(max.get(i) / 100));
@@ -383,6 +446,32 @@ public class DisplayCurve extends JPanel {
 		return (chart);
 	}
 
+	/**
+	 * Max (or min) of every value of a curve (not only the drawn ones), NaN if
+	 * the curve is empty. Read from the pyramid of the column, in O(log n).
+	 */
+	private static double columnBound(ColumnStore datas, int column, boolean upper) {
+		if (datas.getRowCount() == 0) {
+			return Double.NaN;
+		}
+		int[] extremes = new int[2];
+		datas.minMaxRows(column, 0, datas.getRowCount() - 1, extremes);
+		return datas.get(upper ? extremes[1] : extremes[0], column);
+	}
+
+	/**
+	 * Decimate the curves again for the visible abscissa range and the width of
+	 * the chart (after a zoom, a pan, a resize or a restore of the auto range)
+	 */
+	private void updateView() {
+		ValueAxis domain = finalChart.getXYPlot().getDomainAxis();
+		double lower = domain.isAutoRange() ? Double.NEGATIVE_INFINITY : domain.getLowerBound();
+		double upper = domain.isAutoRange() ? Double.POSITIVE_INFINITY : domain.getUpperBound();
+		for (ColumnXYDataset columnDataset : listColumnDataset) {
+			columnDataset.setView(lower, upper, chartPanel.getWidth());
+		}
+	}
+
 	/**
 	 * Getter for the principalPanel (which contains the ScrollPane and the Chart)
 	 */
@@ -460,7 +549,7 @@ public class DisplayCurve extends JPanel {
 	 * The function which calculate the average for each curves, with bounds entered
 	 * by the user.
 	 */
-	public List<Double> calculateAverage(List<Double[]> datas, double lowerBound, double upperBound) {
+	public List<Double> calculateAverage(ColumnStore datas, double lowerBound, double upperBound) {
 
 		List<Double> result = new ArrayList<Double>();
 		/* deals with three recurrent erros */
@@ -474,14 +563,29 @@ public class DisplayCurve extends JPanel {
 			Window.infoBox(principalPanel, "There is an issue with your entered values: " + "\n"
 					+ "Please enter an upperBound superior than " + lowerAbscissa + " !", "Entered Value");
 		}
+		/* rows between the bounds: found by binary search if the abscissa is the time */
+		int first = 0;
+		int last = -1;
+		if (orderedAbscissa) {
+			first = datas.lowerBound(lowerBound);
+			last = datas.lowerBound(Math.nextUp(upperBound)) - 1;
+		}
 		/* calculate the average */
 		for (int i = 1; i < nbColumn; i++) {
 			double average = 0;
 			int nbValue = 0;
-			for (int j = 0; j < datas.size(); j++) {
-				if ((datas.get(j)[0]) >= lowerBound && (datas.get(j)[0]) <= upperBound) {
-					average += datas.get(j)[i];
-					nbValue++;
+			if (orderedAbscissa) {
+				/* sum of the rows read from the pyramid of the column, in O(log n) */
+				if (first <= last) {
+					average = datas.sum(i, first, last);
+					nbValue = last - first + 1;
+				}
+			} else {
+				for (int j = 0; j < datas.getRowCount(); j++) {
+					if ((datas.get(j, 0)) >= lowerBound && (datas.get(j, 0)) <= upperBound) {
+						average += datas.get(j, i);
+						nbValue++;
+					}
 				}
 			}
 			double calcul = (average / nbValue);
@@ -495,7 +599,7 @@ public class DisplayCurve extends JPanel {
 	 * The function which calculate the value for a certain abscissa for each
 	 * curves, with the value entered by the user.
 	 */
-	public List<Double> calculateValue(List<Double[]> datas, double value) {
+	public List<Double> calculateValue(ColumnStore datas, double value) {
 		List<Double> result = new ArrayList<Double>();
 		/* if the abscissa value is not in the dataset, warn the user */
 		if (value < lowerAbscissa || value > upperAbscissa) {
@@ -512,23 +616,22 @@ public class DisplayCurve extends JPanel {
 		/*
 		 * We return the value with the nearer abscissa of the wanted value
 		 */
+		/* the row with the nearer abscissa is the same for every curve */
+		int j = nearestRow(datas, value);
 		for (int i = 1; i < nbColumn; i++) {
 			Double[] surrond = { Double.POSITIVE_INFINITY, (double) 0, (double) 0, (double) 0 };
 			/* get the two nearer values */
-			/*don't take first and last row data; because of the +1 and -1*/
-			for (int j = 1; j < datas.size() - 1; j++) {
-				if (Math.abs((datas.get(j)[0]) - value) <= Math.abs(surrond[0] - value)) {
-					if (datas.get(j)[0] <= value) {
-						surrond[0] = datas.get(j)[0];
-						surrond[1] = datas.get(j)[i];
-						surrond[2] = datas.get(j + 1)[0];
-						surrond[3] = datas.get(j + 1)[i];
-					} else {
-						surrond[0] = datas.get(j)[0];
-						surrond[1] = datas.get(j)[i];
-						surrond[2] = datas.get(j - 1)[0];
-						surrond[3] = datas.get(j - 1)[i];
-					}
+			if (j >= 0) {
+				if (datas.get(j, 0) <= value) {
+					surrond[0] = datas.get(j, 0);
+					surrond[1] = datas.get(j, i);
+					surrond[2] = datas.get(j + 1, 0);
+					surrond[3] = datas.get(j + 1, i);
+				} else {
+					surrond[0] = datas.get(j, 0);
+					surrond[1] = datas.get(j, i);
+					surrond[2] = datas.get(j - 1, 0);
+					surrond[3] = datas.get(j - 1, i);
 				}
 			}
 			/* do a linear regression */
@@ -540,19 +643,62 @@ public class DisplayCurve extends JPanel {
 		return (result);
 	}
 
+	/**
+	 * Row whose abscissa is the nearer of a value (the last one if several are as
+	 * near), -1 if there is none. The first and last rows are never returned,
+	 * because the interpolation uses the row after or before.
+	 *
+	 * @param datas: rows of the chart
+	 * @param value: abscissa searched
+	 */
+	private int nearestRow(ColumnStore datas, double value) {
+		/*don't take first and last row data; because of the +1 and -1*/
+		int lastRow = datas.getRowCount() - 2;
+		int nearest = -1;
+		if (!orderedAbscissa) {
+			double distance = Double.POSITIVE_INFINITY;
+			for (int j = 1; j <= lastRow; j++) {
+				if (Math.abs((datas.get(j, 0)) - value) <= distance) {
+					distance = Math.abs((datas.get(j, 0)) - value);
+					nearest = j;
+				}
+			}
+			return (nearest);
+		}
+		if (lastRow < 1) {
+			return (nearest);
+		}
+		/* binary search: the nearer row is the last one before the value, or the last one with the next abscissa */
+		int next = datas.lowerBound(value);
+		int before = Math.min(next - 1, lastRow);
+		int after = -1;
+		if (next <= lastRow) {
+			after = Math.min(datas.lowerBound(Math.nextUp(datas.get(next, 0))) - 1, lastRow);
+		}
+		if (after >= 1 && (before < 1
+				|| Math.abs(datas.get(after, 0) - value) <= Math.abs(datas.get(before, 0) - value))) {
+			nearest = after;
+		} else if (before >= 1) {
+			nearest = before;
+		}
+		return (nearest);
+	}
+
 	/**
 	 * The function which add the new received data to the chart, and edit the
 	 * JTable if needed for each curves.
 	 *
 	 * @param data: current data of our chart
 	 */
-	public void addData(List<Double[]> datas, int nbRow) {
+	public void addData(ColumnStore datas, int nbRow) {
 		/*
-		 * every mutation below touches Swing/JFreeChart components (XYSeries, axis,
+		 * every mutation below touches Swing/JFreeChart components (datasets, axis,
 		 * JTable model): run it on the Event Dispatch Thread instead of the caller's
-		 * background polling thread, which is the only thread-safe way to touch
-		 * these objects. The polling threads call addData roughly every 1.5s, so
-		 * queuing the update asynchronously here never builds up a backlog.
+		 * thread, which is the only thread-safe way to touch these objects. addData
+		 * is called by the single thread of the ChartRefreshScheduler, only when new
+		 * rows arrived and at most chartRefreshRate times per second (10 by default,
+		 * see the settings), so queuing the update asynchronously here never builds
+		 * up a backlog as long as an update takes less than that period on the EDT.
 		 */
 		SwingUtilities.invokeLater(() -> {
 			data = datas;
@@ -563,26 +709,28 @@ public class DisplayCurve extends JPanel {
 				for (int i = 0; i < nbColumn - 1; i++) {
 					/* boolean to know if we have to change the axis range */
 					boolean axisChange = false;
-					/* add the new data to our serie for each serie of data */
-					listSerie.get(i).addOrUpdate(data.get(currentRow)[0], data.get(currentRow)[i + 1]);
+					/* add the new data to our serie (the ColumnXYDatasets read it below) */
+					if (!orderedAbscissa) {
+						listSerie.get(i).addOrUpdate(data.get(currentRow, 0), data.get(currentRow, i + 1));
+					}
 
 					/* edit values of upper and lower abscissa if needed */
-					if (upperAbscissa < data.get(currentRow)[0]) {
-						upperAbscissa = data.get(currentRow)[0];
+					if (upperAbscissa < data.get(currentRow, 0)) {
+						upperAbscissa = data.get(currentRow, 0);
 					}
-					if (lowerAbscissa > data.get(currentRow)[0]) {
-						lowerAbscissa = data.get(currentRow)[0];
+					if (lowerAbscissa > data.get(currentRow, 0)) {
+						lowerAbscissa = data.get(currentRow, 0);
 					}
 
 					/* if new max, edit the max and the JTable */
-					if (data.get(currentRow)[i + 1] > max.get(i)) {
-						max.set(i, significantDigit(data.get(currentRow)[i + 1], 3));
+					if (data.get(currentRow, i + 1) > max.get(i)) {
+						max.set(i, significantDigit(data.get(currentRow, i + 1), 3));
 						axisChange = true;
 						tableChange = true;
 					}
 					/* if new min, edit the min and the JTable */
-					if (data.get(currentRow)[i + 1] < min.get(i)) {
-						min.set(i, significantDigit(data.get(currentRow)[i + 1], 3));
+					if (data.get(currentRow, i + 1) < min.get(i)) {
+						min.set(i, significantDigit(data.get(currentRow, i + 1), 3));
 						axisChange = true;
 						tableChange = true;
 					}
@@ -595,11 +743,61 @@ public class DisplayCurve extends JPanel {
 				currentRow++;
 
 			}
+			/* one change event per curve for the whole batch of new rows */
+			for (ColumnXYDataset columnDataset : listColumnDataset) {
+				columnDataset.setData(data);
+			}
+
+			/* if new max or min, edit the JTable (once for the next new ones too) */
+			if (tableChange && !tableRefresh.isRunning()) {
+				tableRefresh.start();
+			}
+		});
+	}
 
-			/* if new max or min, edit the JTable */
-			if (tableChange) {
-				updateTable(data);
+	/**
+	 * Replace every row of the chart by new data (the same curves, computed
+	 * again, e.g. with an other moving average step): the series, min, max, axis
+	 * and JTable are updated in place, the chart isn't created again.
+	 *
+	 * @param datas: new data of our chart
+	 */
+	public void replaceData(ColumnStore datas) {
+		SwingUtilities.invokeLater(() -> {
+			data = datas;
+			upperAbscissa = Double.NEGATIVE_INFINITY;
+			lowerAbscissa = Double.POSITIVE_INFINITY;
+			for (int j = 0; j < data.getRowCount(); j++) {
+				upperAbscissa = Math.max(upperAbscissa, data.get(j, 0));
+				lowerAbscissa = Math.min(lowerAbscissa, data.get(j, 0));
 			}
+			for (int i = 0; i < nbColumn - 1; i++) {
+				if (orderedAbscissa) {
+					listColumnDataset.get(i).setData(data);
+				} else {
+					XYSeries serie = listSerie.get(i);
+					/* one repaint per curve, once every row is added */
+					serie.setNotify(false);
+					serie.clear();
+					for (int j = 0; j < data.getRowCount(); j++) {
+						serie.add(data.get(j, 0), data.get(j, i + 1), false);
+					}
+					serie.setNotify(true);
+				}
+
+				/* min and max of the new curve (with 3 significant figure) */
+				max.set(i, significantDigit(columnBound(data, i + 1, true), 3));
+				min.set(i, significantDigit(columnBound(data, i + 1, false), 3));
+				axis.get(i).setRange(min.get(i) - Math.abs(min.get(i) / 100), max.get(i) + Math.abs(max.get(i) / 100));
+			}
+			currentRow = data.getRowCount();
+			/* the abscissa range changed: keep the fields of the user only if still in it */
+			if (getValue() < lowerAbscissa || getValue() > upperAbscissa) {
+				valueAt.setText(String.valueOf(lowerAbscissa));
+				lowerBound.setText(String.valueOf(lowerAbscissa));
+				upperBound.setText(String.valueOf(upperAbscissa));
+			}
+			updateTable(data);
 		});
 	}
 
@@ -609,7 +807,7 @@ public class DisplayCurve extends JPanel {
 	 * 
 	 * @param data: current data of our chart
 	 */
-	public void updateTable(List<Double[]> datas) {
+	public void updateTable(ColumnStore datas) {
 		/*
 		 * called either from the EDT directly (Calculate button) or from within
 		 * addData's own invokeLater (see above) so this always runs on the EDT,
@@ -0,0 +1,59 @@
+package software;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * A growable column of primitive doubles, stored in fixed-size chunks: adding
+ * a value never copies the values already stored (only the small array of
+ * chunk references grows), so a multi-hour experiment doesn't need one huge
+ * contiguous array.
+ */
+final class DoubleColumn {
+
+	/* 4096 values (32 kB) per chunk */
+	static final int CHUNK_SHIFT = 12;
+	static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/* replaced when it grows, volatile so a reader never sees the larger array without its references */
+	private volatile double[][] chunks = new double[8][];
+	private int size;
+
+	/**
+	 * Add a value at the end of the column
+	 */
+	void add(double value) {
+		int chunk = size >>> CHUNK_SHIFT;
+		if (chunk == chunks.length) {
+			double[][] larger = new double[chunks.length * 2][];
+			System.arraycopy(chunks, 0, larger, 0, chunks.length);
+			chunks = larger;
+		}
+		if (chunks[chunk] == null) {
+			chunks[chunk] = new double[CHUNK_SIZE];
+		}
+		chunks[chunk][size & CHUNK_MASK] = value;
+		size++;
+	}
+
+	/**
+	 * Value at the index (0 <= index < size())
+	 */
+	double get(int index) {
+		return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+	}
+
+	/**
+	 * Number of values in the column
+	 */
+	int size() {
+		return size;
+	}
+}
@@ -0,0 +1,235 @@
+package software;
+
+import java.nio.ByteBuffer;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Writes doubles as ASCII text straight into a buffer, without creating a
+ * String for each one (see CsvExport). The value is written with the fewest of
+ * 15, 16 or 17 significant digits that read it back exactly: value * 10^s is
+ * computed to about 10^-30 of its value as a sum of doubles (10^s is exact as a
+ * double up to 10^22, and as the exact product of two of them up to 10^44), its
+ * nearest integer m gives the digits, and m * 10^-s reads back as the value if
+ * it is closer to it than half the gap to the next doubles (when too close to
+ * tell, one more digit is tried). Only the values below 10^-28 or above 10^15
+ * (none of the measures) can need Double.toString. Either way Double.parseDouble
+ * gives the same double back. The notation is the one of Double.toString:
+ * plain between 10^-3 and 10^7, scientific (1.25E-10) otherwise. Only used by
+ * one thread at a time.
+ */
+final class DoubleFormatter {
+
+	/* powers of ten represented exactly by a double */
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	/* below 2^53, a long is an exact double */
+	private static final long MAX_EXACT = 1L << 53;
+
+	/* splits a double in two halves of 26 bits (Dekker) */
+	private static final double SPLITTER = (1 << 27) + 1;
+
+	/* margin of the comparison with the gap to the next doubles, far above the rounding errors */
+	private static final double TOLERANCE = 1e-9;
+
+	/* longest text written: sign, 17 digits, point, E, sign, 3 digits */
+	static final int MAX_LENGTH = 25;
+
+	/* digits of the mantissa (at most 18) at the end, of the exponent before them */
+	private final byte[] digits = new byte[24];
+
+	/* rounding error of the last product (see product) */
+	private double productError;
+
+	/**
+	 * Write a value at the position of the buffer
+	 *
+	 * @param out:   buffer with at least MAX_LENGTH bytes remaining
+	 * @param value: the value
+	 */
+	void append(ByteBuffer out, double value) {
+		if (!appendDigits(out, value)) {
+			appendAscii(out, Double.toString(value));
+		}
+	}
+
+	/**
+	 * Write a value at the position of the buffer, without Double.toString
+	 *
+	 * @param out:   buffer with at least MAX_LENGTH bytes remaining
+	 * @param value: the value
+	 * @return false if nothing was written: the value needs Double.toString
+	 */
+	boolean appendDigits(ByteBuffer out, double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return false;
+		}
+		if (value == 0) {
+			if (1 / value < 0) {
+				out.put((byte) '-');
+			}
+			out.put((byte) '0').put((byte) '.').put((byte) '0');
+			return true;
+		}
+		double abs = Math.abs(value);
+		/* decimal exponent of the first digit (maybe one off: then one digit more or less) */
+		int exponent = (int) Math.floor(Math.log10(abs));
+		for (int precision = 15; precision <= 17; precision++) {
+			int scale = precision - 1 - exponent;
+			long mantissa = roundTrip(abs, scale);
+			if (mantissa > 0) {
+				if (value < 0) {
+					out.put((byte) '-');
+				}
+				appendDecimal(out, mantissa, scale);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Digits of a value with a given scale
+	 *
+	 * @param abs:   the value, positive
+	 * @param scale: number of digits after the decimal point
+	 * @return the integer m nearest to abs * 10^scale if m * 10^-scale reads back
+	 *         as abs, -1 if it doesn't or if it can't be checked here
+	 */
+	private long roundTrip(double abs, int scale) {
+		if (scale < 0) {
+			/* m and 10^-scale are exact doubles: m * 10^-scale, rounded once, is what a parser reads */
+			if (scale < -22) {
+				return -1;
+			}
+			double mantissa = Math.rint(abs / POWERS_OF_TEN[-scale]);
+			if (mantissa >= MAX_EXACT) {
+				return -1;
+			}
+			return mantissa * POWERS_OF_TEN[-scale] == abs ? (long) mantissa : -1;
+		}
+		if (scale > 44) {
+			return -1;
+		}
+		/* 10^scale = power + powerError exactly */
+		double power = POWERS_OF_TEN[Math.min(scale, 22)];
+		double powerError = 0;
+		if (scale > 22) {
+			power = product(POWERS_OF_TEN[22], POWERS_OF_TEN[scale - 22]);
+			powerError = productError;
+		}
+		/* abs * 10^scale = scaled + scaledError + (abs * powerError, rounded: about 10^-16 of an unit) */
+		double scaled = product(abs, power);
+		double scaledError = productError;
+		if (scaled >= Long.MAX_VALUE / 2) {
+			return -1;
+		}
+		/* above 2^53 the double is an integer, below it the fraction is exact */
+		long integer = (long) Math.floor(scaled);
+		double remainder = ((scaled - integer) + scaledError) + abs * powerError;
+		double rounded = Math.rint(remainder);
+		long mantissa = integer + (long) rounded;
+		/* abs * 10^scale - m */
+		double distance = remainder - rounded;
+
+		/* half the gap to the next doubles, scaled (a power of two is closer to the lower one) */
+		double halfGap = Math.ulp(abs) / 2 * power;
+		double lowerHalfGap = abs == Math.scalb(1.0, Math.getExponent(abs)) && abs > Double.MIN_NORMAL
+				? halfGap / 2
+				: halfGap;
+		/* m is above abs by -distance, below it by distance */
+		if (-distance < halfGap - TOLERANCE && distance < lowerHalfGap - TOLERANCE) {
+			return mantissa;
+		}
+		return -1;
+	}
+
+	/**
+	 * Product of two doubles, rounded, and its exact rounding error in
+	 * productError (Dekker's algorithm, without fused multiply-add)
+	 */
+	private double product(double a, double b) {
+		double p = a * b;
+		double t = SPLITTER * a;
+		double aHigh = t - (t - a);
+		double aLow = a - aHigh;
+		t = SPLITTER * b;
+		double bHigh = t - (t - b);
+		double bLow = b - bHigh;
+		productError = ((aHigh * bHigh - p) + aHigh * bLow + aLow * bHigh) + aLow * bLow;
+		return p;
+	}
+
+	/**
+	 * Write mantissa * 10^-scale
+	 */
+	private void appendDecimal(ByteBuffer out, long mantissa, int scale) {
+		/* drop the trailing zeros */
+		while (mantissa % 10 == 0) {
+			mantissa /= 10;
+			scale--;
+		}
+		int nbDigit = 0;
+		for (long m = mantissa; m != 0; m /= 10) {
+			digits[digits.length - 1 - nbDigit++] = (byte) ('0' + m % 10);
+		}
+		int first = digits.length - nbDigit;
+		int exponent = nbDigit - 1 - scale;
+		if (exponent < -3 || exponent >= 7) {
+			/* scientific: d.dddE-x */
+			out.put(digits[first]).put((byte) '.');
+			if (nbDigit == 1) {
+				out.put((byte) '0');
+			} else {
+				out.put(digits, first + 1, nbDigit - 1);
+			}
+			out.put((byte) 'E');
+			if (exponent < 0) {
+				out.put((byte) '-');
+				exponent = -exponent;
+			}
+			/* the digits of the exponent, written in the free start of digits */
+			int nbExponentDigit = 0;
+			for (int e = exponent; nbExponentDigit == 0 || e != 0; e /= 10) {
+				digits[first - 1 - nbExponentDigit++] = (byte) ('0' + e % 10);
+			}
+			out.put(digits, first - nbExponentDigit, nbExponentDigit);
+		} else if (scale <= 0) {
+			/* integer: digits, zeros, .0 */
+			out.put(digits, first, nbDigit);
+			for (int i = 0; i < -scale; i++) {
+				out.put((byte) '0');
+			}
+			out.put((byte) '.').put((byte) '0');
+		} else if (scale >= nbDigit) {
+			/* lower than 1: 0.00digits */
+			out.put((byte) '0').put((byte) '.');
+			for (int i = 0; i < scale - nbDigit; i++) {
+				out.put((byte) '0');
+			}
+			out.put(digits, first, nbDigit);
+		} else {
+			out.put(digits, first, nbDigit - scale).put((byte) '.').put(digits, first + nbDigit - scale, scale);
+		}
+	}
+
+	private static void appendAscii(ByteBuffer out, String text) {
+		for (int i = 0; i < text.length(); i++) {
+			out.put((byte) text.charAt(i));
+		}
+	}
+}
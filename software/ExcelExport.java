@@ -0,0 +1,330 @@
+package software;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Writes a dataset to an xlsx file: a header row with the name of each column,
+ * then one row per row of the dataset. Used by the save actions of the Window
+ * and by the batch mode, never shows anything.
+ *
+ * The workbook is streamed (SXSSFWorkbook): only the last ROW_WINDOW rows are
+ * kept in memory, the others are already flushed to a temporary file, so the
+ * memory used doesn't depend on the length of the experiment. The width of the
+ * columns is estimated from the header and a sample of the rows, instead of
+ * measuring every cell (autoSizeColumn would need them all in memory). The
+ * file is written next to its destination, then moved in place once complete
+ * (see ExportFile).
+ */
+final class ExcelExport {
+
+	/* rows kept in memory before being flushed */
+	static final int ROW_WINDOW = 256;
+
+	/* rows at the start and at the end of the dataset used to size the columns */
+	private static final int SAMPLE_SIZE = 100;
+
+	/* the header font (14 pt) is wider than the default one (11 pt) */
+	private static final double HEADER_SCALE = 14.0 / 11.0;
+
+	/* Excel shows at most 11 characters of a number in the General format */
+	private static final int MAX_NUMBER_LENGTH = 11;
+
+	/* limit of the width of a column in Excel (in characters) */
+	private static final int MAX_COLUMN_WIDTH = 255;
+
+	/* rows written between two calls of the Progress */
+	private static final int PROGRESS_STEP = 1024;
+
+	/* bytes of the file written between two calls of the Progress, once every row is */
+	private static final int WRITE_STEP = 1024 * 1024;
+
+	private ExcelExport() {
+	}
+
+	/**
+	 * A dataset written to its own sheet (or its own file, see ExportFormat)
+	 */
+	static final class Table {
+		final String name;
+		final String[] columns;
+		final ColumnStore data;
+
+		/**
+		 * Constructor of Table
+		 *
+		 * @param name:    name of the sheet (at most 31 characters, without
+		 *                 []:*?/\)
+		 * @param columns: title of the columns
+		 * @param data:    data of the sheet (a snapshot if an other thread adds
+		 *                 rows)
+		 */
+		Table(String name, String[] columns, ColumnStore data) {
+			this.name = name;
+			this.columns = columns;
+			this.data = data;
+		}
+	}
+
+	/**
+	 * Write a dataset to an xlsx file, overwriting it
+	 *
+	 * @param path:    path of the file
+	 * @param columns: title of the columns of the file
+	 * @param data:    data to save in the file (a snapshot if an other thread
+	 *                 adds rows)
+	 * @throws IOException: if the file can't be written
+	 */
+	static void write(String path, String[] columns, ColumnStore data) throws IOException {
+		write(path, columns, data, (nbRowWritten, nbRow) -> true);
+	}
+
+	/**
+	 * Same as write(path, columns, data), telling the progress of the writing
+	 *
+	 * @param progress: called every PROGRESS_STEP rows, can stop the writing
+	 * @return false if the writing was stopped (the file is left as it was)
+	 * @throws IOException: if the file can't be written
+	 */
+	static boolean write(String path, String[] columns, ColumnStore data, ExportFormat.Progress progress)
+			throws IOException {
+		return write(path, Collections.singletonList(new Table("Data Saved", columns, data)), progress);
+	}
+
+	/**
+	 * Write datasets to the sheets of an xlsx file, overwriting it. The values
+	 * and the width of the columns of each sheet are prepared by its own thread,
+	 * then the rows are created and the file is written by the calling thread
+	 * only (the workbook isn't thread-safe).
+	 *
+	 * @param path:     path of the file
+	 * @param tables:   the datasets, in the order of the sheets
+	 * @param progress: called every PROGRESS_STEP rows, can stop the writing
+	 * @return false if the writing was stopped (the file is left as it was)
+	 * @throws IOException: if the file can't be written
+	 */
+	static boolean write(String path, List<Table> tables, ExportFormat.Progress progress)
+			throws IOException {
+		/* Create a Workbook, flushing the rows out of the window */
+		SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+		try {
+			/* Create a Font for styling header cells */
+			Font headerFont = workbook.createFont();
+			headerFont.setBold(true);
+			headerFont.setFontHeightInPoints((short) 14);
+			headerFont.setColor(IndexedColors.RED.getIndex());
+
+			/* Create a CellStyle with the font */
+			CellStyle headerCellStyle = workbook.createCellStyle();
+			headerCellStyle.setFont(headerFont);
+
+			/* the values of the sheets are prepared in parallel */
+			List<PreparedSheet> prepared = tables.parallelStream().map(PreparedSheet::new)
+					.collect(Collectors.toList());
+
+			/* then the sheets are filled one after the other */
+			int total = 0;
+			for (Table table : tables) {
+				total += table.data.getRowCount();
+			}
+			int nbRow = total;
+			int written = 0;
+			for (int t = 0; t < tables.size(); t++) {
+				Sheet sheet = createSheet(workbook, tables.get(t), prepared.get(t), headerCellStyle);
+				if (!fillRows(sheet, prepared.get(t), written, nbRow, progress)) {
+					return false;
+				}
+				written += tables.get(t).data.getRowCount();
+			}
+
+			/*
+			 * Write the output next to the file, then replace it (see ExportFile): the
+			 * longest part, which can still be stopped
+			 */
+			try {
+				return ExportFile.write(path, out -> {
+					workbook.write(new StoppableStream(Channels.newOutputStream(out),
+							() -> progress.rowsWritten(nbRow, nbRow)));
+					return true;
+				});
+			} catch (Stopped e) {
+				return false;
+			}
+		} finally {
+			/* delete the temporary files of the rows, then close the workbook */
+			workbook.dispose();
+			workbook.close();
+		}
+	}
+
+	/**
+	 * Stream of the file, asking every WRITE_STEP bytes if the writing goes on
+	 */
+	private static final class StoppableStream extends FilterOutputStream {
+		private final BooleanSupplier goOn;
+		/* bytes written since the last question */
+		private int unchecked = 0;
+
+		StoppableStream(OutputStream out, BooleanSupplier goOn) {
+			super(out);
+			this.goOn = goOn;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			check(1);
+			out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			check(len);
+			out.write(b, off, len);
+		}
+
+		private void check(int length) throws IOException {
+			unchecked += length;
+			if (unchecked >= WRITE_STEP) {
+				unchecked = 0;
+				if (!goOn.getAsBoolean()) {
+					throw new Stopped();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Thrown by StoppableStream to stop the writing of the file
+	 */
+	private static final class Stopped extends IOException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Values of a sheet, prepared before its rows are created
+	 */
+	private static final class PreparedSheet {
+		/* values of the dataset, row after row */
+		final double[] values;
+		final int nbColumn;
+		/* width of each column (in characters) */
+		final int[] widths;
+
+		PreparedSheet(Table table) {
+			ColumnStore data = table.data;
+			nbColumn = table.columns.length;
+			int nbRow = data.getRowCount();
+			values = new double[nbRow * nbColumn];
+			for (int i = 0; i < nbRow; i++) {
+				for (int j = 0; j < nbColumn; j++) {
+					values[i * nbColumn + j] = data.get(i, j);
+				}
+			}
+			widths = new int[nbColumn];
+			for (int j = 0; j < nbColumn; j++) {
+				widths[j] = columnWidth(table.columns[j], data, j);
+			}
+		}
+
+		int getRowCount() {
+			return values.length / Math.max(1, nbColumn);
+		}
+	}
+
+	/**
+	 * Create the sheet of a dataset, with the title and the width of its columns
+	 */
+	private static Sheet createSheet(SXSSFWorkbook workbook, Table table, PreparedSheet prepared,
+			CellStyle headerCellStyle) {
+		/* Create a Sheet */
+		Sheet sheet = workbook.createSheet(table.name);
+
+		/* Create the first Row */
+		Row headerRow = sheet.createRow(0);
+
+		/* Create the first line of cells with columns */
+		for (int i = 0; i < table.columns.length; i++) {
+			Cell cell = headerRow.createCell(i);
+			cell.setCellValue(table.columns[i]);
+			cell.setCellStyle(headerCellStyle);
+		}
+
+		/* the width of the columns is written before the rows */
+		for (int i = 0; i < table.columns.length; i++) {
+			sheet.setColumnWidth(i, prepared.widths[i] * 256);
+		}
+		return sheet;
+	}
+
+	/**
+	 * Create the rows of a dataset in its sheet
+	 *
+	 * @param before:   rows of the previous sheets
+	 * @param total:    rows of every sheet
+	 * @param progress: called every PROGRESS_STEP rows, can stop the writing
+	 * @return false if the writing was stopped
+	 */
+	private static boolean fillRows(Sheet sheet, PreparedSheet prepared, int before, int total,
+			ExportFormat.Progress progress) {
+		int nbColumn = prepared.nbColumn;
+		int nbRow = prepared.getRowCount();
+		/* create the rows */
+		for (int i = 0; i < nbRow; i++) {
+			if (i > 0 && i % PROGRESS_STEP == 0 && !progress.rowsWritten(before + i, total)) {
+				return false;
+			}
+			Row row = sheet.createRow(i + 1);
+			/* create the cells of each row */
+			for (int j = 0; j < nbColumn; j++) {
+				/* create a cell with the corresponding data */
+				row.createCell(j).setCellValue(prepared.values[i * nbColumn + j]);
+			}
+		}
+		return progress.rowsWritten(before + nbRow, total);
+	}
+
+	/**
+	 * Width of a column (in characters): enough for its title and for the values
+	 * of the first and last rows of the dataset
+	 *
+	 * @param title:  title of the column
+	 * @param data:   the dataset
+	 * @param column: index of the column in the dataset
+	 */
+	static int columnWidth(String title, ColumnStore data, int column) {
+		int width = (int) Math.ceil(title.length() * HEADER_SCALE);
+		int nbRow = data.getRowCount();
+		for (int i = 0; i < nbRow; i++) {
+			/* skip the middle of the dataset */
+			if (i == SAMPLE_SIZE && nbRow > 2 * SAMPLE_SIZE) {
+				i = nbRow - SAMPLE_SIZE;
+			}
+			width = Math.max(width, Math.min(MAX_NUMBER_LENGTH, Double.toString(data.get(i, column)).length()));
+		}
+		/* a margin, as autoSizeColumn */
+		return Math.min(MAX_COLUMN_WIDTH, width + 2);
+	}
+}
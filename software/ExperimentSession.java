@@ -0,0 +1,948 @@
+package software;
+
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * The data of one experiment: the header of the data file compiled against the
+ * factor file, and every dataset computed from its rows (concentrations,
+ * rates, cumulated, denoised, O2 exchange, hydrogenase activity). Each row of
+ * the data file given to addRow is parsed and its derived rows are added to
+ * the datasets, so the same pipeline serves the live acquisition of the Window
+ * and the batch processing of finished files (see Batch). The rows already
+ * written can also be parsed in parallel and added at once (see Block and
+ * BulkLoader). No Swing object is used.
+ *
+ * Only the thread adding the rows modifies the datasets, the others read them
+ * through snapshots (see ColumnStore). The rows of the data file
+ * (amperometricData) are kept as they were read: when a parameter changes,
+ * withParameters computes every other dataset again from them.
+ *
+ * The derived datasets are computed on demand: a dataset stays empty until a
+ * consumer activates it (see activate), which computes it from the rows
+ * already read along with the datasets it depends on (see Dataset.inputs);
+ * its rows are then added with each new row.
+ */
+final class ExperimentSession {
+
+	/**
+	 * The datasets of an experiment, with the name of their file in batch mode
+	 */
+	enum Dataset {
+		AMPEROMETRIC("amperometric"), GAS_CONCENTRATION("gasConcentration"),
+		GAS_EXCHANGE_RATES("gasExchangeRates"), CUMULATED_GAS_EXCHANGE("cumulatedGasExchange"),
+		DENOISED_GAS_EXCHANGE_RATES("denoisedGasExchangeRates"),
+		DENOISED_CUMULATED_GAS_EXCHANGE("denoisedCumulatedGasExchange"), O2_EXCHANGE_RATES("o2ExchangeRates"),
+		O2_EXCHANGE("o2Exchange"), HYDROGENASE_ACTIVITY("hydrogenaseActivity");
+
+		final String fileName;
+
+		Dataset(String fileName) {
+			this.fileName = fileName;
+		}
+
+		/**
+		 * Datasets whose values are needed to compute the rows of this one (the
+		 * cumulated datasets also use their own previous row)
+		 */
+		Dataset[] inputs() {
+			switch (this) {
+			case AMPEROMETRIC:
+				return new Dataset[0];
+			case GAS_CONCENTRATION:
+				return new Dataset[] { AMPEROMETRIC };
+			case GAS_EXCHANGE_RATES:
+			case DENOISED_GAS_EXCHANGE_RATES:
+				return new Dataset[] { GAS_CONCENTRATION };
+			case CUMULATED_GAS_EXCHANGE:
+				return new Dataset[] { GAS_EXCHANGE_RATES };
+			case DENOISED_CUMULATED_GAS_EXCHANGE:
+				return new Dataset[] { DENOISED_GAS_EXCHANGE_RATES };
+			case O2_EXCHANGE:
+				return new Dataset[] { O2_EXCHANGE_RATES };
+			default:
+				/* O2 exchange rates and hydrogenase activity */
+				return new Dataset[] { DENOISED_GAS_EXCHANGE_RATES, GAS_CONCENTRATION };
+			}
+		}
+
+		/**
+		 * The datasets and every dataset they are computed from
+		 */
+		static Set<Dataset> withInputs(Collection<Dataset> datasets) {
+			EnumSet<Dataset> closure = EnumSet.noneOf(Dataset.class);
+			Deque<Dataset> toVisit = new ArrayDeque<Dataset>(datasets);
+			while (!toVisit.isEmpty()) {
+				Dataset dataset = toVisit.pop();
+				if (closure.add(dataset)) {
+					toVisit.addAll(Arrays.asList(dataset.inputs()));
+				}
+			}
+			return closure;
+		}
+	}
+
+	/* names of the columns of the datasets which don't depend on the header */
+	static final String[] O2_EXCHANGE_RATES_COLUMN_NAME = { "Time (min)", "Uo (µM / min)", "Eo (µM / min)",
+			"Net (µM / min)" };
+	static final String[] O2_EXCHANGE_COLUMN_NAME = { "Time (min)", "Uo (µM)", "Eo (µM)", "Net (µM)" };
+	static final String[] HYDROGENASE_ACTIVITY_COLUMN_NAME = { "Time (min)", "Hydrogenase Activity  (µM / min)" };
+
+	/* header of the data file compiled against the factor file */
+	final ColumnPlan columnPlan;
+
+	/* every dataset share the time of amperometricData */
+	final ColumnStore amperometricData;
+	final ColumnStore gasConcentrationData;
+	final ColumnStore gasExchangeRatesData;
+	final ColumnStore cumulatedGasExchangeData;
+	final ColumnStore denoisedGasExchangeRatesData;
+	final ColumnStore denoisedCumulatedGasExchangeData;
+	final ColumnStore o2ExchangeRatesData;
+	final ColumnStore o2ExchangeData;
+	final ColumnStore hydrogenaseActivityData;
+
+	/* true if the O2 exchange and the hydrogenase activity can be calculated */
+	final boolean o2Exchange;
+	final boolean hydrogenaseActivity;
+
+	private final double normalizationFactorValue;
+	private final int nbMoleculeColumn;
+
+	/* what the header was compiled with, to compile it again with other parameters */
+	private final String[] header;
+	private final Map<Integer, String[]> factor;
+	private final int mass;
+
+	/*
+	 * rows are decoded straight from the characters of the line, into a reused
+	 * primitive row (no String created per cell)
+	 */
+	private final DataLineParser parser = new DataLineParser();
+	/*
+	 * decodes the fixed "yyyy/MM/dd HH:mm:ss.S" layout from the characters of the
+	 * row, only re-computing the day when it changes
+	 */
+	private final TimestampDecoder dateFormat = new TimestampDecoder();
+	/* date of the first row, time reference of the experiment */
+	private long refDate;
+
+	/* lines reused for every row, the datasets copy the values */
+	private final double[] amperometricLine;
+	private final double[] gasConcentrationLine;
+	private final double[] previousConcentrationLine;
+	private final double[] gasExchangeRatesLine;
+	private final double[] cumulatedGasExchangeRatesLine;
+	private final double[] denoisedGasExchangeRatesLine;
+	private final double[] denoisedCumulatedGasExchangeRatesLine;
+	private final double[] o2ExchangeRatesLine = new double[4];
+	private final double[] o2ExchangeLine = new double[4];
+	private final double[] hydrogenaseActivityLine = new double[2];
+
+	/* number of rows treated */
+	private int nbRow = 0;
+
+	/*
+	 * datasets whose rows are added (see activate), and the datasets computed for
+	 * them: the others stay empty
+	 */
+	private volatile Set<Dataset> active = Collections.unmodifiableSet(EnumSet.of(Dataset.AMPEROMETRIC));
+	private Set<Dataset> computed = Dataset.withInputs(active);
+
+	/* number of rows given to each thread when the datasets are computed again */
+	private static final int ROWS_PER_BLOCK = 64 * 1024;
+
+	/**
+	 * Mass used for denoised calculus: 7th column of the factor file, in the row
+	 * M/Z=2
+	 *
+	 * @param factor: content of the factor file
+	 * @throws NumberFormatException: if the mass isn't an integer
+	 */
+	static int denoisedMass(Map<Integer, String[]> factor) {
+		return Integer.parseInt(factor.get(2)[7]);
+	}
+
+	/**
+	 * Constructor of ExperimentSession
+	 *
+	 * @param header:              header cells of the data file, as returned by
+	 *                             Window.parseDataLine
+	 * @param factor:              content of the factor file
+	 * @param mass:                M/Z used for denoised calculus
+	 * @param hideH2O:             true if H2O (18) isn't displayed
+	 * @param ci:                  true if Ci is calculated and displayed
+	 * @param pKa1Value:           pKa of the CO2/HCO3- equilibrium
+	 * @param pKa2Value:           pKa of the HCO3-/CO3-- equilibrium
+	 * @param normalizationFactor: every rate is divided by this factor
+	 * @throws NumberFormatException: if the header or the factor file contain
+	 *                                something else than numbers
+	 */
+	ExperimentSession(String[] header, Map<Integer, String[]> factor, int mass, boolean hideH2O, boolean ci,
+			double pKa1Value, double pKa2Value, double normalizationFactor) {
+		this(header, factor, mass, hideH2O, ci, pKa1Value, pKa2Value, normalizationFactor, null);
+	}
+
+	/**
+	 * @param rawData: rows of the data file already read (see withParameters),
+	 *                 null for a new experiment
+	 */
+	private ExperimentSession(String[] header, Map<Integer, String[]> factor, int mass, boolean hideH2O, boolean ci,
+			double pKa1Value, double pKa2Value, double normalizationFactor, ColumnStore rawData) {
+		this.header = header;
+		this.factor = factor;
+		this.mass = mass;
+		columnPlan = new ColumnPlan(header, factor, mass, hideH2O, ci, pKa1Value, pKa2Value);
+		normalizationFactorValue = normalizationFactor;
+		nbMoleculeColumn = columnPlan.nbMoleculeColumn;
+		o2Exchange = columnPlan.presenceMass && columnPlan.presence32 && columnPlan.presence36;
+		hydrogenaseActivity = columnPlan.presence2 && columnPlan.presence3 && columnPlan.presence4
+				&& columnPlan.presenceMass;
+
+		amperometricData = rawData != null ? rawData : new ColumnStore(columnPlan.nbAmperometricColumn);
+		gasConcentrationData = new ColumnStore(amperometricData, nbMoleculeColumn);
+		gasExchangeRatesData = new ColumnStore(amperometricData, nbMoleculeColumn);
+		cumulatedGasExchangeData = new ColumnStore(amperometricData, nbMoleculeColumn);
+		denoisedGasExchangeRatesData = new ColumnStore(amperometricData, nbMoleculeColumn - 1);
+		denoisedCumulatedGasExchangeData = new ColumnStore(amperometricData, nbMoleculeColumn - 1);
+		o2ExchangeRatesData = new ColumnStore(amperometricData, 4);
+		o2ExchangeData = new ColumnStore(amperometricData, 4);
+		hydrogenaseActivityData = new ColumnStore(amperometricData, 2);
+
+		amperometricLine = new double[columnPlan.nbAmperometricColumn];
+		gasConcentrationLine = new double[nbMoleculeColumn];
+		previousConcentrationLine = new double[nbMoleculeColumn];
+		gasExchangeRatesLine = new double[nbMoleculeColumn];
+		cumulatedGasExchangeRatesLine = new double[nbMoleculeColumn];
+		denoisedGasExchangeRatesLine = new double[nbMoleculeColumn - 1];
+		denoisedCumulatedGasExchangeRatesLine = new double[nbMoleculeColumn - 1];
+	}
+
+	/**
+	 * Parse a row of the data file and add it, and the rows derived from it, to
+	 * every dataset
+	 *
+	 * @param chars:  characters of the row
+	 * @param length: length of the row
+	 * @throws ParseException:        if the date of the row isn't a date
+	 * @throws NumberFormatException: if a value is missing or isn't a number
+	 */
+	synchronized void addRow(char[] chars, int length) throws ParseException {
+		parser.parse(chars, 0, length, amperometricLine);
+		long date = dateFormat.parseMillis(chars, parser.timestampStart(), parser.timestampEnd());
+		if (nbRow == 0) {
+			/* get the first date of the first value and set it to reference */
+			refDate = date;
+		}
+		/* get current time for the row (in min) */
+		amperometricLine[0] = (((double) date - (double) refDate) / 1000 / 60);
+		deriveRow(true);
+	}
+
+	/**
+	 * Add the rows of the datasets derived from the row of amperometricLine
+	 *
+	 * @param newRawRow: false if the row is already in amperometricData
+	 */
+	private void deriveRow(boolean newRawRow) {
+		/* every dataset but the amperometric one needs the concentrations */
+		if (computed.contains(Dataset.GAS_CONCENTRATION)) {
+			columnPlan.convert(amperometricLine, gasConcentrationLine);
+			if (nbRow > 0) {
+				computeRates(previousConcentrationLine, gasConcentrationLine, gasExchangeRatesLine,
+						denoisedGasExchangeRatesLine, o2ExchangeRatesLine, hydrogenaseActivityLine, computed);
+			}
+		}
+		appendRow(newRawRow);
+	}
+
+	/**
+	 * Add a row whose concentrations (and rates, after the first row) are in the
+	 * lines
+	 *
+	 * @param newRawRow: false if the row is already in amperometricData
+	 */
+	private void appendRow(boolean newRawRow) {
+		if (newRawRow) {
+			/*
+			 * add it first: the other datasets use the time of amperometricData (the row
+			 * nbRow - 1 used by addNextRow is the previous one)
+			 */
+			amperometricData.addRow(amperometricLine);
+		}
+		appendDerivedRow(active, nbRow);
+		System.arraycopy(gasConcentrationLine, 0, previousConcentrationLine, 0, nbMoleculeColumn);
+		nbRow++;
+	}
+
+	/**
+	 * Add the derived rows computed in the lines
+	 *
+	 * @param stored: datasets the rows are added to
+	 * @param row:    index of the row
+	 */
+	private void appendDerivedRow(Set<Dataset> stored, int row) {
+		if (row == 0) {
+			addFirstRow(stored);
+		} else {
+			addNextRow(stored, row);
+		}
+	}
+
+	/**
+	 * The first row only has concentrations: the rates need the next one
+	 */
+	private void addFirstRow(Set<Dataset> stored) {
+		if (stored.contains(Dataset.GAS_CONCENTRATION)) {
+			gasConcentrationData.addRow(gasConcentrationLine);
+		}
+		if (stored.contains(Dataset.CUMULATED_GAS_EXCHANGE)) {
+			/* c(i)=c(i-1) + v(i-1)*(ti-ti-1) but c0= C0 */
+			cumulatedGasExchangeData.addRow(gasConcentrationLine);
+		}
+
+		if (columnPlan.presenceMass && stored.contains(Dataset.DENOISED_CUMULATED_GAS_EXCHANGE)) {
+			/* calculate denoised cumulated gas exchange */
+			int k = 0;
+			for (int i = 0; i < nbMoleculeColumn; i++) {
+				if (i != columnPlan.indexMass) {
+					/* cd(i)=cd(i-1) + vd(i-1)*(ti-ti-1) but cd0= C0 */
+					denoisedCumulatedGasExchangeRatesLine[k] = gasConcentrationLine[i];
+					k++;
+				}
+			}
+			denoisedCumulatedGasExchangeData.addRow(denoisedCumulatedGasExchangeRatesLine);
+		}
+
+		/* create first row of o2ExchangeLine (set to 0) */
+		if (o2Exchange && stored.contains(Dataset.O2_EXCHANGE)) {
+			Arrays.fill(o2ExchangeLine, 0);
+			o2ExchangeData.addRow(o2ExchangeLine);
+		}
+	}
+
+	/**
+	 * Rates between two consecutive rows (given at the time of the first one).
+	 * Only reads its arguments and the compiled header, so the rows of a bulk load
+	 * can be computed by several threads at once (see Block).
+	 *
+	 * @param previous:    concentrations of the previous row
+	 * @param current:     concentrations of the row
+	 * @param rates:       receives the gas exchange rates
+	 * @param denoised:    receives the denoised gas exchange rates (if the mass
+	 *                     is present)
+	 * @param o2Rates:     receives the O2 exchange rates (if calculated)
+	 * @param hydrogenase: receives the hydrogenase activity (if calculated)
+	 * @param needed:      datasets to compute (see Dataset.withInputs)
+	 */
+	private void computeRates(double[] previous, double[] current, double[] rates, double[] denoised,
+			double[] o2Rates, double[] hydrogenase, Set<Dataset> needed) {
+		int indexMass = columnPlan.indexMass;
+		double[] consumption = columnPlan.consumption;
+		boolean plain = needed.contains(Dataset.GAS_EXCHANGE_RATES);
+		boolean denoise = columnPlan.presenceMass && needed.contains(Dataset.DENOISED_GAS_EXCHANGE_RATES);
+		/* time (i-1) */
+		rates[0] = previous[0];
+		if (columnPlan.presenceMass) {
+			denoised[0] = previous[0];
+		}
+		int k = 1;
+		for (int i = 1; i < nbMoleculeColumn; i++) {
+			if (plain) {
+				/* v(ti-1)=((c(i)-c(i-1))/ti-ti-1)+k*c(i-1) */
+				rates[i] = ((current[i] - previous[i]) / (current[0] - rates[0]) + consumption[i - 1] * previous[i])
+						/ normalizationFactorValue;
+			}
+			if (denoise) {
+				if (i != indexMass) {
+					/*
+					 * vd(ti-1)=((c(i)-c(i-1))/ti-ti-1)-k*c(i-1)*((c(i)(mass)-c(i-1)(
+					 * mass))/ti-ti-1)/c(i-1)(mass)/k(mass)
+					 */
+					denoised[k] = ((current[i] - previous[i]) / (current[0] - rates[0])
+							- (consumption[i - 1] * ((current[indexMass] - previous[indexMass]) / (current[0] - rates[0]))
+									/ previous[indexMass] / consumption[indexMass - 1] * previous[i]))
+							/ normalizationFactorValue;
+					k++;
+				}
+			}
+		}
+		if (o2Exchange && needed.contains(Dataset.O2_EXCHANGE_RATES)) {
+			int index32 = columnPlan.indexgasConcentration32;
+			int index36 = columnPlan.indexgasConcentration36;
+			/* time (i-1) */
+			o2Rates[0] = rates[0];
+			/* U0=-(v(36)*(1+c(32)/c(36))) */
+			o2Rates[1] = -(denoised[columnPlan.indexgasExchangeRates36] * (1 + previous[index32] / previous[index36]));
+			/* E0=v(32)-c(36)*(c(32)/c(36)) */
+			o2Rates[2] = (denoised[columnPlan.indexgasExchangeRates32]
+					- denoised[columnPlan.indexgasExchangeRates36] * (previous[index32] / previous[index36]));
+			/* Net=Eo+U0 */
+			o2Rates[3] = -o2Rates[1] + o2Rates[2];
+		}
+		if (hydrogenaseActivity && needed.contains(Dataset.HYDROGENASE_ACTIVITY)) {
+			int index2 = columnPlan.index2;
+			int index3 = columnPlan.index3;
+			int index4 = columnPlan.index4;
+			/* time (i-1) */
+			hydrogenase[0] = rates[0];
+			/*
+			 * H2activity = (2*v_(H_2 )(t)+v_HD (t))/(C_D_2 (t)+(C_HD (t))/2)/(C_D_2
+			 * (t)+C_H_2 (t)+C_HD (t))
+			 */
+			hydrogenase[1] = (2 * denoised[index2] * +denoised[index3])
+					/ ((previous[index4] + previous[index3] / 2) / (previous[index4] + previous[index2] + previous[index3]))
+					+ Math.abs(denoised[index2] + denoised[index3] + denoised[index4]);
+		}
+	}
+
+	/**
+	 * Add a row after the first one: its concentrations, the rates of the previous
+	 * row (already computed in the lines) and the cumulated values of this row
+	 */
+	private void addNextRow(Set<Dataset> stored, int row) {
+		if (stored.contains(Dataset.GAS_CONCENTRATION)) {
+			gasConcentrationData.addRow(gasConcentrationLine);
+		}
+		/* ti-ti-1 */
+		double dt = gasConcentrationLine[0] - gasExchangeRatesLine[0];
+		if (stored.contains(Dataset.CUMULATED_GAS_EXCHANGE)) {
+			cumulatedGasExchangeRatesLine[0] = gasConcentrationLine[0];
+			for (int i = 1; i < nbMoleculeColumn; i++) {
+				/* c(i)(ti)=c(i-1)(ti-1)+v(i-1)(ti-1)*(ti-ti-1) */
+				cumulatedGasExchangeRatesLine[i] = cumulatedGasExchangeData.get(row - 1, i)
+						+ gasExchangeRatesLine[i] * dt;
+			}
+		}
+		if (columnPlan.presenceMass && stored.contains(Dataset.DENOISED_CUMULATED_GAS_EXCHANGE)) {
+			denoisedCumulatedGasExchangeRatesLine[0] = gasConcentrationLine[0];
+			for (int k = 1; k < nbMoleculeColumn - 1; k++) {
+				/* cd(i)(ti)=cd(i-1)(ti-1)+vd(i-1)(ti-1)*(ti-ti-1) */
+				denoisedCumulatedGasExchangeRatesLine[k] = denoisedCumulatedGasExchangeData.get(row - 1, k)
+						+ denoisedGasExchangeRatesLine[k] * dt;
+			}
+		}
+		if (o2Exchange && stored.contains(Dataset.O2_EXCHANGE)) {
+			/* time (i) */
+			o2ExchangeLine[0] = gasConcentrationLine[0];
+			/* cu0(i)(ti)=cu0(i-1)(ti-1)+U0(i-1)(ti-1)*(ti-ti-1) */
+			o2ExchangeLine[1] = (o2ExchangeData.get(row - 1, 1)) + o2ExchangeRatesLine[1] * dt;
+			/* ce0(i)(ti)=ce0(i-1)(ti-1)+e0(i-1)(ti-1)*(ti-ti-1) */
+			o2ExchangeLine[2] = (o2ExchangeData.get(row - 1, 2)) + o2ExchangeRatesLine[2] * dt;
+			/* Cnet=Ceo+Cu0 */
+			o2ExchangeLine[3] = o2ExchangeLine[1] + o2ExchangeLine[2];
+			o2ExchangeData.addRow(o2ExchangeLine);
+		}
+		if (o2Exchange && stored.contains(Dataset.O2_EXCHANGE_RATES)) {
+			o2ExchangeRatesData.addRow(o2ExchangeRatesLine);
+		}
+		if (hydrogenaseActivity && stored.contains(Dataset.HYDROGENASE_ACTIVITY)) {
+			hydrogenaseActivityData.addRow(hydrogenaseActivityLine);
+		}
+
+		/* add other data to corresponding dataset */
+		if (stored.contains(Dataset.GAS_EXCHANGE_RATES)) {
+			gasExchangeRatesData.addRow(gasExchangeRatesLine);
+		}
+		if (stored.contains(Dataset.CUMULATED_GAS_EXCHANGE)) {
+			cumulatedGasExchangeData.addRow(cumulatedGasExchangeRatesLine);
+		}
+		if (columnPlan.presenceMass && stored.contains(Dataset.DENOISED_GAS_EXCHANGE_RATES)) {
+			denoisedGasExchangeRatesData.addRow(denoisedGasExchangeRatesLine);
+		}
+		if (columnPlan.presenceMass && stored.contains(Dataset.DENOISED_CUMULATED_GAS_EXCHANGE)) {
+			denoisedCumulatedGasExchangeData.addRow(denoisedCumulatedGasExchangeRatesLine);
+		}
+	}
+
+	/**
+	 * Rows of a part of the data file, parsed and computed apart from the
+	 * datasets so that several parts can be treated at once by different threads
+	 * (see BulkLoader). addBlocks then appends them, in the order of the file.
+	 */
+	final class Block {
+		/* each block parses with its own parser and decoder (they keep a state) */
+		private final DataLineParser blockParser = new DataLineParser();
+		private final TimestampDecoder blockDateFormat = new TimestampDecoder();
+		private final double[] row = new double[columnPlan.nbAmperometricColumn];
+
+		/* one row after the other in flat arrays */
+		private long[] dates;
+		private double[] amperometric;
+		private double[] concentration;
+		private double[] rates;
+		private double[] denoised;
+		private double[] o2Rates;
+		private double[] hydrogenase;
+		private int size = 0;
+		/* true if the time of the rows was given instead of their date */
+		private boolean timed = false;
+
+		/**
+		 * Constructor of Block
+		 *
+		 * @param capacity: expected number of rows
+		 */
+		Block(int capacity) {
+			int initial = Math.max(capacity, 16);
+			dates = new long[initial];
+			amperometric = new double[initial * columnPlan.nbAmperometricColumn];
+		}
+
+		/**
+		 * Parse a row of the data file and keep it in the block
+		 *
+		 * @param chars: characters of the part of the file
+		 * @param start: index of the first character of the row
+		 * @param end:   index after the last character of the row
+		 * @throws ParseException:        if the date of the row isn't a date
+		 * @throws NumberFormatException: if a value is missing or isn't a number
+		 */
+		void addRow(char[] chars, int start, int end) throws ParseException {
+			blockParser.parse(chars, start, end, row);
+			long date = blockDateFormat.parseMillis(chars, blockParser.timestampStart(), blockParser.timestampEnd());
+			add(date, row, 1);
+		}
+
+		/**
+		 * Keep a row already parsed, whose time is already computed (the rows of
+		 * the SidecarCache)
+		 *
+		 * @param values: time (in min from the reference date) and amperometric
+		 *                values of the row
+		 */
+		void addRow(double[] values) {
+			timed = true;
+			add(0, values, 0);
+		}
+
+		private void add(long date, double[] values, int from) {
+			if (size == dates.length) {
+				dates = Arrays.copyOf(dates, size * 2);
+				amperometric = Arrays.copyOf(amperometric, size * 2 * row.length);
+			}
+			dates[size] = date;
+			System.arraycopy(values, from, amperometric, size * row.length + from, row.length - from);
+			size++;
+		}
+
+		/**
+		 * Number of rows parsed in the block
+		 */
+		int getRowCount() {
+			return size;
+		}
+
+		/**
+		 * Time and concentrations of each row
+		 *
+		 * @param reference:      date of the first row of the experiment
+		 * @param concentrations: false if only the time is needed
+		 */
+		private void convert(long reference, boolean concentrations) {
+			int nbAmperometric = columnPlan.nbAmperometricColumn;
+			concentration = concentrations ? new double[size * nbMoleculeColumn] : null;
+			double[] amperometricRow = new double[nbAmperometric];
+			double[] concentrationRow = new double[nbMoleculeColumn];
+			for (int r = 0; r < size; r++) {
+				if (!timed) {
+					/* get current time for the row (in min) */
+					amperometric[r * nbAmperometric] = (((double) dates[r] - (double) reference) / 1000 / 60);
+				}
+				if (!concentrations) {
+					continue;
+				}
+				System.arraycopy(amperometric, r * nbAmperometric, amperometricRow, 0, nbAmperometric);
+				columnPlan.convert(amperometricRow, concentrationRow);
+				System.arraycopy(concentrationRow, 0, concentration, r * nbMoleculeColumn, nbMoleculeColumn);
+			}
+		}
+
+		/**
+		 * Rates of each row, from the concentrations of the row before it
+		 *
+		 * @param previous: concentrations of the row before the block, null if the
+		 *                  block starts the file
+		 * @param needed:   datasets to compute
+		 */
+		private void computeBlockRates(double[] previous, Set<Dataset> needed) {
+			rates = new double[size * nbMoleculeColumn];
+			denoised = new double[size * (nbMoleculeColumn - 1)];
+			o2Rates = new double[size * 4];
+			hydrogenase = new double[size * 2];
+			double[] before = new double[nbMoleculeColumn];
+			double[] current = new double[nbMoleculeColumn];
+			double[] ratesRow = new double[nbMoleculeColumn];
+			double[] denoisedRow = new double[nbMoleculeColumn - 1];
+			double[] o2RatesRow = new double[4];
+			double[] hydrogenaseRow = new double[2];
+			for (int r = 0; r < size; r++) {
+				if (r == 0) {
+					if (previous == null) {
+						continue;
+					}
+					System.arraycopy(previous, 0, before, 0, nbMoleculeColumn);
+				} else {
+					System.arraycopy(concentration, (r - 1) * nbMoleculeColumn, before, 0, nbMoleculeColumn);
+				}
+				System.arraycopy(concentration, r * nbMoleculeColumn, current, 0, nbMoleculeColumn);
+				computeRates(before, current, ratesRow, denoisedRow, o2RatesRow, hydrogenaseRow, needed);
+				System.arraycopy(ratesRow, 0, rates, r * nbMoleculeColumn, nbMoleculeColumn);
+				System.arraycopy(denoisedRow, 0, denoised, r * (nbMoleculeColumn - 1), nbMoleculeColumn - 1);
+				System.arraycopy(o2RatesRow, 0, o2Rates, r * 4, 4);
+				System.arraycopy(hydrogenaseRow, 0, hydrogenase, r * 2, 2);
+			}
+		}
+
+		/**
+		 * Concentrations of the last row of the block
+		 */
+		private double[] lastConcentration() {
+			return Arrays.copyOfRange(concentration, (size - 1) * nbMoleculeColumn, size * nbMoleculeColumn);
+		}
+	}
+
+	/**
+	 * Add the rows of blocks parsed in the order of the file, following the rows
+	 * already added. The concentrations and the rates of the blocks are computed
+	 * in parallel (in the ForkJoinPool of the calling thread if it runs in one);
+	 * the cumulated values, which depend on every row before them, are then added
+	 * while the rows are appended one after the other, so they're exactly the
+	 * ones given by addRow.
+	 *
+	 * @param blocks: parsed blocks, in the order of the file
+	 */
+	synchronized void addBlocks(List<Block> blocks) {
+		addBlocks(blocks, true);
+	}
+
+	/**
+	 * @param newRawRows: false if the rows of the blocks are already in
+	 *                    amperometricData (see withParameters)
+	 */
+	private void addBlocks(List<Block> blocks, boolean newRawRows) {
+		final List<Block> filled = new ArrayList<Block>();
+		for (Block block : blocks) {
+			if (block.size > 0) {
+				filled.add(block);
+			}
+		}
+		if (filled.isEmpty()) {
+			return;
+		}
+		if (nbRow == 0 && !filled.get(0).timed) {
+			/* get the first date of the first value and set it to reference */
+			refDate = filled.get(0).dates[0];
+		}
+		final long reference = refDate;
+		final Set<Dataset> needed = computed;
+		final boolean concentrations = needed.contains(Dataset.GAS_CONCENTRATION);
+		runInParallel(filled.size(), index -> filled.get(index).convert(reference, concentrations));
+		if (concentrations) {
+			/* the first row of each block follows the last row of the block before it */
+			final double[][] previous = new double[filled.size()][];
+			previous[0] = nbRow == 0 ? null : previousConcentrationLine.clone();
+			for (int b = 1; b < filled.size(); b++) {
+				previous[b] = filled.get(b - 1).lastConcentration();
+			}
+			runInParallel(filled.size(), index -> filled.get(index).computeBlockRates(previous[index], needed));
+		}
+
+		int nbAmperometric = columnPlan.nbAmperometricColumn;
+		for (Block block : filled) {
+			for (int r = 0; r < block.size; r++) {
+				System.arraycopy(block.amperometric, r * nbAmperometric, amperometricLine, 0, nbAmperometric);
+				if (!concentrations) {
+					appendRow(newRawRows);
+					continue;
+				}
+				System.arraycopy(block.concentration, r * nbMoleculeColumn, gasConcentrationLine, 0,
+						nbMoleculeColumn);
+				if (nbRow > 0) {
+					System.arraycopy(block.rates, r * nbMoleculeColumn, gasExchangeRatesLine, 0, nbMoleculeColumn);
+					System.arraycopy(block.denoised, r * (nbMoleculeColumn - 1), denoisedGasExchangeRatesLine, 0,
+							nbMoleculeColumn - 1);
+					System.arraycopy(block.o2Rates, r * 4, o2ExchangeRatesLine, 0, 4);
+					System.arraycopy(block.hydrogenase, r * 2, hydrogenaseActivityLine, 0, 2);
+				}
+				appendRow(newRawRows);
+			}
+		}
+	}
+
+	/**
+	 * Run the tasks 0..count-1 with the threads of the ForkJoinPool of the
+	 * calling thread (the common pool otherwise)
+	 */
+	private static void runInParallel(int count, IntConsumer task) {
+		List<RecursiveAction> actions = new ArrayList<RecursiveAction>();
+		for (int i = 0; i < count; i++) {
+			final int index = i;
+			actions.add(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					task.accept(index);
+				}
+			});
+		}
+		ForkJoinTask.invokeAll(actions);
+	}
+
+	/**
+	 * The same experiment computed with other parameters: the rows of the data
+	 * file already read (amperometricData, shared by both sessions) are the source
+	 * of every dataset of the new session, which are computed in parallel (see
+	 * addBlocks) by the calling thread, while the thread adding the rows keeps on
+	 * adding them to this session. This thread then calls catchUp on the new
+	 * session, and adds the next rows to it instead of this one.
+	 * <p>
+	 * Only the time of the rows is used here, the reference date is given by
+	 * catchUp.
+	 *
+	 * @param hideH2O:             true if H2O (18) isn't displayed
+	 * @param ci:                  true if Ci is calculated and displayed
+	 * @param pKa1Value:           pKa of the CO2/HCO3- equilibrium
+	 * @param pKa2Value:           pKa of the HCO3-/CO3-- equilibrium
+	 * @param normalizationFactor: every rate is divided by this factor
+	 */
+	ExperimentSession withParameters(boolean hideH2O, boolean ci, double pKa1Value, double pKa2Value,
+			double normalizationFactor) {
+		ExperimentSession session = new ExperimentSession(header, factor, mass, hideH2O, ci, pKa1Value, pKa2Value,
+				normalizationFactor, amperometricData);
+		/* only the datasets watched in this session are computed */
+		Set<Dataset> watched = active;
+		session.active = watched;
+		session.computed = Dataset.withInputs(watched);
+		/* the rows published when we start, catchUp adds the next ones */
+		ColumnStore rows = amperometricData.snapshot();
+		int nbColumn = rows.getColumnCount();
+		List<Block> blocks = new ArrayList<Block>();
+		for (int first = 0; first < rows.getRowCount(); first += ROWS_PER_BLOCK) {
+			blocks.add(session.new Block(Math.min(ROWS_PER_BLOCK, rows.getRowCount() - first)));
+		}
+		runInParallel(blocks.size(), index -> {
+			int first = index * ROWS_PER_BLOCK;
+			int last = Math.min(first + ROWS_PER_BLOCK, rows.getRowCount());
+			double[] values = new double[nbColumn];
+			for (int r = first; r < last; r++) {
+				for (int c = 0; c < nbColumn; c++) {
+					values[c] = rows.get(r, c);
+				}
+				blocks.get(index).addRow(values);
+			}
+		});
+		session.addBlocks(blocks, false);
+		return session;
+	}
+
+	/**
+	 * Add the rows derived from the rows added to amperometricData since
+	 * withParameters created this session (only called by the thread adding the
+	 * rows, before adding the next ones to this session)
+	 *
+	 * @param previous: the session this one was created from
+	 */
+	synchronized void catchUp(ExperimentSession previous) {
+		refDate = previous.refDate;
+		/* the datasets subscribed to since withParameters */
+		activate(previous.active);
+		int nbColumn = columnPlan.nbAmperometricColumn;
+		for (int r = nbRow; r < amperometricData.getRowCount(); r++) {
+			for (int c = 0; c < nbColumn; c++) {
+				amperometricLine[c] = amperometricData.get(r, c);
+			}
+			deriveRow(false);
+		}
+	}
+
+	/**
+	 * Compute the rows of datasets from now on, and the ones of the rows already
+	 * added from amperometricData. Only the datasets which were never activated
+	 * (and the inputs they need) are computed again, the others are kept as they
+	 * are. Called by the consumers of the datasets (charts, exports, getData)
+	 * from any thread.
+	 *
+	 * @param datasets: the datasets the consumer reads
+	 */
+	synchronized void activate(Collection<Dataset> datasets) {
+		EnumSet<Dataset> added = EnumSet.noneOf(Dataset.class);
+		for (Dataset dataset : datasets) {
+			if (!active.contains(dataset)) {
+				added.add(dataset);
+			}
+		}
+		if (added.isEmpty()) {
+			return;
+		}
+		Set<Dataset> needed = Dataset.withInputs(added);
+		int nbColumn = columnPlan.nbAmperometricColumn;
+		for (int r = 0; r < nbRow; r++) {
+			for (int c = 0; c < nbColumn; c++) {
+				amperometricLine[c] = amperometricData.get(r, c);
+			}
+			columnPlan.convert(amperometricLine, gasConcentrationLine);
+			if (r > 0) {
+				computeRates(previousConcentrationLine, gasConcentrationLine, gasExchangeRatesLine,
+						denoisedGasExchangeRatesLine, o2ExchangeRatesLine, hydrogenaseActivityLine, needed);
+			}
+			appendDerivedRow(added, r);
+			System.arraycopy(gasConcentrationLine, 0, previousConcentrationLine, 0, nbMoleculeColumn);
+		}
+		added.addAll(active);
+		computed = Dataset.withInputs(added);
+		active = Collections.unmodifiableSet(added);
+	}
+
+	/**
+	 * Same as activate(datasets)
+	 */
+	void activate(Dataset... datasets) {
+		activate(Arrays.asList(datasets));
+	}
+
+	/**
+	 * Activate datasets and take a snapshot of each one, all at the same row (no
+	 * row is added meanwhile)
+	 *
+	 * @param datasets: the datasets read
+	 */
+	synchronized Map<Dataset, ColumnStore> snapshot(Collection<Dataset> datasets) {
+		activate(datasets);
+		Map<Dataset, ColumnStore> snapshots = new EnumMap<Dataset, ColumnStore>(Dataset.class);
+		for (Dataset dataset : datasets) {
+			snapshots.put(dataset, getData(dataset).snapshot());
+		}
+		return snapshots;
+	}
+
+	/**
+	 * Datasets whose rows are computed (see activate)
+	 */
+	Set<Dataset> getActiveDatasets() {
+		return active;
+	}
+
+	/**
+	 * Date (epoch time in ms) of the first row, time reference of the experiment
+	 */
+	long getReferenceDate() {
+		return refDate;
+	}
+
+	/**
+	 * Set the date of the first row before adding rows whose time is already
+	 * computed (see Block.addRow(double[]))
+	 *
+	 * @param date: epoch time in ms
+	 * @throws IllegalStateException: if rows were already added
+	 */
+	void setReferenceDate(long date) {
+		if (nbRow != 0) {
+			throw new IllegalStateException("The reference date is the date of the first row");
+		}
+		refDate = date;
+	}
+
+	/**
+	 * Number of rows of the data file treated
+	 */
+	int getRowCount() {
+		return nbRow;
+	}
+
+	/**
+	 * True if the dataset can be calculated with the columns of this data file
+	 * and this factor file
+	 */
+	boolean isAvailable(Dataset dataset) {
+		switch (dataset) {
+		case DENOISED_GAS_EXCHANGE_RATES:
+		case DENOISED_CUMULATED_GAS_EXCHANGE:
+			return columnPlan.presenceMass;
+		case O2_EXCHANGE_RATES:
+		case O2_EXCHANGE:
+			return o2Exchange;
+		case HYDROGENASE_ACTIVITY:
+			return hydrogenaseActivity;
+		default:
+			return true;
+		}
+	}
+
+	/**
+	 * Rows of a dataset, which is activated (read them through a snapshot from an
+	 * other thread than the one adding the rows)
+	 */
+	ColumnStore getData(Dataset dataset) {
+		activate(dataset);
+		switch (dataset) {
+		case AMPEROMETRIC:
+			return amperometricData;
+		case GAS_CONCENTRATION:
+			return gasConcentrationData;
+		case GAS_EXCHANGE_RATES:
+			return gasExchangeRatesData;
+		case CUMULATED_GAS_EXCHANGE:
+			return cumulatedGasExchangeData;
+		case DENOISED_GAS_EXCHANGE_RATES:
+			return denoisedGasExchangeRatesData;
+		case DENOISED_CUMULATED_GAS_EXCHANGE:
+			return denoisedCumulatedGasExchangeData;
+		case O2_EXCHANGE_RATES:
+			return o2ExchangeRatesData;
+		case O2_EXCHANGE:
+			return o2ExchangeData;
+		default:
+			return hydrogenaseActivityData;
+		}
+	}
+
+	/**
+	 * Names of the columns of a dataset, including the time
+	 */
+	String[] getColumnNames(Dataset dataset) {
+		switch (dataset) {
+		case AMPEROMETRIC:
+			return columnPlan.amperometricColumnName;
+		case GAS_CONCENTRATION:
+		case CUMULATED_GAS_EXCHANGE:
+			return columnPlan.gasConcentrationColumnName;
+		case GAS_EXCHANGE_RATES:
+			return columnPlan.gasExchangeRatesColumnName;
+		case DENOISED_GAS_EXCHANGE_RATES:
+			return columnPlan.denoisedGasExchangeRatesColumnName;
+		case DENOISED_CUMULATED_GAS_EXCHANGE:
+			return columnPlan.denoisedCumulatedGasExchangeColumnName;
+		case O2_EXCHANGE_RATES:
+			return O2_EXCHANGE_RATES_COLUMN_NAME;
+		case O2_EXCHANGE:
+			return O2_EXCHANGE_COLUMN_NAME;
+		default:
+			return HYDROGENASE_ACTIVITY_COLUMN_NAME;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package software;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Writes a file next to its destination, then moves it in place once complete:
+ * a writing which fails or is stopped leaves the previous file as it was. Used
+ * by the export formats (see ExportFormat) and the binary copy of the data file
+ * (see SidecarCache), which only encode their content.
+ */
+final class ExportFile {
+
+	/**
+	 * Writes the content of a file
+	 */
+	interface Content {
+		/**
+		 * @param out: the file, empty
+		 * @return false to stop the writing: the file is then left as it was
+		 * @throws IOException: if the file can't be written
+		 */
+		boolean write(FileChannel out) throws IOException;
+	}
+
+	private ExportFile() {
+	}
+
+	/**
+	 * Write a file, overwriting it once the content is complete
+	 *
+	 * @param path:    path of the file
+	 * @param content: writes the content of the file
+	 * @return false if the writing was stopped (the file is left as it was)
+	 * @throws IOException: if the file can't be written
+	 */
+	static boolean write(String path, Content content) throws IOException {
+		Path target = Paths.get(path).toAbsolutePath();
+		Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				if (!content.write(out)) {
+					return false;
+				}
+			}
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Write the content of a buffer to the file, then clear the buffer
+	 */
+	static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+		((Buffer) buffer).flip();
+		writeFully(out, buffer);
+		((Buffer) buffer).clear();
+	}
+
+	/**
+	 * Write the remaining bytes of a buffer to the file
+	 */
+	static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+	}
+}
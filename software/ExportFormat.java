@@ -0,0 +1,164 @@
+package software;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * The formats a dataset can be saved in: an xlsx workbook (see ExcelExport),
+ * comma separated values (see CsvExport), binary columns of doubles (see
+ * ColumnarExport) or an Apache Arrow file (see ArrowExport), the three last
+ * ones being much faster to write and to read back from a script. The format of
+ * a file is given by the end of its name.
+ */
+enum ExportFormat {
+	XLSX("xlsx", "Excel workbook (.xls or .xlsx)"), CSV("csv", "Comma separated values (.csv)"),
+	COLUMNS("bin", "Binary columns of doubles (.bin)"), ARROW("arrow", "Apache Arrow IPC file (.arrow)");
+
+	/**
+	 * Follows the writing of a file (see ExportTask), from the threads writing it
+	 */
+	interface Progress {
+		/**
+		 * @param nbRowWritten: rows of the datasets written so far
+		 * @param nbRow:        rows of the datasets
+		 * @return false to stop writing: the file is then left as it was
+		 */
+		boolean rowsWritten(int nbRowWritten, int nbRow);
+	}
+
+	/* end of the name of the files, without the dot */
+	final String extension;
+	/* shown in the file chooser */
+	final String description;
+
+	ExportFormat(String extension, String description) {
+		this.extension = extension;
+		this.description = description;
+	}
+
+	/**
+	 * True if the name of the file ends with the extension of the format (the
+	 * .xls files are written as xlsx)
+	 */
+	boolean accept(String path) {
+		String name = path.toLowerCase();
+		return name.endsWith("." + extension) || this == XLSX && name.endsWith(".xls");
+	}
+
+	/**
+	 * Format of a file, from the end of its name
+	 *
+	 * @return null if no format has this extension
+	 */
+	static ExportFormat of(String path) {
+		for (ExportFormat format : values()) {
+			if (format.accept(path)) {
+				return format;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Format given on the command line (see Batch)
+	 *
+	 * @param name: the extension of the format
+	 * @throws IllegalArgumentException: if no format has this extension
+	 */
+	static ExportFormat named(String name) {
+		for (ExportFormat format : values()) {
+			if (format.extension.equalsIgnoreCase(name)) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("Unknown format " + name);
+	}
+
+	/**
+	 * Write a dataset to a file, overwriting it
+	 *
+	 * @param path:    path of the file
+	 * @param columns: title of the columns of the file
+	 * @param data:    data to save in the file (a snapshot if an other thread
+	 *                 adds rows)
+	 * @throws IOException: if the file can't be written
+	 */
+	void write(String path, String[] columns, ColumnStore data) throws IOException {
+		write(path, columns, data, (nbRowWritten, nbRow) -> true);
+	}
+
+	/**
+	 * Same as write(path, columns, data), telling the progress of the writing
+	 *
+	 * @param progress: called every few rows, can stop the writing
+	 * @return false if the writing was stopped (the file is left as it was)
+	 * @throws IOException: if the file can't be written
+	 */
+	boolean write(String path, String[] columns, ColumnStore data, Progress progress) throws IOException {
+		switch (this) {
+		case CSV:
+			return CsvExport.write(path, columns, data, progress);
+		case COLUMNS:
+			return ColumnarExport.write(path, columns, data, progress);
+		case ARROW:
+			return ArrowExport.write(path, columns, data, progress);
+		default:
+			return ExcelExport.write(path, columns, data, progress);
+		}
+	}
+
+	/**
+	 * Write several datasets: to the sheets of one workbook in xlsx, otherwise
+	 * each to its file (see path(path, name)), as the datasets don't have the
+	 * same rows
+	 *
+	 * @param path:     path of the file, ending with the extension of the format
+	 * @param tables:   the datasets
+	 * @param progress: called every few rows, can stop the writing
+	 * @return false if the writing was stopped (the files not written yet are
+	 *         left as they were)
+	 * @throws IOException: if a file can't be written
+	 */
+	boolean write(String path, List<ExcelExport.Table> tables, Progress progress) throws IOException {
+		if (this == XLSX) {
+			return ExcelExport.write(path, tables, progress);
+		}
+		/* the progress counts the rows of every dataset */
+		int nbRow = 0;
+		for (ExcelExport.Table table : tables) {
+			nbRow += table.data.getRowCount();
+		}
+		final int total = nbRow;
+		int written = 0;
+		for (ExcelExport.Table table : tables) {
+			final int before = written;
+			if (!write(path(path, table.name), table.columns, table.data,
+					(nbRowWritten, nbTableRow) -> progress.rowsWritten(before + nbRowWritten, total))) {
+				return false;
+			}
+			written += table.data.getRowCount();
+		}
+		return true;
+	}
+
+	/**
+	 * Path of the file of a dataset written with others:
+	 * (path without the extension)_(name).(extension)
+	 *
+	 * @param path: path chosen for the datasets, ending with the extension
+	 * @param name: name of the dataset
+	 */
+	String path(String path, String name) {
+		String base = accept(path) ? path.substring(0, path.lastIndexOf('.')) : path;
+		return base + "_" + name + "." + extension;
+	}
+}
@@ -0,0 +1,137 @@
+package software;
+
+import java.awt.Component;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Writes datasets to a file in a background thread (see ExportFormat),
+ * so the acquisition and the charts keep running during a long export. A
+ * ProgressMonitor shows the rows written after a short delay, and its Cancel
+ * button stops the writing before the file is replaced, at any step of the
+ * writing (the monitor is checked every CANCEL_CHECK ms). The datasets are
+ * snapshots taken when the export starts: the rows added meanwhile aren't
+ * written. Created and executed on the Event Dispatch Thread.
+ */
+final class ExportTask extends SwingWorker<Boolean, Void> implements ExportFormat.Progress {
+
+	/* period of the check of the Cancel button of the monitor (ms) */
+	private static final int CANCEL_CHECK = 200;
+
+	/* writes the file, telling the task its progress */
+	private interface Writing {
+		boolean write(ExportFormat.Progress progress) throws IOException;
+	}
+
+	private final Component parent;
+	private final String path;
+	private final Writing writing;
+	private final ProgressMonitor monitor;
+	/* cancels the task once the Cancel button of the monitor was pressed */
+	private final Timer cancelCheck;
+
+	/**
+	 * Constructor of ExportTask
+	 *
+	 * @param parent:  window the progress and the errors are shown in front of
+	 * @param path:    path of the file
+	 * @param format:  format of the file
+	 * @param columns: title of the columns of the file
+	 * @param data:    snapshot of the dataset
+	 */
+	ExportTask(Component parent, String path, ExportFormat format, String[] columns, ColumnStore data) {
+		this(parent, path, progress -> format.write(path, columns, data, progress));
+	}
+
+	/**
+	 * Constructor of ExportTask, for several datasets written to the sheets of an
+	 * xlsx file, or each to its file in the other formats
+	 *
+	 * @param parent: window the progress and the errors are shown in front of
+	 * @param path:   path of the file
+	 * @param format: format of the files
+	 * @param tables: gives the snapshots of the datasets, called by the
+	 *                background thread when it starts
+	 */
+	ExportTask(Component parent, String path, ExportFormat format, Supplier<List<ExcelExport.Table>> tables) {
+		this(parent, path, progress -> format.write(path, tables.get(), progress));
+	}
+
+	private ExportTask(Component parent, String path, Writing writing) {
+		this.parent = parent;
+		this.path = path;
+		this.writing = writing;
+		monitor = new ProgressMonitor(parent, "Saving " + new File(path).getName(), "", 0, 100);
+		/* progress is fired on the Event Dispatch Thread, where the monitor is used */
+		addPropertyChangeListener(event -> {
+			if ("progress".equals(event.getPropertyName())) {
+				monitor.setProgress(getProgress());
+				if (getProgress() == 99) {
+					monitor.setNote("Writing the file");
+				}
+			}
+		});
+		/*
+		 * the button is checked on the Event Dispatch Thread too, even while the
+		 * progress doesn't change (e.g. while the xlsx file itself is written)
+		 */
+		cancelCheck = new Timer(CANCEL_CHECK, event -> {
+			if (monitor.isCanceled()) {
+				cancel(false);
+			}
+		});
+		cancelCheck.start();
+	}
+
+	@Override
+	protected Boolean doInBackground() throws Exception {
+		return writing.write(this);
+	}
+
+	/**
+	 * Called by the export formats from the thread writing the file
+	 *
+	 * @return false once the task was cancelled
+	 */
+	public boolean rowsWritten(int nbRowWritten, int nbRow) {
+		/* the last percent is the writing of the file itself */
+		setProgress((int) (99L * nbRowWritten / Math.max(1, nbRow)));
+		return !isCancelled();
+	}
+
+	@Override
+	protected void done() {
+		cancelCheck.stop();
+		monitor.close();
+		try {
+			if (get()) {
+				Main.logger.info("Data Saved in " + path);
+			}
+		} catch (CancellationException e) {
+			Main.logger.info("Saving of " + path + " cancelled");
+		} catch (InterruptedException | ExecutionException e) {
+			Main.logger.warning("Error while saving data: " + e.getCause());
+			Window.infoBox(parent,
+					"There is an issue with your saving file: " + "\n"
+							+ "Please verify that your file isn't opened somewhere or used by an other program !",
+					"Saving");
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package software;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Reads the factor file (see README): one row per M/Z, with the name of the
+ * molecule and its calibration factors. Used by the Window and the batch mode.
+ */
+final class FactorFile {
+
+	private FactorFile() {
+	}
+
+	/**
+	 * Read a factor file
+	 *
+	 * @param address: address of the factor file
+	 * @return the 8 cells following the M/Z of each row, by M/Z (-M/Z for a
+	 *         second molecule with the same M/Z)
+	 * @throws IOException:           if the file can't be read
+	 * @throws NumberFormatException: if a M/Z isn't an integer
+	 */
+	static Map<Integer, String[]> read(String address) throws IOException {
+		Map<Integer, String[]> factor = new HashMap<>();
+		try (BufferedReader fichier = new BufferedReader(new FileReader(address))) {
+			String line;
+			String[] workingLine;
+			/* key is the first cell of each row, and represent an element (M/Z) */
+			int key;
+
+			/*
+			 * delete the first line of factor file (because only contains name of columns,
+			 * not important data)
+			 */
+			fichier.readLine();
+
+			/* get the data */
+			while ((line = fichier.readLine()) != null) {
+				/* correct line is data after a little treatment */
+				String[] correctLine = new String[8];
+				/*
+				 * transform each row into a list of elements, each cell is one element of the
+				 * list
+				 */
+				workingLine = line.replaceAll(",", ".").split(";");
+				/* get the key, which will be the key of factor map */
+				key = Integer.parseInt(workingLine[0]);
+				for (int i = 0; i < 8; i++) {
+					/* check if a value is entered in the corresponding cell of factor file */
+					if (workingLine.length > i + 1 && !workingLine[i + 1].isEmpty()) {
+						correctLine[i] = workingLine[i + 1];
+					}
+
+					else {
+						/* if nothing entered, just set it to 1 */
+						correctLine[i] = "1";
+					}
+
+				}
+				/*
+				 * If the key is already in the map (duplicate, two elements with same M/Z), add
+				 * the data to the map at key: -M/Z
+				 */
+				if (factor.containsKey(key)) {
+					factor.put(-key, correctLine);
+				} else {
+					factor.put(key, correctLine);
+				}
+			}
+		}
+		return factor;
+	}
+}
@@ -24,8 +24,8 @@ You should have received a copy of the GNU General Public License along with thi
  * Main class of our software
  */
 public class Main {
-	/* logger and fileHandler for the all software */
-	public static Logger logger;
+	/* logger and fileHandler for the all software (the batch mode only logs to the console) */
+	public static Logger logger = Logger.getLogger("MIMS_Analysis");
 	public static FileHandler fh;
 
 	/**
@@ -33,9 +33,6 @@ public class Main {
 	 */
 	public static void main(String[] args) {
 
-		/* logger of our program */
-		logger = Logger.getLogger("MIMS_Analysis");
-
 		try {
 
 			/*
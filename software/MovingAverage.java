@@ -0,0 +1,104 @@
+package software;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Centered moving average of a dataset (the rates), computed incrementally:
+ * the sum of the 2 * step + 1 rows of the window is kept for each column, each
+ * new row is added to it and the row leaving the window is subtracted, so a
+ * row costs O(columns) whatever the step. The sums are compensated (Kahan), so
+ * the rounding errors of the additions and subtractions don't drift over a
+ * long experiment.
+ *
+ * Row j of the average is centered on row j + step of the source, with its
+ * time: the first and last step rows of the source have no average.
+ */
+final class MovingAverage {
+
+	private final int step;
+	private final int windowSize;
+	private final ColumnStore data;
+	/* running sum of the window and its compensation, for each column (0 unused) */
+	private final double[] sum;
+	private final double[] compensation;
+	/* averaged row (reused, the dataset copies the values) */
+	private final double[] line;
+	/* number of source rows already added to the sums */
+	private int nbSourceRow = 0;
+
+	/**
+	 * @param nbColumn: number of columns of the source, including the time
+	 * @param step:     number of rows on each side of the center of the window
+	 */
+	MovingAverage(int nbColumn, int step) {
+		this.step = step;
+		windowSize = 2 * step + 1;
+		data = new ColumnStore(nbColumn);
+		sum = new double[nbColumn];
+		compensation = new double[nbColumn];
+		line = new double[nbColumn];
+	}
+
+	/**
+	 * Average the rows of the source which arrived since the last update
+	 *
+	 * @param source: rates to average (a snapshot if an other thread adds the
+	 *                rows), whose first rows are the rows given before
+	 * @return the number of rows added to the average
+	 */
+	int update(ColumnStore source) {
+		int before = data.getRowCount();
+		int nbColumn = sum.length;
+		for (int r = nbSourceRow; r < source.getRowCount(); r++) {
+			for (int i = 1; i < nbColumn; i++) {
+				add(i, source.get(r, i));
+				if (r >= windowSize) {
+					add(i, -source.get(r - windowSize, i));
+				}
+			}
+			/* the window ending on row r is complete: add the average of its center */
+			if (r >= windowSize - 1) {
+				int center = r - step;
+				line[0] = source.get(center, 0);
+				for (int i = 1; i < nbColumn; i++) {
+					line[i] = sum[i] / windowSize;
+				}
+				data.addRow(line);
+			}
+		}
+		nbSourceRow = source.getRowCount();
+		return data.getRowCount() - before;
+	}
+
+	/**
+	 * Compensated addition of a value to the sum of a column
+	 */
+	private void add(int column, double value) {
+		double y = value - compensation[column];
+		double t = sum[column] + y;
+		compensation[column] = (t - sum[column]) - y;
+		sum[column] = t;
+	}
+
+	/**
+	 * The averaged rows (owned by the thread which calls update, others must take
+	 * a snapshot)
+	 */
+	ColumnStore getData() {
+		return data;
+	}
+
+	/**
+	 * Number of rows on each side of the center of the window
+	 */
+	int getStep() {
+		return step;
+	}
+}
@@ -0,0 +1,262 @@
+package software;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Binary copy of the parsed rows of a data file, written next to it
+ * ((data file).columns), so reopening an experiment reads its columns instead
+ * of parsing its text again. The file holds:
+ * <ul>
+ * <li>a header: version, length of the data file covered by the rows, size and
+ * modification time of the data file when written, checksum of the last bytes
+ * covered, date of the first row, header line of the data file, number of
+ * columns and of rows</li>
+ * <li>the amperometric columns (time in min from the first row, then each
+ * M/Z), one after the other, as little-endian doubles</li>
+ * </ul>
+ * The copy is used if the data file has the same size and modification time,
+ * or if it only grew (the MIMS appended rows) and the checksum of the covered
+ * end still matches: the appended rows are then parsed (see BulkLoader) and
+ * the copy rewritten. Any other copy is ignored.
+ */
+final class SidecarCache {
+
+	private static final long MAGIC = 0x4D494D53434F4C53L; // "MIMSCOLS"
+	private static final int VERSION = 1;
+
+	/* checksum of the last bytes covered, to check the data file only grew */
+	private static final int CHECKED_LENGTH = 4096;
+
+	/* number of rows given to each thread when the columns are read */
+	private static final int ROWS_PER_BLOCK = 64 * 1024;
+
+	private SidecarCache() {
+	}
+
+	/**
+	 * Address of the copy of a data file
+	 */
+	static String cacheAddress(String dataAddress) {
+		return dataAddress + ".columns";
+	}
+
+	/**
+	 * Add to the session every complete row of the data file: from the copy if it
+	 * is still valid, then by parsing the rest of the file, and update the copy if
+	 * rows were parsed. A copy which can't be read or written is only logged.
+	 *
+	 * @param session:    the experiment, whose header was read
+	 * @param address:    address of the data file
+	 * @param headerLine: first line of the data file
+	 * @param start:      position in the file of the first row
+	 * @return the position in the file just after the last added row
+	 * @throws IOException:           if the data file can't be read
+	 * @throws ParseException:        if the date of a row isn't a date
+	 * @throws NumberFormatException: if a value is missing or isn't a number
+	 */
+	static long load(ExperimentSession session, String address, String headerLine, long start)
+			throws IOException, ParseException {
+		long position = start;
+		try {
+			position = read(session, address, headerLine, start);
+		} catch (IOException | RuntimeException e) {
+			Main.logger.warning("Can't read " + cacheAddress(address) + ": " + e.toString());
+		}
+		long cached = position;
+		position = BulkLoader.load(session, address, position);
+		if (position > cached) {
+			try {
+				write(session, address, headerLine, position);
+			} catch (IOException e) {
+				Main.logger.warning("Can't write " + cacheAddress(address) + ": " + e.toString());
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Add the rows of the copy of the data file to the session, if the copy is
+	 * valid (nothing is added otherwise)
+	 *
+	 * @return the position in the data file after the rows of the copy (start if
+	 *         no row was added)
+	 */
+	static long read(ExperimentSession session, String address, String headerLine, long start) throws IOException {
+		Path cachePath = Paths.get(cacheAddress(address));
+		Path dataPath = Paths.get(address);
+		if (!Files.isRegularFile(cachePath)) {
+			return start;
+		}
+		try (FileChannel cache = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate((int) Math.min(cache.size(), 64 * 1024))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			readFully(cache, header, 0);
+			((Buffer) header).flip();
+			if (header.remaining() < 60 || header.getLong() != MAGIC || header.getInt() != VERSION) {
+				return start;
+			}
+			long covered = header.getLong();
+			long sourceSize = header.getLong();
+			long sourceModified = header.getLong();
+			long checksum = header.getLong();
+			long referenceDate = header.getLong();
+			byte[] line = new byte[header.getInt()];
+			if (line.length > header.remaining() - 8) {
+				return start;
+			}
+			header.get(line);
+			int nbColumn = header.getInt();
+			int nbRow = header.getInt();
+			long dataStart = align(header.position());
+
+			/* the header of the experiment, and the data file up to the covered length */
+			long size = Files.size(dataPath);
+			if (!headerLine.equals(new String(line, StandardCharsets.ISO_8859_1))
+					|| nbColumn != session.columnPlan.nbAmperometricColumn || session.getRowCount() != 0
+					|| covered <= start || covered > size || cache.size() < dataStart + 8L * nbColumn * nbRow
+					|| 8L * nbColumn * nbRow > Integer.MAX_VALUE) {
+				return start;
+			}
+			boolean unchanged = size == sourceSize
+					&& Files.getLastModifiedTime(dataPath).toMillis() == sourceModified;
+			if (!unchanged && checksum(dataPath, covered) != checksum) {
+				return start;
+			}
+
+			/*
+			 * read, not mapped: the copy is replaced just after when the data file grew,
+			 * which fails on Windows while the file is mapped (the mapping is only
+			 * released by the garbage collector)
+			 */
+			ByteBuffer bytes = ByteBuffer.allocate(8 * nbColumn * nbRow).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(cache, bytes, dataStart);
+			((Buffer) bytes).flip();
+			DoubleBuffer columns = bytes.asDoubleBuffer();
+			session.setReferenceDate(referenceDate);
+			session.addBlocks(blocks(session, columns, nbColumn, nbRow));
+			return covered;
+		}
+	}
+
+	/**
+	 * Copy the rows of the session in blocks, a thread per block
+	 */
+	private static List<ExperimentSession.Block> blocks(ExperimentSession session, DoubleBuffer columns,
+			int nbColumn, int nbRow) {
+		List<ExperimentSession.Block> blocks = new ArrayList<ExperimentSession.Block>();
+		for (int first = 0; first < nbRow; first += ROWS_PER_BLOCK) {
+			blocks.add(session.new Block(Math.min(ROWS_PER_BLOCK, nbRow - first)));
+		}
+		IntStream.range(0, blocks.size()).parallel().forEach(index -> {
+			/* each thread reads its own view of the columns */
+			DoubleBuffer view = columns.duplicate();
+			ExperimentSession.Block block = blocks.get(index);
+			int first = index * ROWS_PER_BLOCK;
+			int last = Math.min(first + ROWS_PER_BLOCK, nbRow);
+			double[] values = new double[nbColumn];
+			for (int r = first; r < last; r++) {
+				for (int c = 0; c < nbColumn; c++) {
+					values[c] = view.get(c * nbRow + r);
+				}
+				block.addRow(values);
+			}
+		});
+		return blocks;
+	}
+
+	/**
+	 * Write the copy of the rows of the session (replacing the previous one once
+	 * complete)
+	 *
+	 * @param session:    the experiment, whose rows cover the data file up to
+	 *                    covered
+	 * @param address:    address of the data file
+	 * @param headerLine: first line of the data file
+	 * @param covered:    position in the data file after the last row
+	 * @throws IOException: if the copy can't be written
+	 */
+	static void write(ExperimentSession session, String address, String headerLine, long covered)
+			throws IOException {
+		Path dataPath = Paths.get(address);
+		ColumnStore rows = session.amperometricData.snapshot();
+		int nbColumn = rows.getColumnCount();
+		int nbRow = rows.getRowCount();
+		byte[] line = headerLine.getBytes(StandardCharsets.ISO_8859_1);
+
+		ByteBuffer header = ByteBuffer.allocate((int) align(60 + line.length + 8)).order(ByteOrder.LITTLE_ENDIAN);
+		header.putLong(MAGIC).putInt(VERSION).putLong(covered).putLong(Files.size(dataPath))
+				.putLong(Files.getLastModifiedTime(dataPath).toMillis()).putLong(checksum(dataPath, covered))
+				.putLong(session.getReferenceDate()).putInt(line.length).put(line).putInt(nbColumn).putInt(nbRow);
+		((Buffer) header).position(header.capacity());
+		((Buffer) header).flip();
+
+		ExportFile.write(cacheAddress(address), out -> {
+			ExportFile.writeFully(out, header);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+			for (int c = 0; c < nbColumn; c++) {
+				for (int r = 0; r < nbRow; r++) {
+					if (!buffer.hasRemaining()) {
+						ExportFile.flush(out, buffer);
+					}
+					buffer.putDouble(rows.get(r, c));
+				}
+			}
+			ExportFile.flush(out, buffer);
+			return true;
+		});
+	}
+
+	/**
+	 * Checksum of the last bytes of the data file before a position
+	 */
+	private static long checksum(Path dataPath, long covered) throws IOException {
+		try (FileChannel data = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+			int length = (int) Math.min(CHECKED_LENGTH, covered);
+			ByteBuffer bytes = ByteBuffer.allocate(length);
+			readFully(data, bytes, covered - length);
+			CRC32 crc = new CRC32();
+			crc.update(bytes.array(), 0, bytes.position());
+			return crc.getValue();
+		}
+	}
+
+	/* the columns start on a multiple of 8 */
+	private static long align(long position) {
+		return (position + 7) & ~7L;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long at = position;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, at);
+			if (read < 0) {
+				break;
+			}
+			at += read;
+		}
+	}
+}
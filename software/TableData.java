@@ -93,9 +93,13 @@ public class TableData extends AbstractTableModel {
 	 * discarding it and building a brand new JTable/TableData each time new
 	 * values are available (min/max/value/average all change together, at the
 	 * same row count, so the existing TableRow objects can just be mutated).
+	 * Only a new heading (new value or bounds entered by the user) changes the
+	 * structure, which makes the JTable rebuild its columns; new values only
+	 * repaint the rows.
 	 */
 	public void updateData(List<String> heading, List<Double> min, List<Double> max, List<Double> value,
 			List<Double> average) {
+		boolean newHeading = !heading.equals(this.heading);
 		this.heading = heading;
 		for (int i = 0; i < table.size(); i++) {
 			TableRow row = table.get(i);
@@ -104,6 +108,10 @@ public class TableData extends AbstractTableModel {
 			row.setValue(value.get(i));
 			row.setAverage(average.get(i));
 		}
-		fireTableStructureChanged();
+		if (newHeading) {
+			fireTableStructureChanged();
+		} else {
+			fireTableRowsUpdated(0, table.size() - 1);
+		}
 	}
 }
\ No newline at end of file
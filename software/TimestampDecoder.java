@@ -0,0 +1,158 @@
+package software;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+Copyright (C) 2019-F.Burlacot
+
+This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with this program. If not, see: https://www.gnu.org/licenses/.**/
+
+/**
+ * Decodes the "yyyy/MM/dd HH:mm:ss.S" timestamps of the data file straight
+ * from the characters of the row. The epoch time of the current day's
+ * midnight is cached, so that a row of the same day only needs its
+ * time-of-day fields to be read. Returns the same instant as
+ * SimpleDateFormat("yyyy/MM/dd HH:mm:ss.S").parse(...) in the same time zone,
+ * including its reading of the digits after the dot as a number of
+ * milliseconds ("55.74" is 55 s and 74 ms).
+ *
+ * Unlike SimpleDateFormat, one instance can be shared between threads.
+ */
+final class TimestampDecoder {
+	static final String PATTERN = "yyyy/MM/dd HH:mm:ss.S";
+
+	/* fixed position of the separators in "yyyy/MM/dd HH:mm:ss.S" */
+	private static final int LAYOUT_LENGTH = 21;
+
+	private final TimeZone zone;
+
+	/* last decoded day, replaced as a whole so concurrent readers see a consistent one */
+	private volatile Day lastDay;
+
+	private static final class Day {
+		final int year;
+		final int month;
+		final int dayOfMonth;
+		final long midnight;
+		/* daylight saving change during this day: the time of day isn't a plain offset from midnight */
+		final boolean offsetChange;
+
+		Day(int year, int month, int dayOfMonth, long midnight, boolean offsetChange) {
+			this.year = year;
+			this.month = month;
+			this.dayOfMonth = dayOfMonth;
+			this.midnight = midnight;
+			this.offsetChange = offsetChange;
+		}
+	}
+
+	/**
+	 * Decoder of timestamps written in the default time zone (as the MIMS does)
+	 */
+	TimestampDecoder() {
+		this(TimeZone.getDefault());
+	}
+
+	/**
+	 * Constructor of TimestampDecoder
+	 *
+	 * @param zone: time zone in which the timestamps are written
+	 */
+	TimestampDecoder(TimeZone zone) {
+		this.zone = (TimeZone) zone.clone();
+	}
+
+	/**
+	 * Convenience version of parseMillis for a whole String
+	 */
+	long parseMillis(String timestamp) throws ParseException {
+		return parseMillis(timestamp.toCharArray(), 0, timestamp.length());
+	}
+
+	/**
+	 * Epoch time (in ms) of the timestamp written in chars[start..end)
+	 *
+	 * @throws ParseException: if the characters aren't a timestamp
+	 */
+	long parseMillis(char[] chars, int start, int end) throws ParseException {
+		if (end - start < LAYOUT_LENGTH || chars[start + 4] != '/' || chars[start + 7] != '/'
+				|| chars[start + 10] != ' ' || chars[start + 13] != ':' || chars[start + 16] != ':'
+				|| chars[start + 19] != '.') {
+			return slowParse(chars, start, end);
+		}
+		int year = digits(chars, start, 4);
+		int month = digits(chars, start + 5, 2);
+		int dayOfMonth = digits(chars, start + 8, 2);
+		int hour = digits(chars, start + 11, 2);
+		int minute = digits(chars, start + 14, 2);
+		int second = digits(chars, start + 17, 2);
+		/* "S": every digit after the dot, read as a number of milliseconds */
+		int millisecond = 0;
+		int index = start + 20;
+		while (index < end && chars[index] >= '0' && chars[index] <= '9' && millisecond < 100_000_000) {
+			millisecond = millisecond * 10 + (chars[index] - '0');
+			index++;
+		}
+		if ((year | month | dayOfMonth | hour | minute | second) < 0 || index == start + 20) {
+			return slowParse(chars, start, end);
+		}
+
+		Day day = lastDay;
+		if (day == null || day.year != year || day.month != month || day.dayOfMonth != dayOfMonth) {
+			day = newDay(year, month, dayOfMonth);
+			lastDay = day;
+		}
+		if (day.offsetChange) {
+			/* rare: let the calendar place the wall clock time around the change */
+			GregorianCalendar calendar = new GregorianCalendar(zone);
+			calendar.clear();
+			calendar.set(year, month - 1, dayOfMonth, hour, minute, second);
+			return calendar.getTimeInMillis() + millisecond;
+		}
+		return day.midnight + hour * 3_600_000L + minute * 60_000L + second * 1_000L + millisecond;
+	}
+
+	private Day newDay(int year, int month, int dayOfMonth) {
+		GregorianCalendar calendar = new GregorianCalendar(zone);
+		calendar.clear();
+		calendar.set(year, month - 1, dayOfMonth);
+		long midnight = calendar.getTimeInMillis();
+		calendar.add(GregorianCalendar.DAY_OF_MONTH, 1);
+		long nextMidnight = calendar.getTimeInMillis();
+		boolean offsetChange = zone.getOffset(midnight) != zone.getOffset(nextMidnight - 1)
+				|| nextMidnight - midnight != 86_400_000L;
+		return new Day(year, month, dayOfMonth, midnight, offsetChange);
+	}
+
+	/**
+	 * Value of the count decimal digits at chars[from], -1 if one isn't a digit
+	 */
+	private static int digits(char[] chars, int from, int count) {
+		int value = 0;
+		for (int i = from; i < from + count; i++) {
+			char c = chars[i];
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Timestamps that don't follow the fixed layout (single digit fields for
+	 * example): decoded by a SimpleDateFormat of this call only
+	 */
+	private long slowParse(char[] chars, int start, int end) throws ParseException {
+		SimpleDateFormat format = new SimpleDateFormat(PATTERN);
+		format.setTimeZone(zone);
+		return format.parse(new String(chars, start, end - start)).getTime();
+	}
+}
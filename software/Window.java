@@ -1,30 +1,38 @@
 package software;
 
 import javax.swing.*;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import java.awt.Component;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.event.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 import com.formdev.flatlaf.FlatDarkLaf;
 import com.formdev.flatlaf.FlatLightLaf;
@@ -108,30 +116,37 @@ public class Window extends JFrame {
 		Settings.save(settings);
 	}
 
-	/* Each List<Double[]> contains the data of each corresponding dataset */
-	private List<Double[]> amperometricData;
-	private List<Double[]> gasConcentrationData;
-	private List<Double[]> gasExchangeRatesData;
-	private List<Double[]> cumulatedGasExchangeData;
-	private List<Double[]> denoisedGasExchangeRatesData;
-	private List<Double[]> denoisedCumulatedGasExchangeData;
-	private List<Double[]> o2ExchangeRatesData;
-	private List<Double[]> o2ExchangeData;
-	private List<Double[]> gasExchangeRateFunctionConcentrationData;
-	private List<Double[]> hydrogenaseActivityData;
+	/*
+	 * Each ColumnStore contains the data of each corresponding dataset (the
+	 * datasets with the time as abscissa share the time column of amperometricData)
+	 */
+	private volatile ColumnStore amperometricData;
+	private volatile ColumnStore gasConcentrationData;
+	private volatile ColumnStore gasExchangeRatesData;
+	private volatile ColumnStore cumulatedGasExchangeData;
+	private volatile ColumnStore denoisedGasExchangeRatesData;
+	private volatile ColumnStore denoisedCumulatedGasExchangeData;
+	private volatile ColumnStore o2ExchangeRatesData;
+	private volatile ColumnStore o2ExchangeData;
+	private volatile ColumnStore gasExchangeRateFunctionConcentrationData;
+	private volatile ColumnStore hydrogenaseActivityData;
 
 	/*
-	 * gasConcentrationCorrection is used to obtain gasConcentrationData. Each row
-	 * contains the factor C_max/((A_max-A_0)) of the corresponding molecule, for
-	 * the formula C(t)=A(t)×C_max/((A_max-A_0))
+	 * experiment of the data file (null until its header is read), and the same
+	 * experiment computed with new parameters, waiting to replace it
 	 */
-	private List<Double> gasConcentrationCorrection;
+	private volatile ExperimentSession session;
+	private final AtomicReference<ExperimentSession> nextSession = new AtomicReference<ExperimentSession>();
+	private final AtomicInteger parametersVersion = new AtomicInteger();
+	/* datasets of the open charts, computed in every session (see watch) */
+	private final Set<ExperimentSession.Dataset> watched = EnumSet.noneOf(ExperimentSession.Dataset.class);
 
 	/*
-	 * gasConcentrationConcumption contain the factor k, used to obtain
-	 * gasExchangeRatesData (v(t)=(delta(C(t)))/delta(t)-k×C(t))
+	 * list of (M/Z) of the data file compiled against the factor file: role of
+	 * each column, index in gasConcentration, factors C_max/((A_max-A_0)) (for
+	 * C(t)=A(t)×C_max/((A_max-A_0))) and k (for v(t)=(delta(C(t)))/delta(t)-k×C(t))
 	 */
-	private List<Double> gasConcentrationConsumption;
+	private ColumnPlan columnPlan;
 
 	/*
 	 * Each String[] contains the names of each curves to display of the
@@ -142,10 +157,10 @@ public class Window extends JFrame {
 	private String[] gasExchangeRatesColumnName;
 	private String[] denoisedGasExchangeRatesColumnName;
 	private String[] denoisedCumulatedGasExchangeColumnName;
-	private String[] o2ExchangeRatesColumnName = new String[4];
-	private String[] o2ExchangeColumnName = new String[4];
+	private String[] o2ExchangeRatesColumnName;
+	private String[] o2ExchangeColumnName;
 	private String[] gasExchangeRateFunctionConcentrationColumnName;
-	private String[] hydrogenaseActivityColumnName = new String[2];
+	private String[] hydrogenaseActivityColumnName;
 
 	/*
 	 * working to false terminate each running thread (openData() thread and
@@ -156,18 +171,8 @@ public class Window extends JFrame {
 	 * pause to true paused the treatment of data, and so paused the curves panels
 	 */
 	private boolean pause = false;
-
-	/* new#####Data warn corresponding thread to add data to corresponding chart */
-	private boolean newAmperometricData = false;
-	private boolean newGasConcentrationData = false;
-	private boolean newGasExchangeRatesData = false;
-	private boolean newCumulatedGasExchangeData = false;
-	private boolean newDenoisedGasExchangeRatesData = false;
-	private boolean newDenoisedCumulatedGasExchangeData = false;
-	private boolean newO2ExchangeRatesData = false;
-	private boolean newO2ExchangeData = false;
-	private boolean newGasExchangeRateFunctionConcentrationData = false;
-	private boolean newHydrogenaseActivityData = false;
+	/* the thread reading the data file waits on it while paused (see wakeReader) */
+	private final Object pauseMonitor = new Object();
 
 	/* button in the principal panel, used to display corresponding Curve */
 	private JButton amperometricCurve;
@@ -200,13 +205,13 @@ public class Window extends JFrame {
 	 */
 	private List<Thread> threads = new ArrayList<Thread>();
 
+	/* refreshes the open charts when new rows arrived, at most chartRefreshRate times per second */
+	private ChartRefreshScheduler refreshScheduler;
+
 	/*
-	 * the four threads of corresponding curve, that needed to be "restart" if value
-	 * of step or molecule change in the fields and drop down menus
+	 * the thread of the rate = f(concentration) curve, that needed to be "restart"
+	 * if the molecules change in the drop down menus
 	 */
-	private Thread exchangeThread = null;
-	private Thread denoisedThread = null;
-	private Thread oxygenThread = null;
 	private Thread functionThread = null;
 
 	/*
@@ -238,10 +243,13 @@ public class Window extends JFrame {
 	 */
 	private JPanel subPanel5;
 
-	/* threshold(step) of corresponding movingAverage */
-	private int thresholdGasExchangeRatesAverage = 10;
-	private int thresholdDenoisedGasExchangeRates = 10;
-	private int thresholdO2ExchangeAverage = 10;
+	/*
+	 * threshold(step) of corresponding movingAverage (changed by the JSpinners while
+	 * the chart is open, read by its thread)
+	 */
+	private volatile int thresholdGasExchangeRatesAverage = 10;
+	private volatile int thresholdDenoisedGasExchangeRates = 10;
+	private volatile int thresholdO2ExchangeAverage = 10;
 
 	/*
 	 * DropDown list to get the two molecules to display V(molecule)=f(c(molecule2))
@@ -280,9 +288,6 @@ public class Window extends JFrame {
 	/* persisted user preferences (normalization factor, pKa, display options, theme) */
 	private Properties settings;
 
-	/* index of last row received in our csv and added to amperometricData */
-	private int nbRow = 0;
-
 	/* abstract action in JMenBar, which open and load data file */
 	private OpenData openData;
 
@@ -331,6 +336,7 @@ public class Window extends JFrame {
 		pKa2Value = Double.parseDouble(settings.getProperty("pKa2", "10.3"));
 		h2oT = Boolean.parseBoolean(settings.getProperty("displayH2O", "true"));
 		ciT = Boolean.parseBoolean(settings.getProperty("displayCi", "true"));
+		refreshScheduler = new ChartRefreshScheduler(Integer.parseInt(settings.getProperty("chartRefreshRate", "10")));
 
 		/* define layout */
 		setLayout(new BorderLayout());
@@ -341,6 +347,7 @@ public class Window extends JFrame {
 		/* Create some new actions, used in the JMenus as button */
 		openData = new OpenData("Open Data");
 		OpenFactor openFactor = new OpenFactor("Open Factor");
+		ExportAll exportAll = new ExportAll("Export All");
 		NormalizationFactor normalizationFactor = new NormalizationFactor("Normalization Factor");
 		PkaConstants pkaConstants = new PkaConstants("pKa Constants (Ci)");
 		DisplayParameter DisplayParameter = new DisplayParameter("Molecule to Display");
@@ -359,6 +366,7 @@ public class Window extends JFrame {
 		/* add the actions to the JMenu 'File' */
 		file.add(openFactor);
 		file.add(openData);
+		file.add(exportAll);
 
 		/* disabled openData until factor file is loaded */
 		openData.setEnabled(false);
@@ -411,21 +419,12 @@ public class Window extends JFrame {
 		add(toolBar, BorderLayout.NORTH);
 
 		/*
-		 * create column name for o2ExchangeRates, o2Exchange and hydrogenaseActivity
-		 * (the names are final and don't depend on the data)
+		 * column name for o2ExchangeRates, o2Exchange and hydrogenaseActivity (the
+		 * names are final and don't depend on the data)
 		 */
-		o2ExchangeRatesColumnName[0] = "Time (min)";
-		o2ExchangeRatesColumnName[1] = "Uo (µM / min)";
-		o2ExchangeRatesColumnName[2] = "Eo (µM / min)";
-		o2ExchangeRatesColumnName[3] = "Net (µM / min)";
-
-		o2ExchangeColumnName[0] = "Time (min)";
-		o2ExchangeColumnName[1] = "Uo (µM)";
-		o2ExchangeColumnName[2] = "Eo (µM)";
-		o2ExchangeColumnName[3] = "Net (µM)";
-
-		hydrogenaseActivityColumnName[0] = "Time (min)";
-		hydrogenaseActivityColumnName[1] = "Hydrogenase Activity  (µM / min)";
+		o2ExchangeRatesColumnName = ExperimentSession.O2_EXCHANGE_RATES_COLUMN_NAME;
+		o2ExchangeColumnName = ExperimentSession.O2_EXCHANGE_COLUMN_NAME;
+		hydrogenaseActivityColumnName = ExperimentSession.HYDROGENASE_ACTIVITY_COLUMN_NAME;
 
 		/*
 		 * get the last paths of loading factor, loading CSV and saving XLSX (if one
@@ -546,6 +545,12 @@ public class Window extends JFrame {
 				.addActionListener(new DisplayGasExchangeRateFunctionConcentrationCurve());
 		hydrogenaseActivityCurve.addActionListener(new DisplayHydrogenaseActivityCurve());
 
+		/* a new step is applied to the open chart of the moving average */
+		MovingAverageStepChange stepChange = new MovingAverageStepChange();
+		movingGasExchangeRatesAverage.addChangeListener(stepChange);
+		movingDenoisedGasExchangeRatesAverage.addChangeListener(stepChange);
+		movingO2ExchangeAverage.addChangeListener(stepChange);
+
 		/*
 		 * define a characteristic grid layout, with borders, used in each element of
 		 * the principal panel, to contain two buttons (or one button and one subPanel)
@@ -740,6 +745,16 @@ public class Window extends JFrame {
 		}
 	}
 
+	/**
+	 * Wake the thread reading the data file if it is paused, so it sees at once
+	 * play, the end of the reading or the datasets computed with other parameters
+	 */
+	private void wakeReader() {
+		synchronized (pauseMonitor) {
+			pauseMonitor.notifyAll();
+		}
+	}
+
 	/**
 	 * Restart the treatment of data, action in the JMenuBar of each frame
 	 */
@@ -752,6 +767,7 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			pause = false;
+			wakeReader();
 			Main.logger.info("Back to Play");
 		}
 	}
@@ -811,10 +827,8 @@ public class Window extends JFrame {
 				settings.setProperty("normalizationFactor", String.valueOf(normalizationFactorValue));
 				Settings.save(settings);
 
-				/* if factor file already opened, relaunch the process and reinitialize data */
-				if (dataFilePath != null) {
-					getData(dataFilePath);
-				}
+				/* compute the datasets again from the rows already read */
+				computeDatasetsAgain();
 			}
 
 		}
@@ -895,10 +909,8 @@ public class Window extends JFrame {
 				settings.setProperty("pKa2", String.valueOf(pKa2Value));
 				Settings.save(settings);
 
-				/* if factor file already opened, relaunch the process and reinitialize data */
-				if (dataFilePath != null) {
-					getData(dataFilePath);
-				}
+				/* compute the datasets again from the rows already read */
+				computeDatasetsAgain();
 			}
 
 		}
@@ -931,10 +943,8 @@ public class Window extends JFrame {
 					settings.setProperty("displayH2O", String.valueOf(h2oT));
 					Settings.save(settings);
 
-					/* if factor file already opened, relaunch the process and reinitialize data */
-					if (dataFilePath != null) {
-						getData(dataFilePath);
-					}
+					/* compute the datasets again from the rows already read */
+					computeDatasetsAgain();
 				}
 
 			}
@@ -1001,6 +1011,8 @@ public class Window extends JFrame {
 
 				/* stop every thread in case we load factors for the second time (or more) */
 				working = false;
+				wakeReader();
+				refreshScheduler.clear();
 
 				/*
 				 * Hide every button and subPanel until data file is opened (in next function)
@@ -1138,52 +1150,7 @@ public class Window extends JFrame {
 						}
 						/* read the file and get the data */
 						try {
-							BufferedReader fichier = new BufferedReader(new FileReader(workingAddress));
-							String line;
-							String[] workingLine;
-							/* key is the first cell of each row, and represent an element (M/Z) */
-							int key;
-
-							/*
-							 * delete the first line of factor file (because only contains name of columns,
-							 * not important data)
-							 */
-							fichier.readLine();
-
-							/* get the data */
-							while ((line = fichier.readLine()) != null) {
-								/* correct line is data after a little treatment */
-								String[] correctLine = new String[8];
-								/*
-								 * transform each row into a list of elements, each cell is one element of the
-								 * list
-								 */
-								workingLine = line.replaceAll(",", ".").split(";");
-								/* get the key, which will be the key of factor map */
-								key = Integer.parseInt(workingLine[0]);
-								for (int i = 0; i < 8; i++) {
-									/* check if a value is entered in the corresponding cell of factor file */
-									if (workingLine.length > i + 1 && workingLine[i + 1] != "") {
-										correctLine[i] = workingLine[i + 1];
-									}
-
-									else {
-										/* if nothing entered, just set it to 1 */
-										correctLine[i] = "1";
-									}
-
-								}
-								/*
-								 * If the key is already in the map (duplicate, two elements with same M/Z), add
-								 * the data to the map at key: -M/Z
-								 */
-								if (factor.containsKey(key)) {
-									factor.put(-key, correctLine);
-								} else {
-									factor.put(key, correctLine);
-								}
-							}
-							fichier.close();
+							factor = FactorFile.read(workingAddress);
 
 							/* enabled button to load data */
 							openData.setEnabled(true);
@@ -1272,11 +1239,11 @@ public class Window extends JFrame {
 	 * Fast, non-regex equivalent of
 	 * line.replaceFirst(";", "").replaceAll(",", ".").split(";"): drops the
 	 * leading "$Flags$" column, swaps decimal commas for dots, and splits on
-	 * ";". Used in the real-time data ingestion loop (called once per incoming
-	 * row for the whole duration of an experiment) to avoid recompiling a regex
-	 * Pattern on every call.
+	 * ";". Used for the header line of the data file; the data rows themselves
+	 * go through DataLineParser, which gives the same values without creating
+	 * any String.
 	 */
-	private static String[] parseDataLine(String line) {
+	static String[] parseDataLine(String line) {
 		int firstSemicolon = line.indexOf(';');
 		String withoutFlags = firstSemicolon >= 0
 				? line.substring(0, firstSemicolon) + line.substring(firstSemicolon + 1)
@@ -1285,7 +1252,29 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Function which will check for new data, and update each List<double[]>
+	 * Wait until the data file contains one more complete line (the MIMS may not
+	 * have written the header or the first row yet when the file is opened)
+	 *
+	 * @param fichier: the tailer following the data file
+	 * @return false if the reading was stopped (working=false) in the meantime
+	 */
+	private boolean waitForLine(DataFileTailer fichier) throws IOException {
+		while (!fichier.nextLine()) {
+			if (!working) {
+				return false;
+			}
+			try {
+				fichier.awaitData();
+			} catch (InterruptedException e) {
+				Main.logger.severe(e.toString());
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Function which will check for new data, and update each dataset
 	 *
 	 * @param address:
 	 *            address of the current data file
@@ -1295,12 +1284,18 @@ public class Window extends JFrame {
 		String workingAddress = address;
 
 		/* reset data in case we open a csv for the second time (or more) */
+		synchronized (watched) {
+			session = null;
+			watched.clear();
+		}
+		nextSession.set(null);
+		parametersVersion.incrementAndGet();
 		amperometricData = null;
 		amperometricColumnName = null;
 
 		gasConcentrationColumnName = null;
 		gasConcentrationData = null;
-		gasConcentrationCorrection = null;
+		columnPlan = null;
 
 		gasExchangeRatesData = null;
 		gasExchangeRatesColumnName = null;
@@ -1325,20 +1320,6 @@ public class Window extends JFrame {
 		gasConcentrationMoleculeList.removeAllItems();
 		denoisedGasExchangeRatesMoleculeList.removeAllItems();
 
-		/* set data */
-		amperometricData = new ArrayList<Double[]>();
-		gasConcentrationData = new ArrayList<Double[]>();
-		gasConcentrationCorrection = new ArrayList<Double>();
-		gasExchangeRatesData = new ArrayList<Double[]>();
-		gasConcentrationConsumption = new ArrayList<Double>();
-		cumulatedGasExchangeData = new ArrayList<Double[]>();
-		denoisedGasExchangeRatesData = new ArrayList<Double[]>();
-		denoisedCumulatedGasExchangeData = new ArrayList<Double[]>();
-		o2ExchangeRatesData = new ArrayList<Double[]>();
-		o2ExchangeData = new ArrayList<Double[]>();
-		gasExchangeRateFunctionConcentrationData = new ArrayList<Double[]>();
-		hydrogenaseActivityData = new ArrayList<Double[]>();
-
 		/*
 		 * Hide every button and subPanel if we load the csv for the second time (or
 		 * more)
@@ -1419,6 +1400,7 @@ public class Window extends JFrame {
 				 * working serves to stop the previous threads
 				 */
 				working = false;
+				wakeReader();
 				try {
 					/* wait until all the previous threads had stopped */
 					for (Thread thread : threads) {
@@ -1430,29 +1412,30 @@ public class Window extends JFrame {
 				} catch (InterruptedException e) {
 					Main.logger.severe(e.toString());
 				}
+				/* the open charts display the data of the previous file */
+				refreshScheduler.clear();
 
 				/* back to work */
 				working = true;
 
 				/* read the file and get the data */
 				try {
-					BufferedReader fichier = new BufferedReader(new FileReader(workingAddress));
+					/*
+					 * follow the file as the MIMS writes it: new rows are picked up as soon as the
+					 * instrument has written their end of line
+					 */
+					DataFileTailer fichier = new DataFileTailer(workingAddress);
 					String line;
 					String[] workingLine;
 
-					/* check if we have 12 or 27 for M/Z */
-					boolean presence12 = false;
-					boolean presence27 = false;
-
 					/* the mass for denoised calculus */
-					boolean presenceMass = false;
 					int mass = 0;
 					try {
 						/*
 						 * try to get the mass for denoised calculus, it's supposed to be the 7th column
 						 * of our factor file, associated with the the row M/Z=2
 						 */
-						mass = Integer.parseInt(factor.get(2)[7]);
+						mass = ExperimentSession.denoisedMass(factor);
 					} /* if the mass isn't empty or a number, stopped everything and warn the user */
 					catch (NumberFormatException e) {
 						Main.logger.warning(e.toString());
@@ -1466,455 +1449,58 @@ public class Window extends JFrame {
 						}
 						return;
 					}
-					int indexMass = 0;
-
-					/* check if we have 32 or 36 for M/Z (for o2Exchangerates and o2Exchange) */
-					boolean presence32 = false;
-					/*
-					 * index represent the column of the molecule in gasExchangeRates and
-					 * gasConcentration for further calculus
-					 */
-					int indexgasExchangeRates32 = 0;
-					int indexgasConcentration32 = 0;
-					boolean presence36 = false;
-					int indexgasExchangeRates36 = 0;
-					int indexgasConcentration36 = 0;
-
-					/* check if we have 2,3and4 for M/Z, used then for hydrogenase activity */
-					boolean presence2 = false;
-					int index2 = 0;
-					boolean presence3 = false;
-					int index3 = 0;
-					boolean presence4 = false;
-					int index4 = 0;
 
 					try {
-						/* Get the first row, which is the list of (M/Z) */
-						line = fichier.readLine();
+						/* Get the first row, which is the list of (M/Z) (wait for it if needed) */
+						if (!waitForLine(fichier)) {
+							fichier.close();
+							return;
+						}
+						line = fichier.lineString();
 						/* replace first serve to delete the column "$Flag$ which is empty */
 						workingLine = parseDataLine(line);
 
 						/*
-						 * contains the list of M/Z value + time (the -1 is here to delete the last
-						 * column, which is empty)
+						 * compile the list of (M/Z) once against the factor file (see ColumnPlan): the
+						 * session then computes the datasets of the open charts (see watch) from the rows
+						 * of the file
 						 */
-						amperometricColumnName = new String[workingLine.length - 1];
-
-						/* contains the list of elements (molecules) + time */
-						ArrayList<String> listElement = new ArrayList<String>();
-
-						/* set the first row to Time (min) (because workingLine[0]="Time$Flags$") */
-						listElement.add("Time (min)");
-
-						/* j serves so that i-j is the index for gasConcentrationData and others */
-						int j = 0;
-
 						Main.logger.info("Try to read first line of data file, to get factor file info");
-						for (int i = 1; i < amperometricColumnName.length; i++) {
-							/* delete "" surrounding our amperometric values */
-							String currentMZ = workingLine[i].replaceAll("\"", "");
-							/* add M/Z to amperometricColumnName */
-							amperometricColumnName[i] = currentMZ;
-
-							/* get the value of M/Z to get our list of molecules */
-							int key = Integer.parseInt(currentMZ);
-
-							/*
-							 * if we find a key corresponding to our denoised mass (mass can't be 18,12 or
-							 * 27)
-							 */
-							if (key == mass && key != 18 && key != 12 && key != 27) {
-								/* note the index */
-								indexMass = i - j;
-								presenceMass = true;
-								/*
-								 * don't had the mass to listElement because it will be added at the end (else
-								 * condition), because this "if" is not part of all further (else if) conditions
-								 */
-							}
-
-							if (key == 12) {
-								/* note that we have M/Z=12 and do nothing (used further) */
-								presence12 = true;
-								/* j++ because we "skip one column" */
-								j++;
-
-							} else if (key == 27) {
-								/* note that we have M/Z=12 and do nothing (used further) */
-								presence27 = true;
-								j++;
-							}
-							/* if we have 12 and 44, it means that we have a CO2 and N2O */
-							else if (key == 44 && presence12) {
-								listElement.add("CO2");
-								listElement.add("N2O");
-
-								/* j-- because we write two column in "surplus" */
-								j--;
-
-								/*
-								 * gasConcentrationCorrection is used to obtain gasConcentrationData, each row
-								 * contains the factor C_max/((A_max-A_0)) of the corresponding molecule, for
-								 * the formula C(t)=(A(t)-A_0)×C_max/((A_max-A_0))
-								 * 
-								 * gasConcentrationConcumption contain the factor k, used to obtain
-								 * gasExchangeRatesData (v(t)=(delta(C(t)))/delta(t)-k×C(t))
-								 */
-
-								/*
-								 * we had the corresponding factors for the corresponding molecules to our
-								 * arrayList
-								 */
-
-								gasConcentrationCorrection.add(
-										Double.parseDouble(factor.get(key)[1]) / (Double.parseDouble(factor.get(key)[2])
-												- Double.parseDouble(factor.get(key)[3])));
-
-								gasConcentrationConsumption.add(Double.parseDouble(factor.get(key)[4]));
-								gasConcentrationCorrection.add(Double.parseDouble(factor.get(-key)[1])
-										/ (Double.parseDouble(factor.get(-key)[2])
-												- Double.parseDouble(factor.get(-key)[3])));
-								gasConcentrationConsumption.add(Double.parseDouble(factor.get(-key)[4]));
-								if (ciT) {
-									listElement.add("Ci");
-									j--;
-									/*
-									 * Ci=Cco2*(1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))), so get
-									 * 1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))
-									 */
-									gasConcentrationCorrection.add(CarbonateChemistry.ciCorrectionFactor(
-											Double.parseDouble(factor.get(2)[6]), pKa1Value, pKa2Value));
-									gasConcentrationConsumption.add(Double.parseDouble(factor.get(key)[4]));
-								}
-
-							} /* if we have 44 but not 12 (this condition is here for carbon inorganic) */
-							else if (key == 44 && presence12 == false) {
-								listElement.add(factor.get(key)[0]);
-								gasConcentrationCorrection.add(
-										Double.parseDouble(factor.get(key)[1]) / (Double.parseDouble(factor.get(key)[2])
-												- Double.parseDouble(factor.get(key)[3])));
-								gasConcentrationConsumption.add(Double.parseDouble(factor.get(key)[4]));
-								if (ciT) {
-									listElement.add("Ci");
-									/*
-									 * Ci=Cco2*(1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))), so get
-									 * 1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))
-									 */
-									gasConcentrationCorrection.add(CarbonateChemistry.ciCorrectionFactor(
-											Double.parseDouble(factor.get(2)[6]), pKa1Value, pKa2Value));
-									gasConcentrationConsumption.add(Double.parseDouble(factor.get(key)[4]));
-									j--;
-								}
-							}
-							/* if we have 31 and 27, it means that we have a ETOH and METOH */
-							else if (key == 31 && presence27) {
-								listElement.add("ETOH");
-								listElement.add("METOH");
-								gasConcentrationCorrection.add(
-										Double.parseDouble(factor.get(key)[1]) / (Double.parseDouble(factor.get(key)[2])
-												- Double.parseDouble(factor.get(key)[3])));
-								gasConcentrationConsumption.add(Double.parseDouble(factor.get(key)[4]));
-								/* METOH info is saved in the map fator at -key */
-								gasConcentrationCorrection.add(Double.parseDouble(factor.get(-key)[1])
-										/ (Double.parseDouble(factor.get(-key)[2])
-												- Double.parseDouble(factor.get(-key)[3])));
-								gasConcentrationConsumption.add(Double.parseDouble(factor.get(-key)[4]));
-								j--;
-
-							}
-							/*
-							 * if H2O do nothing (delete H2O, unless the user said so with h2oT=false)
-							 */
-							else if (key == 18 && h2oT) {
-								j++;
-							}
-
-							/* in any other case */
-							else {
-								/* for o2 and hydrogenase we want to know if we have (32&36) and (2&3&4) */
-								if (key == 32) {
-									indexgasConcentration32 = i - j;
-									presence32 = true;
-								}
-								if (key == 36) {
-									indexgasConcentration36 = i - j;
-									presence36 = true;
-								}
-								if (key == 2) {
-									index2 = i - j;
-									presence2 = true;
-								}
-								if (key == 3) {
-									index3 = i - j;
-									presence3 = true;
-								}
-
-								if (key == 4) {
-									index4 = i - j;
-									presence4 = true;
-								}
-
-								/* We had the element */
-								listElement.add(factor.get(key)[0]);
-								gasConcentrationCorrection.add(
-										Double.parseDouble(factor.get(key)[1]) / (Double.parseDouble(factor.get(key)[2])
-												- Double.parseDouble(factor.get(key)[3])));
-								gasConcentrationConsumption.add(Double.parseDouble(factor.get(key)[4]));
-							}
-						}
-
-						/* create and edit the ColumnName for each Curve */
-						gasConcentrationColumnName = new String[listElement.size()];
-						gasExchangeRatesColumnName = new String[listElement.size()];
-
-						/*-1 is here do delete the mass*/
-						denoisedGasExchangeRatesColumnName = new String[listElement.size() - 1];
-						denoisedCumulatedGasExchangeColumnName = new String[listElement.size() - 1];
-
-						/* set first columnName (Time (min)) */
-						amperometricColumnName[0] = listElement.get(0);
-						gasConcentrationColumnName[0] = listElement.get(0);
-						gasExchangeRatesColumnName[0] = listElement.get(0);
-						denoisedGasExchangeRatesColumnName[0] = listElement.get(0);
-						denoisedCumulatedGasExchangeColumnName[0] = listElement.get(0);
-
-						int k = 1;
-						for (int i = 1; i < listElement.size(); i++) {
-							gasConcentrationColumnName[i] = listElement.get(i) + "  (µM)";
-							gasExchangeRatesColumnName[i] = listElement.get(i) + "  (µM / min)";
-							gasConcentrationMoleculeList.addItem(listElement.get(i));
-
-							if (presenceMass) {
-								/* not	, for denoised curves */
-								if (i != indexMass) {
-									denoisedGasExchangeRatesColumnName[k] = listElement.get(i) + "  (µM / min)";
-									denoisedCumulatedGasExchangeColumnName[k] = listElement.get(i) + "  (µM)";
-									denoisedGasExchangeRatesMoleculeList.addItem(listElement.get(i));
-									k++;
-								}
-
-							}
-						}
-						/*
-						 * update index of other elements, because we "delete" the mass column, so index
-						 * of 32 and 36 for gasExchangeRate might have changed (2,3,and 4 can't)
-						 */
-						if (presenceMass && presence32 && presence36) {
-							if (indexMass < indexgasConcentration32) {
-								indexgasExchangeRates32 = indexgasConcentration32 - 1;
-							}
-							else {
-								indexgasExchangeRates32 = indexgasConcentration32;
-							}
-							if (indexMass < indexgasConcentration36) {
-								indexgasExchangeRates36 = indexgasConcentration36 - 1;
-							}
-							else {
-								indexgasExchangeRates36 = indexgasConcentration36;
-							}
-							denoisedGasExchangeRatesMoleculeList.addItem("Oxygen Exchange Rates");
-						}
-						/* get the number of amperometric signals and nb of molecules (+time) */
-						nbAmperometricColumn = amperometricColumnName.length;
-						nbMoleculeColumn = gasConcentrationColumnName.length;
-
-						/* get the second row of our data and treat it */
-						line = fichier.readLine();
-						workingLine = parseDataLine(line);
+						ExperimentSession experiment = new ExperimentSession(workingLine, factor, mass, h2oT, ciT,
+								pKa1Value, pKa2Value, normalizationFactorValue);
+						session = experiment;
+						useSession(experiment);
+						fillMoleculeLists(experiment);
 
 						/*
-						 * reused for every row of this thread instead of instantiating a new
-						 * SimpleDateFormat per row; safe because this thread is the sole user of
-						 * this instance (SimpleDateFormat isn't thread-safe, but nothing else here
-						 * touches it)
+						 * load at once the rows already written (from the binary copy of a file
+						 * already opened, then parsed in parallel), the file is then followed from
+						 * the end of the last one
 						 */
-						SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss.S");
-
-						/* get the first date of the first value and set it to reference */
-						Date refDate = dateFormat.parse(workingLine[0]);
-
-						/* create line for each data */
-						Double[] amperometricLine = new Double[nbAmperometricColumn];
-						Double[] gasConcentrationLine = new Double[nbMoleculeColumn];
-						Double[] gasExchangeRatesLine = new Double[nbMoleculeColumn];
-						Double[] cumulatedGasExchangeRatesLine = new Double[nbMoleculeColumn];
-						Double[] denoisedGasExchangeRatesLine = new Double[nbMoleculeColumn - 1];
-						Double[] denoisedCumulatedGasExchangeRatesLine = new Double[nbMoleculeColumn - 1];
-						Double[] o2ExchangeRatesLine = new Double[4];
-						Double[] o2ExchangeLine = new Double[4];
-						Double[] hydrogenaseActivityLine = new Double[2];
-
-						/* i-j will be the index again */
-						j = 0;
-
-						/* value to store amperometric value of CO2, ETOH and NO */
-						double valueCO2 = 0;
-						double valueETOH = 0;
-						double valueNO = 0;
-						int presence30 = -1;
-						/* treat every data */
-						Main.logger.info("Try to read second line of data file, raw data");
-						for (int i = 0; i < nbAmperometricColumn; i++) {
-
-							/* get current time for the row (in min) */
-							if (i == 0) {
-								Date date = dateFormat.parse(workingLine[0]);
-								amperometricLine[i] = (((double) date.getTime() - (double) refDate.getTime()) / 1000
-										/ 60);
-								gasConcentrationLine[i] = amperometricLine[i];
-
-							} else {
-								/* just add the amperometric value to amperometricData */
-								amperometricLine[i] = Double.parseDouble(workingLine[i]);
-
-								/* A_(N_2 O) (44)=A(44)-(A_(CO_2 )(12))/0.0871 */
-								if (amperometricColumnName[i].startsWith("12")) {
-									/*
-									 * keep the amperometric value in memory and jump to next column without adding
-									 * anything to gasConcentration data (represent (A_(CO_2 )(12))/0.0871)
-									 */
-									valueCO2 = amperometricLine[i] / Double.parseDouble(factor.get(44)[5]);
-									/*
-									 * increase j, so the index of gasConcentration data (i-j) will remain the same
-									 * next time
-									 */
-									j++;
-
-									/* A_(ETOH) (31)=A(31)-(A_((METOH)) (27))/0.0871 */
-								} else if (amperometricColumnName[i].startsWith("27")) {
-									/* same idea */
-									valueETOH = amperometricLine[i] / Double.parseDouble(factor.get(31)[5]);
-									j++;
-								}
-								/*
-								 * if we have 12 we store the value A(30) and the index because we need the
-								 * value of CO2 to get A(NO)(30)
-								 */
-								else if (amperometricColumnName[i].startsWith("30") && presence12) {
-									valueNO = amperometricLine[i];
-									/* store the index of element 30 */
-									presence30 = i - j;
-
-								} /* if H2O, do nothing (delete H2O if h2oT) */
-								else if (amperometricColumnName[i].startsWith("18") && h2oT) {
-									j++;
-								}
-								/* add the two element with their corresponding value to the correct index */
-								else if (amperometricColumnName[i].startsWith("31") && presence27) {
-
-									/* A_(ETOH) (31)=(A_(ETOH)(27))/0.2241 */
-
-									gasConcentrationLine[i - j] = ((valueETOH) - Double.parseDouble(factor.get(31)[3]))
-											* gasConcentrationCorrection.get(i - j - 1);
-									/*
-									 * gasConcentrationCorrection.get(i - j - 1) is here because
-									 * C(t)=(A(t)-A(0))×C_max/((A_max-A_0))
-									 */
-
-									/* decrease j (so increase i-j) */
-									j--;
-
-									/* A_(METOH)(31)=A(27)-(A_((METOH))(27))//0.2241 */
-									gasConcentrationLine[i - j] = ((amperometricLine[i] - valueETOH)
-											- Double.parseDouble(factor.get(-31)[3]))
-											* gasConcentrationCorrection.get(i - j - 1);
-
-								} else if (amperometricColumnName[i].startsWith("44") && presence12) {
-									/* same than above but with A_(N_2 O) (44)=A(44)-(A_(CO_2 )(12))/0.0871 */
-									gasConcentrationLine[i - j] = (valueCO2 - Double.parseDouble(factor.get(44)[3]))
-											* gasConcentrationCorrection.get(i - j - 1);
-									j--;
-									gasConcentrationLine[i - j] = ((amperometricLine[i] - valueCO2)
-											- Double.parseDouble(factor.get(-44)[3]))
-											* gasConcentrationCorrection.get(i - j - 1);
-
-									if (presence30 != -1) {
-										/*
-										 * if we have 12 and 30, edit the value of NO (we do that because we need the
-										  * value of element N2O) : A_(NO) (30)=(A_(30)-A(N2O)(44)*0.311)
-										 */
-										gasConcentrationLine[presence30] = ((valueNO
-												- (amperometricLine[i] - valueCO2)
-														* Double.parseDouble(factor.get(30)[5]))
-												- Double.parseDouble(factor.get(30)[3]))
-												* gasConcentrationCorrection.get(presence30 - 1);										
-									}
-									/* if ciT choose by the user */
-									if (ciT) {
-										j--;
-										/*
-										 * add carbon inorganic value Ci=Cco2*Cco2*(1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))) and
-										 * gasConcentrationCorrection.get(i - j - 1)=1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))
-										 */
-										gasConcentrationLine[i - j] = gasConcentrationLine[i - j - 2]
-												* gasConcentrationCorrection.get(i - j - 1);
-									}
-
-								} /* add this condition for Ci if we don't have 12 */
-								else if (amperometricColumnName[i].startsWith("44") && presence12 == false) {
-									/* add CO2 */
-									gasConcentrationLine[i
-											- j] = (amperometricLine[i] - Double.parseDouble(factor.get(44)[3]))
-													* gasConcentrationCorrection.get(i - j - 1);
-									if (ciT) {
-										j--;
-										/*
-										 * add carbon inorganic value Ci=Cco2*(1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))) and
-										 * gasConcentrationCorrection.get(i - j - 1)=1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))
-										 */
-										gasConcentrationLine[i - j] = gasConcentrationLine[i - j - 1]
-												* gasConcentrationCorrection.get(i - j - 1);
-									}
-
-								} else {
-									/* just add the value in the dataset */
-									gasConcentrationLine[i - j] = (amperometricLine[i] - Double
-											.parseDouble(factor.get(Integer.parseInt(amperometricColumnName[i]))[3]))
-											* gasConcentrationCorrection.get(i - j - 1);
-
-								}
+						long loadStart = System.nanoTime();
+						fichier.seek(SidecarCache.load(experiment, workingAddress, line, fichier.linePosition()));
+						if (experiment.getRowCount() > 0) {
+							Main.logger.info("Loaded " + experiment.getRowCount() + " rows of the data file in "
+									+ (System.nanoTime() - loadStart) / 1_000_000 + " ms");
+						} else {
+							/* get the second row of our data and treat it */
+							if (!waitForLine(fichier)) {
+								fichier.close();
+								return;
 							}
+							Main.logger.info("Try to read second line of data file, raw data");
+							experiment.addRow(fichier.lineChars(), fichier.lineLength());
 						}
-						/* c(i)=c(i-1) + v(i-1)*(ti-ti-1) but c0= C0 */
-						cumulatedGasExchangeRatesLine = gasConcentrationLine;
-
-						/* edit the number of row treated */
-						nbRow = 1;
-
-						/* add data to the corresponding ArrayList */
-						amperometricData.add(amperometricLine);
-						gasConcentrationData.add(gasConcentrationLine);
-						cumulatedGasExchangeData.add(cumulatedGasExchangeRatesLine);
 
 						gasConcentrationMoleculeList.setVisible(true);
 						denoisedGasExchangeRatesMoleculeList.setVisible(true);
 
-						if (presenceMass) {
-							/* calculate denoised cumulated gas exchange */
-							k = 0;
-							for (int i = 0; i < nbMoleculeColumn; i++) {
-								if (i != indexMass) {
-									/* cd(i)=cd(i-1) + vd(i-1)*(ti-ti-1) but cd0= C0 */
-									denoisedCumulatedGasExchangeRatesLine[k] = gasConcentrationLine[i];
-									k++;
-								}
-							}
-							/* set button to visible and add data */
-							denoisedCumulatedGasExchangeData.add(denoisedCumulatedGasExchangeRatesLine);
+						if (columnPlan.presenceMass) {
+							/* set button to visible */
 							denoisedCumulatedGasExchangeCurve.setVisible(true);
 							denoisedCumulatedGasExchangeCurve.setEnabled(true);
 							movingDenoisedGasExchangeRatesAverage.setVisible(true);
 							subPanel3.setVisible(true);
-
-						}
-
-						/* create first row of o2ExchangeLine (set to 0) */
-						if (presenceMass && presence32 && presence36) {
-							o2ExchangeLine[0] = (double) 0;
-							o2ExchangeLine[1] = (double) 0;
-							o2ExchangeLine[2] = (double) 0;
-							o2ExchangeLine[3] = (double) 0;
-							o2ExchangeData.add(o2ExchangeLine);
 						}
 
 						/* set buttons to visible and enabled */
@@ -1927,6 +1513,11 @@ public class Window extends JFrame {
 						cumulatedGasExchangeCurve.setEnabled(true);
 						subPanel2.setVisible(true);
 
+						if (experiment.getRowCount() >= 2) {
+							Main.logger.info("Data File Opened");
+							showRateCurves(experiment);
+						}
+
 						/* pack the window now that we added buttons */
 						Window.this.pack();
 						Window.this.setLocationRelativeTo(null);
@@ -1936,319 +1527,41 @@ public class Window extends JFrame {
 						while (working) {
 							/* if pause but working, just wait for play */
 							while (pause && working) {
-								try {
-									Thread.sleep(1500);
-								} catch (InterruptedException e1) {
-									Main.logger.severe(e1.toString());
-								}
-							}
-							/* check if new data arrived in the csv */
-							while ((line = fichier.readLine()) != null) {
-
-								/*
-								 * reset the data line
-								 */
-								amperometricLine = new Double[nbAmperometricColumn];
-								gasConcentrationLine = new Double[nbMoleculeColumn];
-								gasExchangeRatesLine = new Double[nbMoleculeColumn];
-								cumulatedGasExchangeRatesLine = new Double[nbMoleculeColumn];
-								denoisedGasExchangeRatesLine = new Double[nbMoleculeColumn - 1];
-								denoisedCumulatedGasExchangeRatesLine = new Double[nbMoleculeColumn - 1];
-								o2ExchangeLine = new Double[4];
-								o2ExchangeRatesLine = new Double[4];
-								hydrogenaseActivityLine = new Double[2];
-
-								/* reset elements */
-								j = 0;
-								valueCO2 = 0;
-								valueETOH = 0;
-								valueNO = 0;
-								presence30 = -1;
-								workingLine = parseDataLine(line);
-
-								/* same as above */
-								for (int i = 0; i < nbAmperometricColumn; i++) {
-
-									/* get current time for the row (in min) */
-									if (i == 0) {
-										Date date = dateFormat.parse(workingLine[0]);
-										amperometricLine[i] = (((double) date.getTime() - (double) refDate.getTime())
-												/ 1000 / 60);
-										gasConcentrationLine[i] = amperometricLine[i];
-
-									} else {
-										/* just add the amperometric value to amperometricData */
-										amperometricLine[i] = Double.parseDouble(workingLine[i]);
-
-										/* A_(N_2 O) (44)=A(44)-(A_(CO_2 )(12))/0.0871 */
-										if (amperometricColumnName[i].startsWith("12")) {
-											/*
-											 * keep the amperometric value in memory and jump to next column without
-											 * adding anything to gasConcentration data (represent (A_(CO_2
-											 * )(12))/0.0871)
-											 */
-											valueCO2 = amperometricLine[i] / Double.parseDouble(factor.get(44)[5]);
-											/*
-											 * increase j, so the index of gasConcentration data (i-j) will remain the
-											 * same next time
-											 */
-											j++;
-
-											/* A_(ETOH) (31)=A(31)-(A_((METOH)) (27))/0.0871 */
-										} else if (amperometricColumnName[i].startsWith("27")) {
-											/* same idea */
-											valueETOH = amperometricLine[i] / Double.parseDouble(factor.get(31)[5]);
-											j++;
-										}
-										/*
-										 * if we have 12 we store the value A(30) and the index because we need the
-										 * value of CO2 to get A(NO)(30)
-										 */
-										else if (amperometricColumnName[i].startsWith("30") && presence12) {
-											valueNO = amperometricLine[i];
-											/* store the index of element 30 */
-											presence30 = i - j;
-
-										} /* if H2O, do nothing (delete H2O) */
-										else if (amperometricColumnName[i].startsWith("18") && h2oT) {
-											j++;
-										}
-										/*
-										 * add the two element with their corresponding value to the correct index
-										 */
-										else if (amperometricColumnName[i].startsWith("31") && presence27) {
-
-											/* A_(ETOH) (31)=(A_(ETOH)(27))/0.2241 */
-
-											gasConcentrationLine[i
-													- j] = ((valueETOH) - Double.parseDouble(factor.get(31)[3]))
-															* gasConcentrationCorrection.get(i - j - 1);
-											/*
-											 * gasConcentrationCorrection.get(i - j - 1) is here because
-											 * C(t)=(A(t)-A(0))×C_max/((A_max-A_0))
-											 */
-
-											/* decrease j (so increase i-j) */
-											j--;
-
-											/* A_(METOH)(31)=A(27)-(A_((METOH))(27))//0.2241 */
-											gasConcentrationLine[i - j] = ((amperometricLine[i] - valueETOH)
-													- Double.parseDouble(factor.get(-31)[3]))
-													* gasConcentrationCorrection.get(i - j - 1);
-
-										} else if (amperometricColumnName[i].startsWith("44") && presence12) {
-											/*
-											 * same than above but with A_(N_2 O) (44)=A(44)-(A_(CO_2 )(12))/0.0871
-											 */
-											gasConcentrationLine[i
-													- j] = (valueCO2 - Double.parseDouble(factor.get(44)[3]))
-															* gasConcentrationCorrection.get(i - j - 1);
-											j--;
-											gasConcentrationLine[i - j] = ((amperometricLine[i] - valueCO2)
-													- Double.parseDouble(factor.get(-44)[3]))
-													* gasConcentrationCorrection.get(i - j - 1);
-
-											if (presence30 != 0) {
-												/*
-												 * if we have 12 and 30, edit the value of NO (we do that because we
-												 * need the value of element N2O) : A_(NO) (30)=(A_(NO)(12)-A(30)*0.311)
-												 */
-												gasConcentrationLine[presence30] = ((valueNO
-														- (amperometricLine[i] - valueCO2)
-																* Double.parseDouble(factor.get(30)[5])) 
-														- Double.parseDouble(factor.get(30)[3]))
-														* gasConcentrationCorrection.get(presence30 - 1);
-											}
-											if (ciT) {
-												j--;
-												/*
-												 * add carbon inorganic value Ci=Cco2*(1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))) and
-												 * gasConcentrationCorrection.get(i - j - 1)=1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))
-												 */
-												gasConcentrationLine[i - j] = gasConcentrationLine[i - j - 2]
-														* gasConcentrationCorrection.get(i - j - 1);
-											}
-
-										} /* add ths condition for Ci if we don't have 12 */
-										else if (amperometricColumnName[i].startsWith("44") && presence12 == false) {
-											/* add CO2 */
-											gasConcentrationLine[i
-													- j] = (amperometricLine[i] - Double.parseDouble(factor.get(44)[3]))
-															* gasConcentrationCorrection.get(i - j - 1);
-											if (ciT) {
-												j--;
-												/*
-												 * add carbon inorganic value Ci=Cco2*(1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))) and
-												 * gasConcentrationCorrection.get(i - j - 1)=1+exp((-pKa1+pH)*ln(10))*(1+exp((-pKa2+pH)*ln(10)))
-												 */
-												gasConcentrationLine[i - j] = gasConcentrationLine[i - j - 1]
-														* gasConcentrationCorrection.get(i - j - 1);
-											}
-
-										} else {
-											/* just add the value in the dataset */
-											gasConcentrationLine[i - j] = (amperometricLine[i] - Double.parseDouble(
-													factor.get(Integer.parseInt(amperometricColumnName[i]))[3]))
-													* gasConcentrationCorrection.get(i - j - 1);
-
+								experiment = swapSession(experiment);
+								synchronized (pauseMonitor) {
+									if (pause && working && nextSession.get() == null) {
+										try {
+											pauseMonitor.wait();
+										} catch (InterruptedException e1) {
+											Main.logger.severe(e1.toString());
 										}
 									}
 								}
-								/* gasConcentrationData.get(nbRow - 1)[0] because we need time(i-1) */
-								gasExchangeRatesLine[0] = gasConcentrationData.get(nbRow - 1)[0];
-								cumulatedGasExchangeRatesLine[0] = gasConcentrationLine[0];
-								if (presenceMass) {
-									denoisedGasExchangeRatesLine[0] = gasConcentrationData.get(nbRow - 1)[0];
-									denoisedCumulatedGasExchangeRatesLine[0] = gasConcentrationLine[0];
-								}
-
-								k = 1;
-								for (int i = 1; i < nbMoleculeColumn; i++) {
-									/* v(ti-1)=((c(i)-c(i-1))/ti-ti-1)+k*c(i-1) */
-									gasExchangeRatesLine[i] = ((gasConcentrationLine[i]
-											- gasConcentrationData.get(nbRow - 1)[i])
-											/ (gasConcentrationLine[0] - gasExchangeRatesLine[0])
-											+ gasConcentrationConsumption.get(i - 1)
-													* gasConcentrationData.get(nbRow - 1)[i])
-											/ normalizationFactorValue;
-									/* c(i)(ti)=c(i-1)(ti-1)+v(i-1)(ti-1)*(ti-ti-1) */
-									cumulatedGasExchangeRatesLine[i] = cumulatedGasExchangeData.get(nbRow - 1)[i]
-											+ gasExchangeRatesLine[i]
-													* (cumulatedGasExchangeRatesLine[0] - gasExchangeRatesLine[0]);
-									if (presenceMass) {
-										if (i != indexMass) {
-											/*
-											 * vd(ti-1)=((c(i)-c(i-1))/ti-ti-1)-k*c(i-1)*((c(i)(mass)-c(i-1)(
-											 * mass))/ti-ti-1)/c(i-1)(mass)/k(mass)
-											 */
-											denoisedGasExchangeRatesLine[k] = ((gasConcentrationLine[i]
-													- gasConcentrationData.get(nbRow - 1)[i])
-													/ (cumulatedGasExchangeRatesLine[0] - gasExchangeRatesLine[0])
-													- (gasConcentrationConsumption.get(i - 1)
-															* ((gasConcentrationLine[indexMass]
-																	- gasConcentrationData.get(nbRow - 1)[indexMass])
-																	/ (cumulatedGasExchangeRatesLine[0]
-																			- gasExchangeRatesLine[0]))
-															/ gasConcentrationData.get(nbRow - 1)[indexMass]
-															/ gasConcentrationConsumption.get(indexMass - 1)
-															* gasConcentrationData.get(nbRow - 1)[i]))
-													/ normalizationFactorValue;
-											/* cd(i)(ti)=cd(i-1)(ti-1)+vd(i-1)(ti-1)*(ti-ti-1) */
-											denoisedCumulatedGasExchangeRatesLine[k] = denoisedCumulatedGasExchangeData
-													.get(nbRow - 1)[k]
-													+ denoisedGasExchangeRatesLine[k]
-															* (cumulatedGasExchangeRatesLine[0]
-																	- gasExchangeRatesLine[0]);
-											k++;
-										}
-
-									}
-								}
-								if (presenceMass && presence32 && presence36) {
-									/* time (i-1) */
-									o2ExchangeRatesLine[0] = gasExchangeRatesLine[0];
-									/* U0=-(v(36)*(1+c(32)/c(36))) */
-									o2ExchangeRatesLine[1] = -(denoisedGasExchangeRatesLine[indexgasExchangeRates36]
-											* (1 + gasConcentrationData.get(nbRow - 1)[indexgasConcentration32]
-													/ gasConcentrationData.get(nbRow - 1)[indexgasConcentration36]));
-									/* E0=v(32)-c(36)*(c(32)/c(36)) */
-									o2ExchangeRatesLine[2] = (denoisedGasExchangeRatesLine[indexgasExchangeRates32]
-											- denoisedGasExchangeRatesLine[indexgasExchangeRates36]
-													* (gasConcentrationData.get(nbRow - 1)[indexgasConcentration32]
-															/ gasConcentrationData
-																	.get(nbRow - 1)[indexgasConcentration36]));
-									/* Net=Eo+U0 */
-									o2ExchangeRatesLine[3] = -o2ExchangeRatesLine[1] + o2ExchangeRatesLine[2];
-
-									/* time (i) */
-									o2ExchangeLine[0] = gasConcentrationLine[0];
-									/* cu0(i)(ti)=cu0(i-1)(ti-1)+U0(i-1)(ti-1)*(ti-ti-1) */
-									o2ExchangeLine[1] = (o2ExchangeData.get(nbRow - 1)[1]) + o2ExchangeRatesLine[1]
-											* (gasConcentrationLine[0] - gasExchangeRatesLine[0]);
-									/* ce0(i)(ti)=ce0(i-1)(ti-1)+e0(i-1)(ti-1)*(ti-ti-1) */
-									o2ExchangeLine[2] = (o2ExchangeData.get(nbRow - 1)[2]) + o2ExchangeRatesLine[2]
-											* (gasConcentrationLine[0] - gasExchangeRatesLine[0]);
-									/* Cnet=Ceo+Cu0 */
-									o2ExchangeLine[3] = o2ExchangeLine[1] + o2ExchangeLine[2];
-									/* set button to visible and enabled */
-									o2ExchangeRatesData.add(o2ExchangeRatesLine);
-									o2ExchangeData.add(o2ExchangeLine);
-									o2ExchangeRatesCurve.setVisible(true);
-									o2ExchangeRatesCurve.setEnabled(true);
-									movingO2ExchangeAverage.setVisible(true);
-									subPanel4.setVisible(true);
-									o2ExchangeCurve.setVisible(true);
-									o2ExchangeCurve.setEnabled(true);
-								}
-								if (presence2 && presence3 && presence4 && presenceMass) {
-									/* time (i-1) */
-									hydrogenaseActivityLine[0] = gasExchangeRatesLine[0];
-									/*
-									 * H2activity = (2*v_(H_2 )(t)+v_HD (t))/(C_D_2 (t)+(C_HD (t))/2)/(C_D_2
-									 * (t)+C_H_2 (t)+C_HD (t))
-									 */
-									hydrogenaseActivityLine[1] = (2 * denoisedGasExchangeRatesLine[index2]
-											* +denoisedGasExchangeRatesLine[index3])
-											/ ((gasConcentrationData.get(nbRow - 1)[index4]
-													+ gasConcentrationData.get(nbRow - 1)[index3] / 2)
-													/ (gasConcentrationData.get(nbRow - 1)[index4]
-															+ gasConcentrationData.get(nbRow - 1)[index2]
-															+ gasConcentrationData.get(nbRow - 1)[index3]))
-											+ Math.abs(denoisedGasExchangeRatesLine[index2]
-													+ denoisedGasExchangeRatesLine[index3]
-													+ denoisedGasExchangeRatesLine[index4]);
-									/* set button to visible and enabled */
-									hydrogenaseActivityData.add(hydrogenaseActivityLine);
-									hydrogenaseActivityCurve.setVisible(true);
-									hydrogenaseActivityCurve.setEnabled(true);
-
-								}
-
-								/* add other data to corresponding ArrayList */
-								amperometricData.add(amperometricLine);
-								gasConcentrationData.add(gasConcentrationLine);
-								gasExchangeRatesData.add(gasExchangeRatesLine);
-								cumulatedGasExchangeData.add(cumulatedGasExchangeRatesLine);
-
-								if (presenceMass) {
-									/* set button of denoised data to visible and enabled */
-									denoisedGasExchangeRatesData.add(denoisedGasExchangeRatesLine);
-									denoisedCumulatedGasExchangeData.add(denoisedCumulatedGasExchangeRatesLine);
-									denoisedGasExchangeRatesCurve.setVisible(true);
-									denoisedGasExchangeRatesCurve.setEnabled(true);
-									gasConcentrationMoleculeList.setVisible(true);
-									denoisedGasExchangeRatesMoleculeList.setVisible(true);
-									gasExchangeRateFunctionConcentrationCurve.setVisible(true);
-									subPanel5.setVisible(true);
-
-								}
-
-								/* Warn each corresponding Thread that new data arrived */
-								newAmperometricData = true;
-								newGasConcentrationData = true;
-								newGasExchangeRatesData = true;
-								newCumulatedGasExchangeData = true;
-								newDenoisedGasExchangeRatesData = true;
-								newDenoisedCumulatedGasExchangeData = true;
-								newO2ExchangeRatesData = true;
-								newO2ExchangeData = true;
-								newGasExchangeRateFunctionConcentrationData = true;
-								newHydrogenaseActivityData = true;
-
-								/* update nbRow */
-								nbRow++;
-								if (nbRow == 2) {
+							}
+							/* the datasets computed again with new parameters */
+							experiment = swapSession(experiment);
+							/* check if new data arrived in the csv (complete rows only) */
+							boolean newRows = false;
+							while (fichier.nextLine()) {
+								experiment.addRow(fichier.lineChars(), fichier.lineLength());
+								newRows = true;
+								if (experiment.getRowCount() == 2) {
 									Main.logger.info("Data File Opened");
 								}
-
-								/* set button to visible */
-								gasExchangeRatesCurve.setVisible(true);
-								gasExchangeRatesCurve.setEnabled(true);
 							}
+							/* the rates need two rows: show their buttons once they have some */
+							if (newRows) {
+								showRateCurves(experiment);
+							}
+							/*
+							 * warn the open charts once for the whole batch of rows (each dataset
+							 * publishes its rows through its volatile row count)
+							 */
+							refreshScheduler.requestRefresh();
 
-							/* sleep to wait new data */
+							/* wait for the MIMS to write new data */
 							try {
-								Thread.sleep(1500);
+								fichier.awaitData();
 							} catch (InterruptedException e1) {
 								Main.logger.severe(e1.toString());
 							}
@@ -2276,7 +1589,7 @@ public class Window extends JFrame {
 						Main.logger.severe(e.toString());
 					}
 
-				} catch (FileNotFoundException e3) {
+				} catch (IOException e3) {
 					Main.logger.warning(e3.toString());
 					infoBox(Window.this, "There is an issue with your data file: " + "\n"
 							+ "We can't find your file, please proceed again", "Opening Data File");
@@ -2292,6 +1605,184 @@ public class Window extends JFrame {
 		threads.add(t);
 	}
 
+	/**
+	 * Use the column names and the datasets of a session (only called by the
+	 * thread reading the data file)
+	 *
+	 * @param experiment: the session computing the datasets
+	 */
+	private void useSession(ExperimentSession experiment) {
+		columnPlan = experiment.columnPlan;
+		amperometricColumnName = columnPlan.amperometricColumnName;
+		gasConcentrationColumnName = columnPlan.gasConcentrationColumnName;
+		gasExchangeRatesColumnName = columnPlan.gasExchangeRatesColumnName;
+		denoisedGasExchangeRatesColumnName = columnPlan.denoisedGasExchangeRatesColumnName;
+		denoisedCumulatedGasExchangeColumnName = columnPlan.denoisedCumulatedGasExchangeColumnName;
+
+		/* get the number of amperometric signals and nb of molecules (+time) */
+		nbAmperometricColumn = columnPlan.nbAmperometricColumn;
+		nbMoleculeColumn = columnPlan.nbMoleculeColumn;
+
+		/* set data */
+		amperometricData = experiment.amperometricData;
+		gasConcentrationData = experiment.gasConcentrationData;
+		gasExchangeRatesData = experiment.gasExchangeRatesData;
+		cumulatedGasExchangeData = experiment.cumulatedGasExchangeData;
+		denoisedGasExchangeRatesData = experiment.denoisedGasExchangeRatesData;
+		denoisedCumulatedGasExchangeData = experiment.denoisedCumulatedGasExchangeData;
+		o2ExchangeRatesData = experiment.o2ExchangeRatesData;
+		o2ExchangeData = experiment.o2ExchangeData;
+		hydrogenaseActivityData = experiment.hydrogenaseActivityData;
+	}
+
+	/**
+	 * Molecules to display for the v(gas)=f(c(gas)) (not the mass for denoised
+	 * curves)
+	 */
+	private void fillMoleculeLists(ExperimentSession experiment) {
+		ColumnPlan plan = experiment.columnPlan;
+		gasConcentrationMoleculeList.removeAllItems();
+		denoisedGasExchangeRatesMoleculeList.removeAllItems();
+		for (int i = 1; i < plan.elements.size(); i++) {
+			gasConcentrationMoleculeList.addItem(plan.elements.get(i));
+			if (plan.presenceMass && i != plan.indexMass) {
+				denoisedGasExchangeRatesMoleculeList.addItem(plan.elements.get(i));
+			}
+		}
+		if (experiment.o2Exchange) {
+			denoisedGasExchangeRatesMoleculeList.addItem("Oxygen Exchange Rates");
+		}
+	}
+
+	/**
+	 * Compute the datasets again with the current parameters (normalization
+	 * factor, pKa, H2O and Ci), from the rows of the data file already read: the
+	 * datasets are computed in a background thread, then the thread reading the
+	 * data file replaces them all at once (see swapSession) and the open charts
+	 * show the new values. The file is read again if it isn't opened yet.
+	 */
+	private void computeDatasetsAgain() {
+		final ExperimentSession current = session;
+		if (current == null) {
+			if (dataFilePath != null) {
+				getData(dataFilePath);
+			}
+			return;
+		}
+		/* a change made while the previous one is computed replaces it */
+		final int version = parametersVersion.incrementAndGet();
+		final boolean hideH2O = h2oT;
+		final boolean ci = ciT;
+		final double pKa1 = pKa1Value;
+		final double pKa2 = pKa2Value;
+		final double normalization = normalizationFactorValue;
+		Thread t = new Thread() {
+			public void run() {
+				long start = System.nanoTime();
+				ExperimentSession next = current.withParameters(hideH2O, ci, pKa1, pKa2, normalization);
+				if (parametersVersion.get() == version) {
+					Main.logger.info("Computed " + next.getRowCount() + " rows with the new parameters in "
+							+ (System.nanoTime() - start) / 1_000_000 + " ms");
+					nextSession.set(next);
+					wakeReader();
+				}
+			}
+		};
+		t.start();
+		threads.add(t);
+	}
+
+	/**
+	 * Replace the datasets by the ones computed with other parameters, if they
+	 * are ready (only called by the thread reading the data file, between two
+	 * rows). The charts of the same columns refresh in place, the others (when H2O
+	 * or Ci were added or removed) are closed.
+	 *
+	 * @param current: the session the rows are added to
+	 * @return the session to add the next rows to
+	 */
+	private ExperimentSession swapSession(ExperimentSession current) {
+		ExperimentSession next = nextSession.getAndSet(null);
+		if (next == null || next.amperometricData != current.amperometricData) {
+			return current;
+		}
+		final boolean sameColumns = Arrays.equals(columnPlan.gasConcentrationColumnName,
+				next.columnPlan.gasConcentrationColumnName);
+		synchronized (watched) {
+			/* with the datasets watched since withParameters started */
+			next.catchUp(current);
+			session = next;
+			useSession(next);
+		}
+		if (!sameColumns) {
+			SwingUtilities.invokeLater(() -> {
+				closeFrame(gasConcentrationFrame);
+				closeFrame(gasExchangeRatesFrame);
+				closeFrame(cumulatedGasExchangeFrame);
+				closeFrame(denoisedGasExchangeRatesFrame);
+				closeFrame(denoisedCumulatedGasExchangeFrame);
+				closeFrame(gasExchangeRateFunctionConcentrationFrame);
+				fillMoleculeLists(next);
+			});
+		}
+		refreshScheduler.requestRefresh();
+		return next;
+	}
+
+	/**
+	 * Compute datasets from now on (with the rows already read), in this session
+	 * and in the ones computed with other parameters: a dataset is only computed
+	 * once a chart shows it (see ExperimentSession.activate)
+	 *
+	 * @param datasets: the datasets read by the chart
+	 */
+	private void watch(ExperimentSession.Dataset... datasets) {
+		synchronized (watched) {
+			watched.addAll(Arrays.asList(datasets));
+			ExperimentSession current = session;
+			if (current != null) {
+				current.activate(datasets);
+			}
+		}
+	}
+
+	private static void closeFrame(JFrame frame) {
+		if (frame != null) {
+			frame.dispatchEvent(new WindowEvent(frame, WindowEvent.WINDOW_CLOSING));
+		}
+	}
+
+	/**
+	 * Show the buttons of the curves computed from two rows (rates, O2 exchange,
+	 * hydrogenase activity) available in this experiment
+	 *
+	 * @param session: the experiment being read
+	 */
+	private void showRateCurves(ExperimentSession session) {
+		if (session.o2Exchange) {
+			o2ExchangeRatesCurve.setVisible(true);
+			o2ExchangeRatesCurve.setEnabled(true);
+			movingO2ExchangeAverage.setVisible(true);
+			subPanel4.setVisible(true);
+			o2ExchangeCurve.setVisible(true);
+			o2ExchangeCurve.setEnabled(true);
+		}
+		if (session.hydrogenaseActivity) {
+			hydrogenaseActivityCurve.setVisible(true);
+			hydrogenaseActivityCurve.setEnabled(true);
+		}
+		if (session.columnPlan.presenceMass) {
+			denoisedGasExchangeRatesCurve.setVisible(true);
+			denoisedGasExchangeRatesCurve.setEnabled(true);
+			gasConcentrationMoleculeList.setVisible(true);
+			denoisedGasExchangeRatesMoleculeList.setVisible(true);
+			gasExchangeRateFunctionConcentrationCurve.setVisible(true);
+			subPanel5.setVisible(true);
+		}
+		gasExchangeRatesCurve.setVisible(true);
+		gasExchangeRatesCurve.setEnabled(true);
+	}
+
 	/**
 	 * The 10 following class are action listeners, which displayed corresponding
 	 * curves when user pressed the corresponding button. The code between each one
@@ -2299,6 +1790,161 @@ public class Window extends JFrame {
 	 * specific modification compared to a common class.
 	 */
 
+	/**
+	 * Refresh of a chart showing a dataset: adds the rows published since the
+	 * last refresh, or shows the whole dataset again once it was computed with
+	 * other parameters (see swapSession)
+	 */
+	private static final class DatasetRefresh implements ChartRefreshScheduler.Subscriber {
+		private final JFrame frame;
+		private final DisplayCurve curve;
+		/* the dataset currently in the field of the Window */
+		private final Supplier<ColumnStore> dataset;
+		/* dataset and rows already displayed */
+		private ColumnStore source;
+		private int displayedRow;
+
+		/**
+		 * @param source:      the dataset shown by the chart
+		 * @param initialData: the snapshot of source shown by the chart
+		 * @param dataset:     gives the dataset currently in the field of the Window
+		 */
+		DatasetRefresh(JFrame frame, DisplayCurve curve, ColumnStore source, ColumnStore initialData,
+				Supplier<ColumnStore> dataset) {
+			this.frame = frame;
+			this.curve = curve;
+			this.dataset = dataset;
+			this.source = source;
+			displayedRow = initialData.getRowCount();
+		}
+
+		public boolean refresh() {
+			/* the frame was closed (or the chart opened again in an other frame) */
+			if (!frame.isVisible()) {
+				return false;
+			}
+			ColumnStore current = dataset.get();
+			if (current == null) {
+				return false;
+			}
+			if (current != source) {
+				/* other columns (H2O or Ci changed): the chart is being closed */
+				if (current.getColumnCount() != source.getColumnCount()) {
+					return true;
+				}
+				/* computed again with other parameters: every row changed */
+				source = current;
+				ColumnStore snapshot = current.snapshot();
+				curve.replaceData(snapshot);
+				displayedRow = snapshot.getRowCount();
+				return true;
+			}
+			/* rows published since the last refresh */
+			ColumnStore snapshot = current.snapshot();
+			if (snapshot.getRowCount() > displayedRow) {
+				curve.addData(snapshot, snapshot.getRowCount());
+				displayedRow = snapshot.getRowCount();
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Refresh of a chart showing the moving average of rates: averages the rows
+	 * published since the last refresh, or averages every rate again once the
+	 * step was changed with the JSpinner or the rates were computed with other
+	 * parameters. This pass over every rate runs on its own thread, so the other
+	 * charts keep being refreshed meanwhile: the chart keeps its curves until the
+	 * new average replaces them.
+	 */
+	private static final class AverageRefresh implements ChartRefreshScheduler.Subscriber {
+		/* averages the rates again for every chart, one pass after the other */
+		private static final ExecutorService AVERAGING = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Moving average");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		private final JFrame frame;
+		private final DisplayCurve curve;
+		/* the rates currently in the field of the Window, and the step of the JSpinner */
+		private final Supplier<ColumnStore> dataset;
+		private final IntSupplier step;
+		/* warns the refresh scheduler once a new average is ready */
+		private final Runnable requestRefresh;
+		/* average shown in the chart, and the rates it averages */
+		private MovingAverage average;
+		private ColumnStore source;
+		/* average being computed again (null if none), and the rates it averages */
+		private CompletableFuture<MovingAverage> next;
+		private ColumnStore nextSource;
+
+		/**
+		 * @param average:        the average shown by the chart
+		 * @param source:         the rates it averages
+		 * @param dataset:        gives the rates currently in the field of the Window
+		 * @param step:           gives the step currently chosen
+		 * @param requestRefresh: warns the refresh scheduler
+		 */
+		AverageRefresh(JFrame frame, DisplayCurve curve, MovingAverage average, ColumnStore source,
+				Supplier<ColumnStore> dataset, IntSupplier step, Runnable requestRefresh) {
+			this.frame = frame;
+			this.curve = curve;
+			this.average = average;
+			this.source = source;
+			this.dataset = dataset;
+			this.step = step;
+			this.requestRefresh = requestRefresh;
+		}
+
+		public boolean refresh() {
+			/* the frame was closed (or the chart opened again in an other frame) */
+			if (!frame.isVisible()) {
+				return false;
+			}
+			ColumnStore rates = dataset.get();
+			if (rates == null) {
+				return false;
+			}
+			/* other columns (H2O or Ci changed): the chart is being closed */
+			if (rates.getColumnCount() != source.getColumnCount()) {
+				return true;
+			}
+			if (next != null) {
+				if (!next.isDone()) {
+					return true;
+				}
+				try {
+					average = next.join();
+				} catch (CompletionException e) {
+					Main.logger.severe("Error while averaging the rates: " + e.getCause());
+					return false;
+				}
+				source = nextSource;
+				next = null;
+				curve.replaceData(average.getData().snapshot());
+			}
+			int currentStep = step.getAsInt();
+			if (average.getStep() != currentStep || rates != source) {
+				/* average every rate again in the background, the next refresh shows it */
+				final int nbColumn = average.getData().getColumnCount();
+				final ColumnStore snapshot = rates.snapshot();
+				nextSource = rates;
+				next = CompletableFuture.supplyAsync(() -> {
+					MovingAverage recomputed = new MovingAverage(nbColumn, currentStep);
+					recomputed.update(snapshot);
+					return recomputed;
+				}, AVERAGING);
+				next.thenRun(requestRefresh);
+			}
+			/* average the rates published since the last refresh */
+			else if (average.update(rates.snapshot()) > 0) {
+				curve.addData(average.getData().snapshot(), average.getData().getRowCount());
+			}
+			return true;
+		}
+	}
+
 	/**
 	 * Display the Chart of the amperometricSignal according to time
 	 */
@@ -2315,8 +1961,8 @@ public class Window extends JFrame {
 			}
 			Main.logger.info("Displaying Amperometric Signal");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData=true)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 			Thread tb = new Thread() {
 				public void run() {
@@ -2325,6 +1971,9 @@ public class Window extends JFrame {
 					amperometricFrame = new JFrame("Amperometric Curve");
 					/* define the chart */
 					DisplayCurve chart = null;
+					/* rows already published, the next ones are added by each refresh */
+					ColumnStore source = amperometricData;
+					ColumnStore initialData = source.snapshot();
 					/* create an object DisplayCurve, which contain the chart */
 					try {
 						List<String> heading = new ArrayList<String>();
@@ -2336,7 +1985,7 @@ public class Window extends JFrame {
 						heading.add("Average between ");
 
 						/* create the chart */
-						chart = new DisplayCurve(amperometricData, amperometricColumnName, nbAmperometricColumn,
+						chart = new DisplayCurve(initialData, amperometricColumnName, nbAmperometricColumn,
 								heading, "Amperometric Signal");
 						amperometricFrameOpen = true;
 					} catch (ParseException e) {
@@ -2348,14 +1997,10 @@ public class Window extends JFrame {
 					amperometricFrame.getContentPane().setBackground(Color.white);
 					amperometricFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * amperometricCurve button, until the thread had stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					amperometricFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							amperometricFrameOpen = false;
-							amperometricCurve.setEnabled(false);
 
 						}
 					});
@@ -2381,22 +2026,11 @@ public class Window extends JFrame {
 					amperometricFrame.pack();
 					amperometricFrame.setVisible(true);
 
-					/* reload the chart if new data arrived (and if the frame is still opened) */
-					while (working && amperometricFrameOpen) {
-						try {
-							Thread.sleep(1500);
-							if (newAmperometricData) {
-								/* add new data to the chart */
-								chart.addData(amperometricData, nbRow);
-								newAmperometricData = false;
-
-							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
-						}
-					}
-					/* enable the button one the thread had stopped */
-					amperometricCurve.setEnabled(true);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = amperometricFrame;
+					refreshScheduler
+							.subscribe(new DatasetRefresh(frame, curve, source, initialData, () -> amperometricData));
 				}
 			};
 			tb.start();
@@ -2421,8 +2055,8 @@ public class Window extends JFrame {
 			}
 			Main.logger.info("Displaying Gas Concentration");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 
 			Thread tb = new Thread() {
@@ -2431,6 +2065,10 @@ public class Window extends JFrame {
 					gasConcentrationFrame = new JFrame("Gas Concentration Curve");
 					/* define the chart */
 					DisplayCurve chart = null;
+					/* rows already published, the next ones are added by each refresh */
+					watch(ExperimentSession.Dataset.GAS_CONCENTRATION);
+					ColumnStore source = gasConcentrationData;
+					ColumnStore initialData = source.snapshot();
 					/* create an object DisplayCurve, which contain the chart */
 					try {
 						List<String> heading = new ArrayList<String>();
@@ -2441,7 +2079,7 @@ public class Window extends JFrame {
 						heading.add("Value for T = ");
 						heading.add("Average between ");
 
-						chart = new DisplayCurve(gasConcentrationData, gasConcentrationColumnName, nbMoleculeColumn,
+						chart = new DisplayCurve(initialData, gasConcentrationColumnName, nbMoleculeColumn,
 								heading, "Gas Concentration");
 						gasConcentrationFrameOpen = true;
 					} catch (ParseException e) {
@@ -2456,14 +2094,10 @@ public class Window extends JFrame {
 					gasConcentrationFrame.getContentPane().setBackground(Color.white);
 					gasConcentrationFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * gasConcentrationCurve button, until the thread had stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					gasConcentrationFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							gasConcentrationFrameOpen = false;
-							gasConcentrationCurve.setEnabled(false);
 
 						}
 					});
@@ -2489,21 +2123,11 @@ public class Window extends JFrame {
 					gasConcentrationFrame.pack();
 					gasConcentrationFrame.setVisible(true);
 
-					/* reload the chart if new data arrived */
-					while (working && gasConcentrationFrameOpen) {
-						try {
-							Thread.sleep(1500);
-							if (newGasConcentrationData) {
-								/* add new data */
-								chart.addData(gasConcentrationData, nbRow);
-								newGasConcentrationData = false;
-
-							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
-						}
-					}
-					gasConcentrationCurve.setEnabled(true);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = gasConcentrationFrame;
+					refreshScheduler.subscribe(
+							new DatasetRefresh(frame, curve, source, initialData, () -> gasConcentrationData));
 				}
 			};
 			tb.start();
@@ -2520,74 +2144,33 @@ public class Window extends JFrame {
 
 			/*
 			 * don't open an other graph if one already exist, just put the frame in first
-			 * plan (unless the moving average entered by the user had changed)
+			 * plan (a new moving average step is applied to it by MovingAverageStepChange)
 			 */
-			if (gasExchangeRatesFrameOpen
-					&& thresholdGasExchangeRatesAverage != (Integer) (movingGasExchangeRatesAverage.getValue())) {
-				gasExchangeRatesFrame.dispatchEvent(new WindowEvent(gasExchangeRatesFrame, WindowEvent.WINDOW_CLOSING));
-				try {
-					/* wait for previous thread to finished */
-					exchangeThread.join();
-				} catch (InterruptedException e1) {
-					Main.logger.severe(e1.toString());
-				}
-
-			} else if (gasExchangeRatesFrameOpen) {
+			if (gasExchangeRatesFrameOpen) {
 				gasExchangeRatesFrame.toFront();
 				return;
 			}
 
 			/* moving average entered by user */
-			thresholdGasExchangeRatesAverage = (Integer) movingGasExchangeRatesAverage.getValue();
-
-			if (2 * thresholdGasExchangeRatesAverage >= gasExchangeRatesData.size()) {
-				Main.logger.info("Step: " + thresholdGasExchangeRatesAverage + " to big for Moving Average (max: "
-						+ Math.round(gasExchangeRatesData.size() / 2) + " )");
-				infoBox(Window.this, "Wrong step: " + "\n" + "Please enter a step lower than "
-						+ Math.round(gasExchangeRatesData.size() / 2) + " .", "Sliding Average");
+			int step = (Integer) movingGasExchangeRatesAverage.getValue();
+			if (!isValidStep(step, gasExchangeRatesData)) {
 				return;
 			}
+			thresholdGasExchangeRatesAverage = step;
 
 			Main.logger.info("Displaying Gas Exchange Rates");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 
 			Thread tb = new Thread() {
 				public void run() {
-					/* treat data to have a moving average */
-					int movingAverageIndex = 0;
-					List<Double[]> movingAverageExchangeData = new ArrayList<Double[]>();
-					/*
-					 * take every data between thresholdGasExchangeRatesAverage and
-					 * thresholdGasExchangeRatesAverage+gasExchangeRatesData.size()
-					 */
-					for (int j = thresholdGasExchangeRatesAverage; j < gasExchangeRatesData.size()
-							- thresholdGasExchangeRatesAverage; j++) {
-						Double[] currentLine = new Double[nbMoleculeColumn];
-						/* treat each column */
-						for (int i = 0; i < nbMoleculeColumn; i++) {
-							if (i == 0) {
-								/* time value */
-								currentLine[i] = gasExchangeRatesData.get(j)[i];
-							} else {
-								double value = 0;
-								/*
-								 * sum data surrounding our current value (-thresholdGasExchangeRatesAverage and
-								 * +thresholdGasExchangeRatesAverage)
-								 */
-								for (int k = -thresholdGasExchangeRatesAverage; k < thresholdGasExchangeRatesAverage
-										+ 1; k++) {
-									value += gasExchangeRatesData.get(j + k)[i];
-								}
-								currentLine[i] = value / (2 * thresholdGasExchangeRatesAverage + 1);
-							}
-						}
-						movingAverageExchangeData.add(currentLine);
-						currentLine = null;
-						movingAverageIndex++;
-					}
+					/* treat data to have a moving average (updated row by row below) */
+					MovingAverage movingAverage = new MovingAverage(nbMoleculeColumn, thresholdGasExchangeRatesAverage);
+					watch(ExperimentSession.Dataset.GAS_EXCHANGE_RATES);
+					final ColumnStore averaged = gasExchangeRatesData;
+					movingAverage.update(averaged.snapshot());
 
 					/* create a new window for the chart */
 					gasExchangeRatesFrame = new JFrame("Gas Exchange Rates Curve");
@@ -2603,7 +2186,7 @@ public class Window extends JFrame {
 						heading.add("Value for T = ");
 						heading.add("Average between ");
 
-						chart = new DisplayCurve(movingAverageExchangeData, gasExchangeRatesColumnName,
+						chart = new DisplayCurve(movingAverage.getData().snapshot(), gasExchangeRatesColumnName,
 								nbMoleculeColumn, heading, "Gas Exchange Rates");
 						gasExchangeRatesFrameOpen = true;
 					} catch (ParseException e) {
@@ -2618,14 +2201,10 @@ public class Window extends JFrame {
 					gasExchangeRatesFrame.getContentPane().setBackground(Color.white);
 					gasExchangeRatesFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * gasExchangeRatesCurve button, until the thread had stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					gasExchangeRatesFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							gasExchangeRatesFrameOpen = false;
-							gasExchangeRatesCurve.setEnabled(false);
 
 						}
 					});
@@ -2651,46 +2230,16 @@ public class Window extends JFrame {
 					gasExchangeRatesFrame.pack();
 					gasExchangeRatesFrame.setVisible(true);
 
-					/* reload the chart if new data arrived */
-					while (working && gasExchangeRatesFrameOpen) {
-						try {
-							Thread.sleep(1500);
-							if (newGasExchangeRatesData) {
-								/* treat each row until row =1+2 * thresholdGasExchangeRatesAverage */
-								while (1 + movingAverageIndex + 2 * thresholdGasExchangeRatesAverage < nbRow) {
-									Double[] currentLine = new Double[nbMoleculeColumn];
-									/* same as above */
-									for (int i = 0; i < nbMoleculeColumn; i++) {
-										if (i == 0) {
-											/* time value */
-											currentLine[i] = gasExchangeRatesData.get(movingAverageIndex + 1)[i];
-										} else {
-											double value = 0;
-											for (int k = -thresholdGasExchangeRatesAverage; k < thresholdGasExchangeRatesAverage
-													+ 1; k++) {
-												value += gasExchangeRatesData.get(movingAverageIndex + 1 + k)[i];
-											}
-											currentLine[i] = value / (2 * thresholdGasExchangeRatesAverage + 1);
-										}
-									}
-									movingAverageExchangeData.add(currentLine);
-									currentLine = null;
-									movingAverageIndex++;
-								}
-								/* add new data */
-								chart.addData(movingAverageExchangeData, movingAverageIndex);
-								newGasExchangeRatesData = false;
-							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
-						}
-					}
-					gasExchangeRatesCurve.setEnabled(true);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = gasExchangeRatesFrame;
+					refreshScheduler.subscribe(new AverageRefresh(frame, curve, movingAverage, averaged,
+							() -> gasExchangeRatesData, () -> thresholdGasExchangeRatesAverage,
+							refreshScheduler::requestRefresh));
 				}
 			};
 			tb.start();
 			threads.add(tb);
-			exchangeThread = tb;
 		}
 	}
 
@@ -2711,8 +2260,8 @@ public class Window extends JFrame {
 			}
 			Main.logger.info("Displaying Cumulated Gas Exchange");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 			Thread tb = new Thread() {
 				public void run() {
@@ -2720,6 +2269,10 @@ public class Window extends JFrame {
 					cumulatedGasExchangeFrame = new JFrame("Cumulated Gas Exchange Curve");
 					/* define the chart */
 					DisplayCurve chart = null;
+					/* rows already published, the next ones are added by each refresh */
+					watch(ExperimentSession.Dataset.CUMULATED_GAS_EXCHANGE);
+					ColumnStore source = cumulatedGasExchangeData;
+					ColumnStore initialData = source.snapshot();
 					/* create an object DisplayCurve, which contain the chart */
 					try {
 						List<String> heading = new ArrayList<String>();
@@ -2730,7 +2283,7 @@ public class Window extends JFrame {
 						heading.add("Value for T = ");
 						heading.add("Average between ");
 
-						chart = new DisplayCurve(cumulatedGasExchangeData, gasConcentrationColumnName, nbMoleculeColumn,
+						chart = new DisplayCurve(initialData, gasConcentrationColumnName, nbMoleculeColumn,
 								heading, "Cumulated Gas Exchange");
 						cumulatedGasExchangeFrameOpen = true;
 					} catch (ParseException e) {
@@ -2745,14 +2298,10 @@ public class Window extends JFrame {
 					cumulatedGasExchangeFrame.getContentPane().setBackground(Color.white);
 					cumulatedGasExchangeFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * cumulatedGasExchangeCurve button, until the thread had stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					cumulatedGasExchangeFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							cumulatedGasExchangeFrameOpen = false;
-							cumulatedGasExchangeCurve.setEnabled(false);
 
 						}
 					});
@@ -2779,21 +2328,11 @@ public class Window extends JFrame {
 					cumulatedGasExchangeFrame.pack();
 					cumulatedGasExchangeFrame.setVisible(true);
 
-					/* reload the chart if new data arrived */
-					while (working && cumulatedGasExchangeFrameOpen) {
-						try {
-							Thread.sleep(1500);
-							if (newCumulatedGasExchangeData) {
-								/* add new data */
-								chart.addData(cumulatedGasExchangeData, nbRow);
-								newCumulatedGasExchangeData = false;
-
-							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
-						}
-					}
-					cumulatedGasExchangeCurve.setEnabled(true);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = cumulatedGasExchangeFrame;
+					refreshScheduler.subscribe(
+							new DatasetRefresh(frame, curve, source, initialData, () -> cumulatedGasExchangeData));
 				}
 			};
 			tb.start();
@@ -2810,74 +2349,31 @@ public class Window extends JFrame {
 		public void actionPerformed(ActionEvent e) {
 			/*
 			 * don't open an other graph if one already exist, just put the frame in first
-			 * plan (unless the movingAverage had changed)
+			 * plan (a new moving average step is applied to it by MovingAverageStepChange)
 			 */
-
-			if (denoisedGasExchangeRatesFrameOpen
-					&& thresholdDenoisedGasExchangeRates != (Integer) (movingDenoisedGasExchangeRatesAverage
-							.getValue())) {
-				denoisedGasExchangeRatesFrame
-						.dispatchEvent(new WindowEvent(denoisedGasExchangeRatesFrame, WindowEvent.WINDOW_CLOSING));
-				try {
-					/* wait for previous thread to finished */
-					denoisedThread.join();
-				} catch (InterruptedException e1) {
-					Main.logger.severe(e1.toString());
-				}
-
-			} else if (denoisedGasExchangeRatesFrameOpen) {
+			if (denoisedGasExchangeRatesFrameOpen) {
 				denoisedGasExchangeRatesFrame.toFront();
 				return;
 			}
 
-			thresholdDenoisedGasExchangeRates = (Integer) movingDenoisedGasExchangeRatesAverage.getValue();
-
-			if (2 * thresholdDenoisedGasExchangeRates >= denoisedGasExchangeRatesData.size()) {
-				Main.logger.info("Step: " + thresholdDenoisedGasExchangeRates + " to big for Moving Average (max: "
-						+ Math.round(denoisedGasExchangeRatesData.size() / 2) + " )");
-				infoBox(Window.this, "Wrong step: " + "\n" + "Please enter a step lower than "
-						+ Math.round(denoisedGasExchangeRatesData.size() / 2) + " .", "Sliding Average");
+			/* moving average entered by user */
+			int step = (Integer) movingDenoisedGasExchangeRatesAverage.getValue();
+			if (!isValidStep(step, denoisedGasExchangeRatesData)) {
 				return;
 			}
+			thresholdDenoisedGasExchangeRates = step;
 			Main.logger.info("Displaying Denoised Gas Exchange Rates");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 			Thread tb = new Thread() {
 				public void run() {
-					/* treat data to have a moving average */
-					int movingAverageIndex = 0;
-					List<Double[]> movingAverageExchangeData = new ArrayList<Double[]>();
-					/*
-					 * take every data between thresholdDenoisedGasExchangeRates and
-					 * thresholdDenoisedGasExchangeRates+denoisedGasExchangeRatesData.size()
-					 */
-					for (int j = thresholdDenoisedGasExchangeRates; j < denoisedGasExchangeRatesData.size()
-							- thresholdDenoisedGasExchangeRates; j++) {
-						Double[] currentLine = new Double[nbMoleculeColumn - 1];
-						/* treat each column */
-						for (int i = 0; i < nbMoleculeColumn - 1; i++) {
-							if (i == 0) {
-								/* time value */
-								currentLine[i] = denoisedGasExchangeRatesData.get(j)[i];
-							} else {
-								double value = 0;
-								/*
-								 * sum data surrounding our current value (-thresholdDenoisedGasExchangeRates
-								 * and +thresholdDenoisedGasExchangeRates)
-								 */
-								for (int k = -thresholdDenoisedGasExchangeRates; k < thresholdDenoisedGasExchangeRates
-										+ 1; k++) {
-									value += denoisedGasExchangeRatesData.get(j + k)[i];
-								}
-								currentLine[i] = value / (2 * thresholdDenoisedGasExchangeRates + 1);
-							}
-						}
-						movingAverageExchangeData.add(currentLine);
-						currentLine = null;
-						movingAverageIndex++;
-					}
+					/* treat data to have a moving average (updated row by row below) */
+					MovingAverage movingAverage = new MovingAverage(nbMoleculeColumn - 1, thresholdDenoisedGasExchangeRates);
+					watch(ExperimentSession.Dataset.DENOISED_GAS_EXCHANGE_RATES);
+					final ColumnStore averaged = denoisedGasExchangeRatesData;
+					movingAverage.update(averaged.snapshot());
 
 					/* create a new window for the chart */
 					denoisedGasExchangeRatesFrame = new JFrame("Gas Exchange Rates (Denoised) Curves");
@@ -2893,7 +2389,7 @@ public class Window extends JFrame {
 						heading.add("Value for T = ");
 						heading.add("Average between ");
 
-						chart = new DisplayCurve(movingAverageExchangeData, denoisedGasExchangeRatesColumnName,
+						chart = new DisplayCurve(movingAverage.getData().snapshot(), denoisedGasExchangeRatesColumnName,
 								nbMoleculeColumn - 1, heading, "Gas Exchange Rates (Denoised)");
 						denoisedGasExchangeRatesFrameOpen = true;
 					} catch (ParseException e) {
@@ -2908,14 +2404,10 @@ public class Window extends JFrame {
 					denoisedGasExchangeRatesFrame.getContentPane().setBackground(Color.white);
 					denoisedGasExchangeRatesFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * denoisedGasExchangeRatesCurve button, until the thread had stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					denoisedGasExchangeRatesFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							denoisedGasExchangeRatesFrameOpen = false;
-							denoisedGasExchangeRatesCurve.setEnabled(false);
 
 						}
 					});
@@ -2942,48 +2434,16 @@ public class Window extends JFrame {
 					denoisedGasExchangeRatesFrame.pack();
 					denoisedGasExchangeRatesFrame.setVisible(true);
 
-					/* reload the chart if new data arrived */
-					while (working && denoisedGasExchangeRatesFrameOpen) {
-						try {
-							Thread.sleep(1500);
-							if (newDenoisedGasExchangeRatesData) {
-								/* treat each row until row =1+2 * thresholdDenoisedGasExchangeRates */
-								while (1 + movingAverageIndex + 2 * thresholdDenoisedGasExchangeRates < nbRow) {
-									Double[] currentLine = new Double[nbMoleculeColumn - 1];
-									/* same as before */
-									for (int i = 0; i < nbMoleculeColumn - 1; i++) {
-										if (i == 0) {
-											currentLine[i] = denoisedGasExchangeRatesData
-													.get(movingAverageIndex + 1)[i];
-										} else {
-											double value = 0;
-											for (int k = -thresholdDenoisedGasExchangeRates; k < thresholdDenoisedGasExchangeRates
-													+ 1; k++) {
-												value += denoisedGasExchangeRatesData
-														.get(movingAverageIndex + 1 + k)[i];
-											}
-											currentLine[i] = value / (2 * thresholdDenoisedGasExchangeRates + 1);
-										}
-									}
-									movingAverageExchangeData.add(currentLine);
-									currentLine = null;
-									movingAverageIndex++;
-								}
-								/* add new data */
-								chart.addData(movingAverageExchangeData, movingAverageIndex);
-								newDenoisedGasExchangeRatesData = false;
-							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
-						}
-					}
-					denoisedGasExchangeRatesCurve.setEnabled(true);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = denoisedGasExchangeRatesFrame;
+					refreshScheduler.subscribe(new AverageRefresh(frame, curve, movingAverage, averaged,
+							() -> denoisedGasExchangeRatesData, () -> thresholdDenoisedGasExchangeRates,
+							refreshScheduler::requestRefresh));
 				}
 			};
 			tb.start();
 			threads.add(tb);
-			/* set denoisedThread to the current thread */
-			denoisedThread = tb;
 		}
 	}
 
@@ -3003,8 +2463,8 @@ public class Window extends JFrame {
 			}
 			Main.logger.info("Displaying Denoised Cumulated Gas Exchange");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 			Thread tb = new Thread() {
 				public void run() {
@@ -3012,6 +2472,10 @@ public class Window extends JFrame {
 					denoisedCumulatedGasExchangeFrame = new JFrame("Cumulated Gas Exchange (Denoised) Curve");
 					/* define the chart */
 					DisplayCurve chart = null;
+					/* rows already published, the next ones are added by each refresh */
+					watch(ExperimentSession.Dataset.DENOISED_CUMULATED_GAS_EXCHANGE);
+					ColumnStore source = denoisedCumulatedGasExchangeData;
+					ColumnStore initialData = source.snapshot();
 					/* create an object DisplayCurve, which contain the chart */
 					try {
 						List<String> heading = new ArrayList<String>();
@@ -3022,7 +2486,7 @@ public class Window extends JFrame {
 						heading.add("Value for T = ");
 						heading.add("Average between ");
 
-						chart = new DisplayCurve(denoisedCumulatedGasExchangeData,
+						chart = new DisplayCurve(initialData,
 								denoisedCumulatedGasExchangeColumnName, nbMoleculeColumn - 1, heading,
 								"Cumulated Gas Exchange (Denoised)");
 						denoisedCumulatedGasExchangeFrameOpen = true;
@@ -3038,14 +2502,10 @@ public class Window extends JFrame {
 					denoisedCumulatedGasExchangeFrame.getContentPane().setBackground(Color.white);
 					denoisedCumulatedGasExchangeFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * denoisedCumulatedGasExchangeCurve button, until the thread had stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					denoisedCumulatedGasExchangeFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							denoisedCumulatedGasExchangeFrameOpen = false;
-							denoisedCumulatedGasExchangeCurve.setEnabled(false);
 
 						}
 					});
@@ -3072,21 +2532,12 @@ public class Window extends JFrame {
 					denoisedCumulatedGasExchangeFrame.pack();
 					denoisedCumulatedGasExchangeFrame.setVisible(true);
 
-					/* reload the chart if new data arrived */
-					while (working && denoisedCumulatedGasExchangeFrameOpen) {
-						try {
-							Thread.sleep(1500);
-							if (newDenoisedCumulatedGasExchangeData) {
-								/* add new data */
-								chart.addData(denoisedCumulatedGasExchangeData, nbRow);
-								newDenoisedCumulatedGasExchangeData = false;
-
-							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
-						}
-					}
-					denoisedCumulatedGasExchangeCurve.setEnabled(true);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = denoisedCumulatedGasExchangeFrame;
+					refreshScheduler.subscribe(
+							new DatasetRefresh(frame, curve, source, initialData,
+									() -> denoisedCumulatedGasExchangeData));
 				}
 			};
 			tb.start();
@@ -3101,69 +2552,31 @@ public class Window extends JFrame {
 		public void actionPerformed(ActionEvent e) {
 			/*
 			 * don't open an other graph if one already exist, just put the frame in first
-			 * plan (unless the moving average entered by the user had changed)
+			 * plan (a new moving average step is applied to it by MovingAverageStepChange)
 			 */
-			if (o2ExchangeRatesFrameOpen
-					&& thresholdO2ExchangeAverage != (Integer) (movingO2ExchangeAverage.getValue())) {
-				o2ExchangeRatesFrame.dispatchEvent(new WindowEvent(o2ExchangeRatesFrame, WindowEvent.WINDOW_CLOSING));
-				try {
-					/* wait for older thread to stopped */
-					oxygenThread.join();
-				} catch (InterruptedException e1) {
-					Main.logger.severe(e1.toString());
-				}
-
-			} else if (o2ExchangeRatesFrameOpen) {
+			if (o2ExchangeRatesFrameOpen) {
 				o2ExchangeRatesFrame.toFront();
 				return;
 			}
 
-			thresholdO2ExchangeAverage = (Integer) movingO2ExchangeAverage.getValue();
-
-			if (2 * thresholdO2ExchangeAverage >= o2ExchangeRatesData.size()) {
-				Main.logger.info("Step: " + thresholdO2ExchangeAverage + " to big for Moving Average (max: "
-						+ Math.round(o2ExchangeRatesData.size() / 2) + " )");
-				infoBox(Window.this, "Wrong step: " + "\n" + "Please enter a step lower than "
-						+ Math.round(o2ExchangeRatesData.size() / 2) + " .", "Sliding Average");
+			/* moving average entered by user */
+			int step = (Integer) movingO2ExchangeAverage.getValue();
+			if (!isValidStep(step, o2ExchangeRatesData)) {
 				return;
 			}
+			thresholdO2ExchangeAverage = step;
 			Main.logger.info("Display O2 Exchange Rates Curve");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 			Thread tb = new Thread() {
 				public void run() {
-					/* treat data to have a moving average */
-					int movingAverageIndex = 0;
-					List<Double[]> movingAverageExchangeData = new ArrayList<Double[]>();
-					/*
-					 * take every data between thresholdO2ExchangeAverage and
-					 * thresholdO2ExchangeAverage+o2ExchangeRatesData.size()
-					 */
-					for (int j = thresholdO2ExchangeAverage; j < o2ExchangeRatesData.size()
-							- thresholdO2ExchangeAverage; j++) {
-						Double[] currentLine = new Double[4];
-						/* treat each column */
-						for (int i = 0; i < 4; i++) {
-							if (i == 0) {
-								currentLine[i] = o2ExchangeRatesData.get(j)[i];
-							} else {
-								double value = 0;
-								/*
-								 * sum data surrounding our current value (-thresholdO2ExchangeAverage and
-								 * +thresholdO2ExchangeAverage)
-								 */
-								for (int k = -thresholdO2ExchangeAverage; k < thresholdO2ExchangeAverage + 1; k++) {
-									value += o2ExchangeRatesData.get(j + k)[i];
-								}
-								currentLine[i] = value / (2 * thresholdO2ExchangeAverage + 1);
-							}
-						}
-						movingAverageExchangeData.add(currentLine);
-						currentLine = null;
-						movingAverageIndex++;
-					}
+					/* treat data to have a moving average (updated row by row below) */
+					MovingAverage movingAverage = new MovingAverage(4, thresholdO2ExchangeAverage);
+					watch(ExperimentSession.Dataset.O2_EXCHANGE_RATES);
+					final ColumnStore averaged = o2ExchangeRatesData;
+					movingAverage.update(averaged.snapshot());
 
 					/* create a new window for the chart */
 					o2ExchangeRatesFrame = new JFrame("Oxygen Exchange Rates (Denoised) Curve");
@@ -3179,7 +2592,7 @@ public class Window extends JFrame {
 						heading.add("Value for T = ");
 						heading.add("Average between ");
 
-						chart = new DisplayCurve(movingAverageExchangeData, o2ExchangeRatesColumnName, 4, heading,
+						chart = new DisplayCurve(movingAverage.getData().snapshot(), o2ExchangeRatesColumnName, 4, heading,
 								"Oxygen Exchange Rates (Denoised)");
 						o2ExchangeRatesFrameOpen = true;
 					} catch (ParseException e) {
@@ -3194,14 +2607,10 @@ public class Window extends JFrame {
 					o2ExchangeRatesFrame.getContentPane().setBackground(Color.white);
 					o2ExchangeRatesFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * o2ExchangeRatesCurve button, until the thread had stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					o2ExchangeRatesFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							o2ExchangeRatesFrameOpen = false;
-							o2ExchangeRatesCurve.setEnabled(false);
 
 						}
 					});
@@ -3227,45 +2636,16 @@ public class Window extends JFrame {
 					o2ExchangeRatesFrame.pack();
 					o2ExchangeRatesFrame.setVisible(true);
 
-					/* reload the chart if new data arrived */
-					while (working && o2ExchangeRatesFrameOpen) {
-						try {
-							Thread.sleep(1500);
-							if (newO2ExchangeRatesData) {
-								/* treat each row until row =1+2 * thresholdO2ExchangeAverage */
-								while (1 + movingAverageIndex + 2 * thresholdO2ExchangeAverage < nbRow) {
-									Double[] currentLine = new Double[4];
-									/* same as before */
-									for (int i = 0; i < 4; i++) {
-										if (i == 0) {
-											currentLine[i] = o2ExchangeRatesData.get(movingAverageIndex + 1)[i];
-										} else {
-											double value = 0;
-											for (int k = -thresholdO2ExchangeAverage; k < thresholdO2ExchangeAverage
-													+ 1; k++) {
-												value += o2ExchangeRatesData.get(movingAverageIndex + 1 + k)[i];
-											}
-											currentLine[i] = value / (2 * thresholdO2ExchangeAverage + 1);
-										}
-									}
-									movingAverageExchangeData.add(currentLine);
-									currentLine = null;
-									movingAverageIndex++;
-								}
-								/* add new data */
-								chart.addData(movingAverageExchangeData, movingAverageIndex);
-								newO2ExchangeRatesData = false;
-							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
-						}
-					}
-					o2ExchangeRatesCurve.setEnabled(true);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = o2ExchangeRatesFrame;
+					refreshScheduler.subscribe(new AverageRefresh(frame, curve, movingAverage, averaged,
+							() -> o2ExchangeRatesData, () -> thresholdO2ExchangeAverage,
+							refreshScheduler::requestRefresh));
 				}
 			};
 			tb.start();
 			threads.add(tb);
-			oxygenThread = tb;
 		}
 	}
 
@@ -3285,8 +2665,8 @@ public class Window extends JFrame {
 			}
 			Main.logger.info("Display O2 Exchange Curve");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 			Thread tb = new Thread() {
 				public void run() {
@@ -3294,6 +2674,10 @@ public class Window extends JFrame {
 					o2ExchangeFrame = new JFrame("Oxygen Exchange (Denoised) Curve");
 					/* define the chart */
 					DisplayCurve chart = null;
+					/* rows already published, the next ones are added by each refresh */
+					watch(ExperimentSession.Dataset.O2_EXCHANGE);
+					ColumnStore source = o2ExchangeData;
+					ColumnStore initialData = source.snapshot();
 					/* create an object DisplayCurve, which contain the chart */
 					try {
 						List<String> heading = new ArrayList<String>();
@@ -3304,7 +2688,7 @@ public class Window extends JFrame {
 						heading.add("Value for T = ");
 						heading.add("Average between ");
 
-						chart = new DisplayCurve(o2ExchangeData, o2ExchangeColumnName, 4, heading,
+						chart = new DisplayCurve(initialData, o2ExchangeColumnName, 4, heading,
 								"Oxygen Exchange (Denoised)");
 						o2ExchangeFrameOpen = true;
 					} catch (ParseException e) {
@@ -3319,14 +2703,10 @@ public class Window extends JFrame {
 					o2ExchangeFrame.getContentPane().setBackground(Color.white);
 					o2ExchangeFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * o2ExchangeCurve button, until the thread had stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					o2ExchangeFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							o2ExchangeFrameOpen = false;
-							o2ExchangeCurve.setEnabled(false);
 
 						}
 					});
@@ -3352,21 +2732,11 @@ public class Window extends JFrame {
 					o2ExchangeFrame.pack();
 					o2ExchangeFrame.setVisible(true);
 
-					/* reload the chart if new data arrived */
-					while (working && o2ExchangeFrameOpen) {
-						try {
-							Thread.sleep(1500);
-							if (newO2ExchangeData) {
-								/* add new data */
-								chart.addData(o2ExchangeData, nbRow);
-								newO2ExchangeData = false;
-
-							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
-						}
-					}
-					o2ExchangeCurve.setEnabled(true);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = o2ExchangeFrame;
+					refreshScheduler
+							.subscribe(new DatasetRefresh(frame, curve, source, initialData, () -> o2ExchangeData));
 				}
 			};
 			tb.start();
@@ -3403,8 +2773,8 @@ public class Window extends JFrame {
 			}
 			Main.logger.info("Display Gas Exchange Rate Function Concentration Curve");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 			Thread tb = new Thread() {
 				public void run() {
@@ -3418,9 +2788,6 @@ public class Window extends JFrame {
 					gasExchangeRatesMolecule = (String) denoisedGasExchangeRatesMoleculeList.getSelectedItem();
 					gasConcentrationMolecule = (String) gasConcentrationMoleculeList.getSelectedItem();
 
-					/* arrayList containing the data for the curve */
-					gasExchangeRateFunctionConcentrationData = new ArrayList<Double[]>();
-
 					/* get the index of each two molecules in their corresponding data */
 					int indexgasExchangeRates = -1;
 					int indexgasConcentration = -1;
@@ -3443,7 +2810,11 @@ public class Window extends JFrame {
 						}
 					}
 					
-					Double[] line;
+					/* row being added (reused, the dataset copies the values) */
+					double[] line;
+					/* rates published so far, refreshed by the loop below, and their dataset */
+					ColumnStore rates;
+					ColumnStore ratesSource;
 					
 					/*know if we want oxygen exchange rates or not, in this case, special characteristic*/
 					if (gasExchangeRatesMolecule == "Oxygen Exchange Rates") {
@@ -3452,16 +2823,20 @@ public class Window extends JFrame {
 						gasExchangeRateFunctionConcentrationColumnName[1] = "Uo (µM / min)";
 						gasExchangeRateFunctionConcentrationColumnName[2] = "Eo (µM / min)";
 						gasExchangeRateFunctionConcentrationColumnName[3] = "Net (µM / min)";
+						/* dataset containing the data for the curve */
+						gasExchangeRateFunctionConcentrationData = new ColumnStore(4);
+						line = new double[4];
+						watch(ExperimentSession.Dataset.O2_EXCHANGE_RATES, ExperimentSession.Dataset.GAS_CONCENTRATION);
+						ratesSource = o2ExchangeRatesData;
+						rates = ratesSource.snapshot();
 
 						/* get our data if we want o2 in our curve */
-						for (int i = 0; i < nbRow - 1; i++) {
-							line = new Double[4];
-							line[0] = gasConcentrationData.get(i)[indexgasConcentration];
-							line[1] = o2ExchangeRatesData.get(i)[1];
-							line[2] = o2ExchangeRatesData.get(i)[2];
-							line[3] = o2ExchangeRatesData.get(i)[3];
-							gasExchangeRateFunctionConcentrationData.add(line);
-							line = null;
+						for (int i = 0; i < rates.getRowCount(); i++) {
+							line[0] = gasConcentrationData.get(i, indexgasConcentration);
+							line[1] = rates.get(i, 1);
+							line[2] = rates.get(i, 2);
+							line[3] = rates.get(i, 3);
+							gasExchangeRateFunctionConcentrationData.addRow(line);
 							indexgasExchangeRateFunctionConcentration++;
 						}
 						try {
@@ -3473,11 +2848,12 @@ public class Window extends JFrame {
 							heading.add("Value for Gas Concentration of " + gasConcentrationMolecule + " = ");
 							heading.add("Average between ");
 
-							/* create the object containing our chart */
+							/* create the object containing our chart (the concentration isn't ordered) */
 							chart = new DisplayCurve(gasExchangeRateFunctionConcentrationData,
 									gasExchangeRateFunctionConcentrationColumnName, 4, heading,
 									"V( Oxygen Exchange Rates ) = F(c("
-											+ gasExchangeRateFunctionConcentrationColumnName[0].split(" ")[0] + "))");
+											+ gasExchangeRateFunctionConcentrationColumnName[0].split(" ")[0] + "))",
+									false);
 							gasExchangeRateFunctionConcentrationFrameOpen = true;
 						} catch (ParseException e) {
 							Main.logger.severe(e.toString());
@@ -3489,13 +2865,16 @@ public class Window extends JFrame {
 						gasExchangeRateFunctionConcentrationColumnName = new String[2];
 						gasExchangeRateFunctionConcentrationColumnName[0] = gasConcentrationMolecule + " (µM)";
 						gasExchangeRateFunctionConcentrationColumnName[1] = gasExchangeRatesMolecule + " (µM / min)";
+						gasExchangeRateFunctionConcentrationData = new ColumnStore(2);
+						line = new double[2];
+						watch(ExperimentSession.Dataset.DENOISED_GAS_EXCHANGE_RATES, ExperimentSession.Dataset.GAS_CONCENTRATION);
+						ratesSource = denoisedGasExchangeRatesData;
+						rates = ratesSource.snapshot();
 						/* get our data */
-						for (int i = 0; i < nbRow - 1; i++) {
-							line = new Double[2];
-							line[0] = gasConcentrationData.get(i)[indexgasConcentration];
-							line[1] = denoisedGasExchangeRatesData.get(i)[indexgasExchangeRates];
-							gasExchangeRateFunctionConcentrationData.add(line);
-							line = null;
+						for (int i = 0; i < rates.getRowCount(); i++) {
+							line[0] = gasConcentrationData.get(i, indexgasConcentration);
+							line[1] = rates.get(i, indexgasExchangeRates);
+							gasExchangeRateFunctionConcentrationData.addRow(line);
 							indexgasExchangeRateFunctionConcentration++;
 						}
 						try {
@@ -3507,11 +2886,12 @@ public class Window extends JFrame {
 							heading.add("Value for Gas Concentration of " + gasConcentrationMolecule + " = ");
 							heading.add("Average between ");
 
-							/* create the object containing our chart */
+							/* create the object containing our chart (the concentration isn't ordered) */
 							chart = new DisplayCurve(gasExchangeRateFunctionConcentrationData,
 									gasExchangeRateFunctionConcentrationColumnName, 2, heading,
 									"V(" + gasExchangeRateFunctionConcentrationColumnName[1].split(" ")[0] + ") = F(c("
-											+ gasExchangeRateFunctionConcentrationColumnName[0].split(" ")[0] + "))");
+											+ gasExchangeRateFunctionConcentrationColumnName[0].split(" ")[0] + "))",
+									false);
 							gasExchangeRateFunctionConcentrationFrameOpen = true;
 						} catch (ParseException e) {
 							Main.logger.severe(e.toString());
@@ -3526,15 +2906,10 @@ public class Window extends JFrame {
 					gasExchangeRateFunctionConcentrationFrame.getContentPane().setBackground(Color.white);
 					gasExchangeRateFunctionConcentrationFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * gasExchangeRateFunctionConcentrationCurve button, until the thread had
-					 * stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					gasExchangeRateFunctionConcentrationFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							gasExchangeRateFunctionConcentrationFrameOpen = false;
-							gasExchangeRateFunctionConcentrationCurve.setEnabled(false);
 
 						}
 					});
@@ -3561,46 +2936,82 @@ public class Window extends JFrame {
 					gasExchangeRateFunctionConcentrationFrame.pack();
 					gasExchangeRateFunctionConcentrationFrame.setVisible(true);
 
-					/* reload the chart if new data arrived */
-					while (working && gasExchangeRateFunctionConcentrationFrameOpen) {
-						try {
-							Thread.sleep(1500);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = gasExchangeRateFunctionConcentrationFrame;
+					final int concentrationColumn = indexgasConcentration;
+					final int ratesColumn = indexgasExchangeRates;
+					final int initialRow = indexgasExchangeRateFunctionConcentration;
+					final double[] row = line;
+					final boolean oxygen = gasExchangeRatesMolecule == "Oxygen Exchange Rates";
+					final ColumnStore functionData = gasExchangeRateFunctionConcentrationData;
+					final ColumnStore shownRates = ratesSource;
+					refreshScheduler.subscribe(new ChartRefreshScheduler.Subscriber() {
+						/* rows already added to data */
+						private int nbRow = initialRow;
+						private ColumnStore data = functionData;
+						/* rates shown (replaced when computed with other parameters) */
+						private ColumnStore source = shownRates;
+
+						public boolean refresh() {
+							/* the frame was closed (or the chart opened again in an other frame) */
+							if (!frame.isVisible()) {
+								return false;
+							}
+							/* both datasets from the same session */
+							ExperimentSession experiment = session;
+							if (experiment == null) {
+								return false;
+							}
+							ColumnStore ratesData = oxygen ? experiment.o2ExchangeRatesData
+									: experiment.denoisedGasExchangeRatesData;
+							boolean recomputed = ratesData != source;
+							if (recomputed) {
+								/* other columns (H2O or Ci changed): the chart is being closed */
+								if (ratesData.getColumnCount() != source.getColumnCount()) {
+									return true;
+								}
+								/* computed again with other parameters: every row changed */
+								source = ratesData;
+								data = new ColumnStore(data.getColumnCount());
+								gasExchangeRateFunctionConcentrationData = data;
+								nbRow = 0;
+							}
+							ColumnStore rates = ratesData.snapshot();
+							ColumnStore concentrations = experiment.gasConcentrationData;
 							/* if new data */
-							if (newGasExchangeRateFunctionConcentrationData) {
+							if (nbRow < rates.getRowCount()) {
 								/*if oxygen*/
-								if (gasExchangeRatesMolecule == "Oxygen Exchange Rates") {
-									for (int i = indexgasExchangeRateFunctionConcentration; i < nbRow - 1; i++) {
-										line = new Double[4];
-										line[0] = gasConcentrationData.get(i)[indexgasConcentration];
-										line[1] = o2ExchangeRatesData.get(i)[1];
-										line[2] = o2ExchangeRatesData.get(i)[2];
-										line[3] = o2ExchangeRatesData.get(i)[3];
-										gasExchangeRateFunctionConcentrationData.add(line);
-										line = null;
-										indexgasExchangeRateFunctionConcentration++;
+								if (oxygen) {
+									for (int i = nbRow; i < rates.getRowCount(); i++) {
+										row[0] = concentrations.get(i, concentrationColumn);
+										row[1] = rates.get(i, 1);
+										row[2] = rates.get(i, 2);
+										row[3] = rates.get(i, 3);
+										data.addRow(row);
+										nbRow++;
 									}
 								}/*else*/ 
 								else {
-									for (int i = indexgasExchangeRateFunctionConcentration; i < nbRow - 1; i++) {
-										line = new Double[2];
-										line[0] = gasConcentrationData.get(i)[indexgasConcentration];
-										line[1] = denoisedGasExchangeRatesData.get(i)[indexgasExchangeRates];
-										gasExchangeRateFunctionConcentrationData.add(line);
-										line = null;
-										indexgasExchangeRateFunctionConcentration++;
+									for (int i = nbRow; i < rates.getRowCount(); i++) {
+										row[0] = concentrations.get(i, concentrationColumn);
+										row[1] = rates.get(i, ratesColumn);
+										data.addRow(row);
+										nbRow++;
 									}
 								}
 
 								/* add new data */
-								chart.addData(gasExchangeRateFunctionConcentrationData, nbRow - 1);
-								newGasExchangeRateFunctionConcentrationData = false;
-
+								if (!recomputed) {
+									curve.addData(data.snapshot(), nbRow);
+								}
 							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
+							if (recomputed) {
+								curve.replaceData(data.snapshot());
+							}
+							return true;
 						}
-					}
-					gasExchangeRateFunctionConcentrationCurve.setEnabled(true);
+					});
 				}
 			};
 			tb.start();
@@ -3622,8 +3033,8 @@ public class Window extends JFrame {
 			}
 			Main.logger.info("Display Hydrogenase Activity Curve");
 			/*
-			 * create a thread so that the chart will be updated each time a data arrived
-			 * (newData)
+			 * create the chart in a thread (the first pass over the data can be long), it
+			 * then subscribes to the refresh scheduler to be updated when data arrive
 			 */
 			Thread tb = new Thread() {
 				public void run() {
@@ -3631,6 +3042,10 @@ public class Window extends JFrame {
 					hydrogenaseActivityFrame = new JFrame("Hydrogenase Activity Curve");
 					/* define the chart */
 					DisplayCurve chart = null;
+					/* rows already published, the next ones are added by each refresh */
+					watch(ExperimentSession.Dataset.HYDROGENASE_ACTIVITY);
+					ColumnStore source = hydrogenaseActivityData;
+					ColumnStore initialData = source.snapshot();
 					/* create an object DisplayCurve, which contain the chart */
 					try {
 						List<String> heading = new ArrayList<String>();
@@ -3641,7 +3056,7 @@ public class Window extends JFrame {
 						heading.add("Value for T = ");
 						heading.add("Average between ");
 
-						chart = new DisplayCurve(hydrogenaseActivityData, hydrogenaseActivityColumnName, 2, heading,
+						chart = new DisplayCurve(initialData, hydrogenaseActivityColumnName, 2, heading,
 								"Hydrogenase Activity Curve");
 						hydrogenaseActivityFrameOpen = true;
 					} catch (ParseException e) {
@@ -3656,14 +3071,10 @@ public class Window extends JFrame {
 					hydrogenaseActivityFrame.getContentPane().setBackground(Color.white);
 					hydrogenaseActivityFrame.setIconImage(img.getImage());
 
-					/*
-					 * when we close the frame, we stopped the thread and disable the
-					 * hydrogenaseActivityCurve button, until the thread had stopped
-					 */
+					/* when we close the frame, the refresh scheduler forgets the chart */
 					hydrogenaseActivityFrame.addWindowListener(new WindowAdapter() {
 						public void windowClosing(WindowEvent e) {
 							hydrogenaseActivityFrameOpen = false;
-							hydrogenaseActivityCurve.setEnabled(false);
 
 						}
 					});
@@ -3690,21 +3101,11 @@ public class Window extends JFrame {
 					hydrogenaseActivityFrame.pack();
 					hydrogenaseActivityFrame.setVisible(true);
 
-					/* reload the chart if new data arrived */
-					while (working && hydrogenaseActivityFrameOpen) {
-						try {
-							Thread.sleep(1500);
-							if (newHydrogenaseActivityData) {
-								/* add new data */
-								chart.addData(hydrogenaseActivityData, nbRow - 1);
-								newHydrogenaseActivityData = false;
-
-							}
-						} catch (InterruptedException e) {
-							Main.logger.severe(e.toString());
-						}
-					}
-					hydrogenaseActivityCurve.setEnabled(true);
+					/* reload the chart each time the refresh scheduler is warned that new data arrived */
+					final DisplayCurve curve = chart;
+					final JFrame frame = hydrogenaseActivityFrame;
+					refreshScheduler.subscribe(
+							new DatasetRefresh(frame, curve, source, initialData, () -> hydrogenaseActivityData));
 				}
 			};
 			tb.start();
@@ -3729,27 +3130,33 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Define the xls/xlsx filter for the JFileChooser
+	 * Define the filter of an export format for the JFileChooser
 	 */
-	class XlsFilter extends javax.swing.filechooser.FileFilter {
+	class ExportFilter extends javax.swing.filechooser.FileFilter {
+		final ExportFormat format;
+
+		ExportFilter(ExportFormat format) {
+			this.format = format;
+		}
+
 		public String getDescription() {
-			return ".xls or .xlsx";
+			return format.description;
 		}
 
 		public boolean accept(File f) {
-			return (f.isDirectory() || f.getAbsolutePath().endsWith(".xls") || f.getAbsolutePath().endsWith(".xlsx"));
+			return (f.isDirectory() || format.accept(f.getAbsolutePath()));
 		}
 
 	}
 
 	/**
-	 * The 10 following class are action which save corresponding data to an xlsx
-	 * file with the function savedataToExcel The code between each one look really
+	 * The 10 following class are action which save corresponding data to a file
+	 * with the function saveData The code between each one look really
 	 * like the same.
 	 */
 
 	/**
-	 * Save the amperometric/time Data in an xlsx file
+	 * Save the amperometric/time Data in a file
 	 */
 	class SaveAmperometricData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -3760,8 +3167,8 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(amperometricColumnName, amperometricData);
+				/* save data thanks to the saveData function */
+				saveData(amperometricColumnName, amperometricData, amperometricFrame);
 				Main.logger.info("Save Amperometric data");
 
 			} catch (Exception e1) {
@@ -3776,7 +3183,7 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Save the gasConcentration/time Data in an xlsx file
+	 * Save the gasConcentration/time Data in a file
 	 */
 	class SaveGasConcentrationData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -3787,8 +3194,8 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(gasConcentrationColumnName, gasConcentrationData);
+				/* save data thanks to the saveData function */
+				saveData(gasConcentrationColumnName, gasConcentrationData, gasConcentrationFrame);
 				Main.logger.info("Save Gas Concentration Data");
 
 			} catch (Exception e1) {
@@ -3803,7 +3210,7 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Save the cumulatedGasExchange/time Data in an xlsx file
+	 * Save the cumulatedGasExchange/time Data in a file
 	 */
 	class SaveCumulatedGasExchangeData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -3814,8 +3221,8 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(gasConcentrationColumnName, cumulatedGasExchangeData);
+				/* save data thanks to the saveData function */
+				saveData(gasConcentrationColumnName, cumulatedGasExchangeData, cumulatedGasExchangeFrame);
 				Main.logger.info("Save Cumulated Gas Exchange Data");
 
 			} catch (Exception e1) {
@@ -3830,7 +3237,7 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Save the gasExchangeRate/time Data in an xlsx file
+	 * Save the gasExchangeRate/time Data in a file
 	 */
 	class SaveGasExchangeRatesData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -3841,8 +3248,8 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(gasExchangeRatesColumnName, gasExchangeRatesData);
+				/* save data thanks to the saveData function */
+				saveData(gasExchangeRatesColumnName, gasExchangeRatesData, gasExchangeRatesFrame);
 				Main.logger.info("Save Gas Exchange Rates Data");
 
 			} catch (Exception e1) {
@@ -3857,7 +3264,7 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Save the DenoisedcumulatedGasExchange/time Data in an xlsx file
+	 * Save the DenoisedcumulatedGasExchange/time Data in a file
 	 */
 	class SaveDenoisedCumulatedGasExchangeData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -3868,8 +3275,9 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(denoisedCumulatedGasExchangeColumnName, denoisedCumulatedGasExchangeData);
+				/* save data thanks to the saveData function */
+				saveData(denoisedCumulatedGasExchangeColumnName, denoisedCumulatedGasExchangeData,
+						denoisedCumulatedGasExchangeFrame);
 				Main.logger.info("Save Denoised Cumulated Gas Exchange Data");
 
 			} catch (Exception e1) {
@@ -3884,7 +3292,7 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Save the denoisedGasExchangeRate/time Data in an xlsx file
+	 * Save the denoisedGasExchangeRate/time Data in a file
 	 */
 	class SaveDenoisedGasExchangeRatesData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -3895,8 +3303,9 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(denoisedGasExchangeRatesColumnName, denoisedGasExchangeRatesData);
+				/* save data thanks to the saveData function */
+				saveData(denoisedGasExchangeRatesColumnName, denoisedGasExchangeRatesData,
+						denoisedGasExchangeRatesFrame);
 				Main.logger.info("Save Denoised Gas Exchange Rates Data");
 
 			} catch (Exception e1) {
@@ -3911,7 +3320,7 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Save the O2ExchangeRates/time Data in an xlsx file
+	 * Save the O2ExchangeRates/time Data in a file
 	 */
 	class SaveO2ExchangeRatesData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -3922,8 +3331,8 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(o2ExchangeRatesColumnName, o2ExchangeRatesData);
+				/* save data thanks to the saveData function */
+				saveData(o2ExchangeRatesColumnName, o2ExchangeRatesData, o2ExchangeRatesFrame);
 				Main.logger.info("Save O2 Exchange Rates Data");
 
 			} catch (Exception e1) {
@@ -3938,7 +3347,7 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Save the O2ExchangeData/time Data in an xlsx file
+	 * Save the O2ExchangeData/time Data in a file
 	 */
 	class SaveO2ExchangeData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -3949,8 +3358,8 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(o2ExchangeColumnName, o2ExchangeData);
+				/* save data thanks to the saveData function */
+				saveData(o2ExchangeColumnName, o2ExchangeData, o2ExchangeFrame);
 				Main.logger.info("Save O2 Exchange Data");
 
 			} catch (Exception e1) {
@@ -3965,7 +3374,7 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Save the gasExchangeRateFunctionConcentration Data in an xlsx file
+	 * Save the gasExchangeRateFunctionConcentration Data in a file
 	 */
 	class SaveGasExchangeRateFunctionConcentrationData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -3976,9 +3385,9 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(gasExchangeRateFunctionConcentrationColumnName,
-						gasExchangeRateFunctionConcentrationData);
+				/* save data thanks to the saveData function */
+				saveData(gasExchangeRateFunctionConcentrationColumnName,
+						gasExchangeRateFunctionConcentrationData, gasExchangeRateFunctionConcentrationFrame);
 				Main.logger.info("Save Gas Exchange Rate Function Concentration Data");
 
 			} catch (Exception e1) {
@@ -3993,7 +3402,7 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Save the HydrogenaseActivity/time Data in an xlsx file
+	 * Save the HydrogenaseActivity/time Data in a file
 	 */
 	class SaveHydrogenaseActivityData extends AbstractAction {
 		private static final long serialVersionUID = 1L;
@@ -4004,8 +3413,8 @@ public class Window extends JFrame {
 
 		public void actionPerformed(ActionEvent e) {
 			try {
-				/* save data thanks to the saveDataToexcel function */
-				saveDataToExcel(hydrogenaseActivityColumnName, hydrogenaseActivityData);
+				/* save data thanks to the saveData function */
+				saveData(hydrogenaseActivityColumnName, hydrogenaseActivityData, hydrogenaseActivityFrame);
 				Main.logger.info("Save Hydrogenase Activity Data");
 
 			} catch (Exception e1) {
@@ -4020,24 +3429,95 @@ public class Window extends JFrame {
 	}
 
 	/**
-	 * Function to save data in an xlsx file
+	 * Check that a step of moving average leaves at least one averaged row, warn
+	 * the user otherwise
+	 *
+	 * @param step:  step entered by the user
+	 * @param rates: rates to average
+	 */
+	private boolean isValidStep(int step, ColumnStore rates) {
+		if (2 * step >= rates.getRowCount()) {
+			Main.logger.info("Step: " + step + " to big for Moving Average (max: "
+					+ Math.round(rates.getRowCount() / 2) + " )");
+			infoBox(Window.this, "Wrong step: " + "\n" + "Please enter a step lower than "
+					+ Math.round(rates.getRowCount() / 2) + " .", "Sliding Average");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Apply the step entered in a JSpinner to the open chart of the corresponding
+	 * moving average: its next refresh averages the rates again in the background
+	 * and replaces the curves (see AverageRefresh), instead of closing the frame
+	 * and opening a new chart
+	 */
+	class MovingAverageStepChange implements ChangeListener {
+		public void stateChanged(ChangeEvent e) {
+			int step = (Integer) ((JSpinner) e.getSource()).getValue();
+			if (e.getSource() == movingGasExchangeRatesAverage && gasExchangeRatesFrameOpen) {
+				if (isValidStep(step, gasExchangeRatesData)) {
+					thresholdGasExchangeRatesAverage = step;
+				}
+			} else if (e.getSource() == movingDenoisedGasExchangeRatesAverage && denoisedGasExchangeRatesFrameOpen) {
+				if (isValidStep(step, denoisedGasExchangeRatesData)) {
+					thresholdDenoisedGasExchangeRates = step;
+				}
+			} else if (e.getSource() == movingO2ExchangeAverage && o2ExchangeRatesFrameOpen) {
+				if (isValidStep(step, o2ExchangeRatesData)) {
+					thresholdO2ExchangeAverage = step;
+				}
+			}
+			/* the chart applies the new step at its next refresh, without waiting for new data */
+			refreshScheduler.requestRefresh();
+		}
+	}
+
+	/**
+	 * Function to save data in a file, in the format chosen by the user (xlsx,
+	 * csv or binary columns, see ExportFormat): the file is written in the
+	 * background (see ExportTask)
 	 * 
 	 * @param columns:
 	 *            title of the columns of the file
 	 * @param data:
 	 *            data to save in the file
+	 * @param parent:
+	 *            frame of the chart, where the progress and the errors are shown
 	 * @throws IOException
-	 * @throws InvalidFormatException
 	 **/
-	public void saveDataToExcel(String[] columns, List<Double[]> data) throws IOException, InvalidFormatException {
+	public void saveData(String[] columns, ColumnStore data, Component parent) throws IOException {
 		Main.logger.info("Saving Data");
+		/*
+		 * rows published when asked: the file stays consistent while new rows arrive
+		 * during the choice of the file and the export
+		 */
+		data = data.snapshot();
+		String path = chooseSaveFile("Save the data", ExportFormat.values());
+		if (path != null) {
+			new ExportTask(parent, path, ExportFormat.of(path), columns, data).execute();
+		}
+	}
+
+	/**
+	 * Ask the user the file to save data in
+	 *
+	 * @param title:   title of the dialog
+	 * @param formats: the formats proposed, the first one by default
+	 * @return the path of the file, ending with the extension of one of the
+	 *         formats, null if the user cancelled
+	 */
+	private String chooseSaveFile(String title, ExportFormat... formats) {
 		/*
 		 * open a new File chooser, so the user chose where to save the data (savePath
 		 * is already in memory)
 		 */
 		JFileChooser fc = new JFileChooser(savePath);
-		fc.setDialogTitle("Save the data in xlsx");
-		fc.addChoosableFileFilter(new XlsFilter());
+		fc.setDialogTitle(title);
+		for (ExportFormat format : formats) {
+			fc.addChoosableFileFilter(new ExportFilter(format));
+		}
+		fc.setFileFilter(fc.getChoosableFileFilters()[0]);
 		fc.setAcceptAllFileFilterUsed(false);
 		/* if the user have choose the save file or folder */
 		if (fc.showSaveDialog(Window.this) == JFileChooser.APPROVE_OPTION) {
@@ -4064,66 +3544,84 @@ public class Window extends JFrame {
 			}
 
 			/*
-			 * if the user didn't choose an existing file, had .xlsx at the the end of the
-			 * path if necessary
+			 * if the user didn't choose an existing file, had the extension of the chosen
+			 * format at the the end of the path if necessary
 			 */
-			if (path.endsWith(".xls") == false && path.endsWith(".xlsx") == false) {
-				path = path + ".xlsx";
+			for (ExportFormat format : formats) {
+				if (format.accept(path)) {
+					return path;
+				}
 			}
+			return path + "." + ((ExportFilter) fc.getFileFilter()).format.extension;
+		}
+		return null;
+	}
 
-			/* Create a Workbook */
-			Workbook workbook = new XSSFWorkbook(); // new HSSFWorkbook() for generating `.xls` file
-
-			/* Create a Sheet */
-			Sheet sheet = workbook.createSheet("Data Saved");
-
-			/* Create a Font for styling header cells */
-			org.apache.poi.ss.usermodel.Font headerFont = workbook.createFont();
-			headerFont.setBold(true);
-			headerFont.setFontHeightInPoints((short) 14);
-			headerFont.setColor(IndexedColors.RED.getIndex());
-
-			/* Create a CellStyle with the font */
-			CellStyle headerCellStyle = workbook.createCellStyle();
-			headerCellStyle.setFont((org.apache.poi.ss.usermodel.Font) headerFont);
+	/**
+	 * Save every dataset of the experiment in the sheets of one xlsx file (or in a
+	 * file per dataset in the other formats), action in the JMenuBar
+	 */
+	class ExportAll extends AbstractAction {
+		private static final long serialVersionUID = 1L;
 
-			/* Create the first Row */
-			Row headerRow = sheet.createRow(0);
+		public ExportAll(String s) {
+			super(s);
+		}
 
-			/* Create the first line of cells with columns */
-			for (int i = 0; i < columns.length; i++) {
-				Cell cell = headerRow.createCell(i);
-				cell.setCellValue(columns[i]);
-				cell.setCellStyle(headerCellStyle);
+		public void actionPerformed(ActionEvent e) {
+			final ExperimentSession experiment = session;
+			if (experiment == null) {
+				infoBox(Window.this, "Please open a data file first !", "Saving");
+				return;
 			}
-
-			/* Create Other rows and cells */
-			int rowNum = 1;
-			/* create the rows */
-			for (int i = 0; i < data.size(); i++) {
-				Row row = sheet.createRow(rowNum++);
-				/* create the cells of each row */
-				for (int j = 0; j < columns.length; j++) {
-					/* create a cell with the corresponding data */
-					row.createCell(j).setCellValue(data.get(i)[j]);
-				}
+			String path = chooseSaveFile("Save every dataset", ExportFormat.values());
+			if (path == null) {
+				return;
 			}
+			Main.logger.info("Save every dataset in " + path);
+			/* the rate as a function of a concentration, as shown by its chart if opened */
+			final String[] functionColumns = gasExchangeRateFunctionConcentrationColumnName;
+			ColumnStore function = gasExchangeRateFunctionConcentrationData;
+			final ColumnStore functionData = gasExchangeRateFunctionConcentrationFrameOpen && function != null
+					? function.snapshot()
+					: null;
+			new ExportTask(Window.this, path, ExportFormat.of(path),
+					() -> exportTables(experiment, functionColumns, functionData)).execute();
+		}
+	}
 
-			/* Resize all columns to fit the content size */
-			for (int i = 0; i < columns.length; i++) {
-				sheet.autoSizeColumn(i);
+	/**
+	 * Sheets of the export of every dataset available in the experiment: the
+	 * datasets no chart has shown are computed (see ExperimentSession.activate),
+	 * and every dataset is taken at the same row
+	 *
+	 * @param experiment:      the experiment
+	 * @param functionColumns: title of the columns of the rate as a function of a
+	 *                         concentration
+	 * @param functionData:    the rate as a function of a concentration, null if
+	 *                         its chart isn't opened
+	 */
+	private static List<ExcelExport.Table> exportTables(ExperimentSession experiment, String[] functionColumns,
+			ColumnStore functionData) {
+		List<ExperimentSession.Dataset> available = new ArrayList<ExperimentSession.Dataset>();
+		for (ExperimentSession.Dataset dataset : ExperimentSession.Dataset.values()) {
+			if (experiment.isAvailable(dataset)) {
+				available.add(dataset);
 			}
-
-			/* Write the output to the file, with the path */
-			FileOutputStream fileOut = new FileOutputStream(path);
-			workbook.write(fileOut);
-			fileOut.close();
-
-			/* Closing the workbook */
-			workbook.close();
-			Main.logger.info("Data Saved");
 		}
-
+		Map<ExperimentSession.Dataset, ColumnStore> snapshots = experiment.snapshot(available);
+		List<ExcelExport.Table> tables = new ArrayList<ExcelExport.Table>();
+		for (ExperimentSession.Dataset dataset : available) {
+			tables.add(new ExcelExport.Table(dataset.fileName, experiment.getColumnNames(dataset),
+					snapshots.get(dataset)));
+		}
+		if (functionData != null) {
+			/* after the O2 exchange, before the hydrogenase activity */
+			int index = available.contains(ExperimentSession.Dataset.HYDROGENASE_ACTIVITY) ? tables.size() - 1
+					: tables.size();
+			tables.add(index, new ExcelExport.Table("rateFunctionOfConcentration", functionColumns, functionData));
+		}
+		return tables;
 	}
 
 	/*
@@ -0,0 +1,97 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchTest {
+
+	/* a copy of the example file, so its binary copy (see SidecarCache) isn't written in the sources */
+	private static String copyExample(Path folder) throws IOException {
+		Path data = folder.resolve("Data_File_exemple.csv");
+		Files.copy(Paths.get("Data_File_exemple.csv"), data, StandardCopyOption.REPLACE_EXISTING);
+		return data.toString();
+	}
+
+	@Test
+	void treatsTheExampleFilesWithoutWindow(@TempDir Path folder) throws IOException, ParseException {
+		Batch.Options options = Batch.parseArguments(new String[] { "-factor", "Factor_File_exemple.csv", "-data",
+				copyExample(folder), "-noCi" }, new Properties());
+		Map<Integer, String[]> factor = FactorFile.read(options.factorAddress);
+		ExperimentSession session = Batch.read(options.dataAddress, factor, options);
+
+		/* every line but the header is a row, the rates need two rows */
+		int nbRow = Files.readAllLines(Paths.get("Data_File_exemple.csv"), StandardCharsets.ISO_8859_1).size() - 1;
+		assertEquals(nbRow, session.getRowCount());
+		assertEquals(nbRow, session.gasConcentrationData.getRowCount());
+		assertEquals(nbRow - 1, session.gasExchangeRatesData.getRowCount());
+		assertEquals(nbRow - 1, session.denoisedGasExchangeRatesData.getRowCount());
+		/* 32 and 36 are measured: the O2 exchange is calculated */
+		assertTrue(session.o2Exchange);
+		assertEquals(nbRow, session.o2ExchangeData.getRowCount());
+		/* row r of the rates has the time of row r of the concentrations */
+		assertEquals(session.gasConcentrationData.get(5, 0), session.gasExchangeRatesData.get(5, 0));
+	}
+
+	@Test
+	void writesTheChosenDatasets(@TempDir Path folder) throws IOException, ParseException {
+		Batch.Options options = Batch.parseArguments(new String[] { "-factor", "Factor_File_exemple.csv", "-data",
+				copyExample(folder), "-output", folder.toString(), "-datasets",
+				"gasConcentration,hydrogenaseActivity" }, new Properties());
+		ExperimentSession session = Batch.read(options.dataAddress, FactorFile.read(options.factorAddress), options);
+		List<String> paths = Batch.write(session, options.dataAddress, options);
+
+		/* H2, HD and D2 aren't measured: no hydrogenase activity */
+		assertEquals(1, paths.size());
+		assertEquals(new File(folder.toFile(), "Data_File_exemple_gasConcentration.xlsx").getPath(), paths.get(0));
+		assertTrue(Files.size(Paths.get(paths.get(0))) > 0);
+	}
+
+	@Test
+	void rejectsUnknownDatasets() {
+		assertThrows(IllegalArgumentException.class, () -> Batch.parseArguments(
+				new String[] { "-factor", "f.csv", "-data", "d.csv", "-datasets", "rates" }, new Properties()));
+	}
+
+	@Test
+	void treatsAFolderInParallelAndReportsEachFile(@TempDir Path folder) throws IOException {
+		Files.copy(Paths.get("Data_File_exemple.csv"), folder.resolve("run1.csv"), StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(Paths.get("Data_File_exemple.csv"), folder.resolve("run2.csv"), StandardCopyOption.REPLACE_EXISTING);
+		Files.write(folder.resolve("broken.csv"), "Time&Date;$Flags$;32;\nnot a row\n".getBytes(StandardCharsets.US_ASCII));
+		Files.write(folder.resolve("notes.txt"), "not a data file".getBytes(StandardCharsets.US_ASCII));
+		Batch.Options options = Batch.parseArguments(new String[] { "-factor", "Factor_File_exemple.csv", "-data",
+				folder.toString(), "-datasets", "o2Exchange", "-threads", "2" }, new Properties());
+
+		List<String> dataFiles = Batch.dataFiles(options);
+		assertEquals(3, dataFiles.size());
+		List<Batch.Result> results = Batch.processAll(dataFiles, FactorFile.read(options.factorAddress), options);
+
+		/* sorted by name: broken, run1, run2; the broken file doesn't stop the others */
+		assertTrue(results.get(0).error != null);
+		for (Batch.Result result : results.subList(1, 3)) {
+			assertEquals(null, result.error);
+			assertEquals(239, result.nbRow);
+			assertEquals(1, result.paths.size());
+		}
+		assertTrue(Files.exists(folder.resolve("run2_o2Exchange.xlsx")));
+
+		/* a pattern on the file names */
+		options.dataAddress = folder.toString() + File.separator + "run?.csv";
+		assertEquals(2, Batch.dataFiles(options).size());
+	}
+}
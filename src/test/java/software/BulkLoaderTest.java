@@ -0,0 +1,99 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BulkLoaderTest {
+
+	private static ExperimentSession newSession(Map<Integer, String[]> factor, String header) {
+		ExperimentSession session = new ExperimentSession(Window.parseDataLine(header), factor,
+				ExperimentSession.denoisedMass(factor), true, true, 6.3, 10.3, 1);
+		session.activate(ExperimentSession.Dataset.values());
+		return session;
+	}
+
+	private static void assertSameRows(ColumnStore expected, ColumnStore actual) {
+		assertEquals(expected.getRowCount(), actual.getRowCount());
+		for (int row = 0; row < expected.getRowCount(); row++) {
+			for (int column = 0; column < expected.getColumnCount(); column++) {
+				assertEquals(expected.get(row, column), actual.get(row, column), "row " + row + ", column " + column);
+			}
+		}
+	}
+
+	@Test
+	void parallelLoadGivesTheRowsOfTheRowByRowReading() throws IOException, ParseException {
+		Map<Integer, String[]> factor = FactorFile.read("Factor_File_exemple.csv");
+		ExperimentSession rowByRow;
+		long headerEnd;
+		try (DataFileTailer fichier = new DataFileTailer("Data_File_exemple.csv", false)) {
+			fichier.nextLine();
+			headerEnd = fichier.linePosition();
+			rowByRow = newSession(factor, fichier.lineString());
+			while (fichier.nextLine()) {
+				rowByRow.addRow(fichier.lineChars(), fichier.lineLength());
+			}
+		}
+		String header = Files.readAllLines(Paths.get("Data_File_exemple.csv"), StandardCharsets.ISO_8859_1).get(0);
+
+		/* small parts: the file is cut in many blocks treated in parallel */
+		ExperimentSession bulk = newSession(factor, header);
+		long end = BulkLoader.load(bulk, "Data_File_exemple.csv", headerEnd, 512);
+		assertEquals(Files.size(Paths.get("Data_File_exemple.csv")), end);
+		for (ExperimentSession.Dataset dataset : ExperimentSession.Dataset.values()) {
+			assertSameRows(rowByRow.getData(dataset), bulk.getData(dataset));
+		}
+	}
+
+	@Test
+	void stopsAtTheLastCompleteLineAndFollowsFromIt(@TempDir Path folder) throws IOException, ParseException {
+		Map<Integer, String[]> factor = FactorFile.read("Factor_File_exemple.csv");
+		byte[] content = Files.readAllBytes(Paths.get("Data_File_exemple.csv"));
+		/* the MIMS is writing the last row */
+		Path data = folder.resolve("data.csv");
+		Files.write(data, Arrays.copyOf(content, content.length - 10));
+		String header = Files.readAllLines(data, StandardCharsets.ISO_8859_1).get(0);
+
+		ExperimentSession session = newSession(factor, header);
+		int nbRow = Files.readAllLines(Paths.get("Data_File_exemple.csv"), StandardCharsets.ISO_8859_1).size() - 1;
+		try (DataFileTailer fichier = new DataFileTailer(data.toString(), false)) {
+			fichier.nextLine();
+			fichier.seek(BulkLoader.load(session, data.toString(), fichier.linePosition(), 1024));
+			assertEquals(nbRow - 1, session.getRowCount());
+
+			/* the end of the last row arrives: it follows the loaded ones */
+			Files.write(data, content);
+			fichier.nextLine();
+			session.addRow(fichier.lineChars(), fichier.lineLength());
+		}
+		assertEquals(nbRow, session.getRowCount());
+		assertEquals(nbRow - 1, session.gasExchangeRatesData.getRowCount());
+	}
+
+	@Test
+	void addsTheRowsBeforeAWrongOne(@TempDir Path folder) throws IOException {
+		Map<Integer, String[]> factor = FactorFile.read("Factor_File_exemple.csv");
+		java.util.List<String> lines = Files.readAllLines(Paths.get("Data_File_exemple.csv"),
+				StandardCharsets.ISO_8859_1);
+		lines.set(100, "not a row");
+		Path data = folder.resolve("data.csv");
+		Files.write(data, lines, StandardCharsets.ISO_8859_1);
+
+		ExperimentSession session = newSession(factor, lines.get(0));
+		long headerEnd = lines.get(0).length() + 1;
+		assertThrows(RuntimeException.class, () -> BulkLoader.load(session, data.toString(), headerEnd, 512));
+		assertEquals(99, session.getRowCount());
+	}
+}
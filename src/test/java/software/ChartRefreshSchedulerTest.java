@@ -0,0 +1,58 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ChartRefreshSchedulerTest {
+
+	@Test
+	void mergesTheWarningsOfOneFrame() throws InterruptedException {
+		/* one refresh per second at most */
+		ChartRefreshScheduler scheduler = new ChartRefreshScheduler(1);
+		AtomicInteger refreshes = new AtomicInteger();
+		CountDownLatch first = new CountDownLatch(1);
+		CountDownLatch second = new CountDownLatch(2);
+		scheduler.subscribe(() -> {
+			refreshes.incrementAndGet();
+			first.countDown();
+			second.countDown();
+			return true;
+		});
+
+		/* no refresh for a second: the first warning is refreshed at once */
+		scheduler.requestRefresh();
+		assertTrue(first.await(5, TimeUnit.SECONDS));
+		long start = System.nanoTime();
+		/* these warnings fall in the same frame, they are refreshed once, a second later */
+		for (int i = 0; i < 50; i++) {
+			scheduler.requestRefresh();
+		}
+		assertTrue(second.await(5, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(500));
+		Thread.sleep(200);
+		assertEquals(2, refreshes.get());
+	}
+
+	@Test
+	void forgetsClosedCharts() throws InterruptedException {
+		ChartRefreshScheduler scheduler = new ChartRefreshScheduler(100);
+		CountDownLatch refreshed = new CountDownLatch(1);
+		scheduler.subscribe(() -> {
+			refreshed.countDown();
+			return false;
+		});
+		scheduler.requestRefresh();
+		assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+		/* the subscriber is removed once its refresh returned */
+		for (int i = 0; i < 100 && scheduler.getSubscriberCount() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, scheduler.getSubscriberCount());
+	}
+}
@@ -0,0 +1,111 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ColumnPlanTest {
+
+	private static final double PKA1 = 6.35;
+	private static final double PKA2 = 10.33;
+
+	private static Map<Integer, String[]> factor;
+
+	/**
+	 * Factor file example, read as Window does (empty cells set to 1, second
+	 * molecule of a M/Z at -M/Z)
+	 */
+	@BeforeAll
+	static void readFactorFile() throws IOException {
+		factor = new HashMap<>();
+		List<String> lines = Files.readAllLines(Paths.get("Factor_File_exemple.csv"), StandardCharsets.ISO_8859_1);
+		for (String line : lines.subList(1, lines.size())) {
+			String[] cells = line.replaceAll(",", ".").split(";");
+			String[] row = new String[8];
+			for (int i = 0; i < 8; i++) {
+				row[i] = cells.length > i + 1 && !cells[i + 1].isEmpty() ? cells[i + 1] : "1";
+			}
+			int key = Integer.parseInt(cells[0]);
+			factor.put(factor.containsKey(key) ? -key : key, row);
+		}
+	}
+
+	private static double value(int key, int column) {
+		return Double.parseDouble(factor.get(key)[column]);
+	}
+
+	private static double correction(int key) {
+		return value(key, 1) / (value(key, 2) - value(key, 3));
+	}
+
+	@Test
+	void compilesExampleDataFileHeader() {
+		String[] header = Window.parseDataLine("Time&Date;$Flags$;18;28;32;36;44;   ");
+		ColumnPlan plan = new ColumnPlan(header, factor, 28, true, false, PKA1, PKA2);
+
+		/* H2O hidden, 44 alone is CO2 */
+		assertEquals(Arrays.asList("Time (min)", "N2", "O2", "18O2", "CO2"), plan.elements);
+		assertArrayEquals(new String[] { "Time (min)", "18", "28", "32", "36", "44" }, plan.amperometricColumnName);
+		assertEquals(5, plan.nbMoleculeColumn);
+		assertTrue(plan.presenceMass && plan.presence32 && plan.presence36);
+		assertEquals(1, plan.indexMass);
+		assertEquals(2, plan.indexgasConcentration32);
+		assertEquals(1, plan.indexgasExchangeRates32);
+		assertEquals(3, plan.indexgasConcentration36);
+		assertEquals(2, plan.indexgasExchangeRates36);
+		assertArrayEquals(new String[] { "Time (min)", "O2  (µM / min)", "18O2  (µM / min)", "CO2  (µM / min)" },
+				plan.denoisedGasExchangeRatesColumnName);
+
+		double[] concentration = new double[plan.nbMoleculeColumn];
+		plan.convert(new double[] { 0.5, 1e-10, 5e-11, 3e-11, 2e-11, 4e-13 }, concentration);
+		assertEquals(0.5, concentration[0]);
+		assertEquals((5e-11 - value(28, 3)) * correction(28), concentration[1]);
+		assertEquals((3e-11 - value(32, 3)) * correction(32), concentration[2]);
+		assertEquals((2e-11 - value(36, 3)) * correction(36), concentration[3]);
+		assertEquals((4e-13 - value(44, 3)) * correction(44), concentration[4]);
+	}
+
+	@Test
+	void splitsSharedMassesAndAddsCi() {
+		String[] header = Window.parseDataLine("Time&Date;$Flags$;12;18;27;30;31;44;   ");
+		ColumnPlan plan = new ColumnPlan(header, factor, 28, false, true, PKA1, PKA2);
+
+		assertEquals(Arrays.asList("Time (min)", "H2O", "NO", "ETOH", "METOH", "CO2", "N2O", "Ci"), plan.elements);
+		assertFalse(plan.presenceMass);
+		assertEquals(plan.nbMoleculeColumn - 1, plan.correction.length);
+
+		double a12 = 2e-13;
+		double a18 = 3.0;
+		double a27 = 0.5;
+		double a30 = 4e-11;
+		double a31 = 7.0;
+		double a44 = 9e-13;
+		double[] concentration = new double[plan.nbMoleculeColumn];
+		plan.convert(new double[] { 1.25, a12, a18, a27, a30, a31, a44 }, concentration);
+
+		double co2 = a12 / value(44, 5);
+		double etoh = a27 / value(31, 5);
+		assertEquals(1.25, concentration[0]);
+		assertEquals((a18 - value(18, 3)) * correction(18), concentration[1]);
+		assertEquals(((a30 - (a44 - co2) * value(30, 5)) - value(30, 3)) * correction(30), concentration[2]);
+		assertEquals((etoh - value(31, 3)) * correction(31), concentration[3]);
+		assertEquals(((a31 - etoh) - value(-31, 3)) * correction(-31), concentration[4]);
+		assertEquals((co2 - value(44, 3)) * correction(44), concentration[5]);
+		assertEquals(((a44 - co2) - value(-44, 3)) * correction(-44), concentration[6]);
+		assertEquals(concentration[5] * CarbonateChemistry.ciCorrectionFactor(value(2, 6), PKA1, PKA2),
+				concentration[7]);
+	}
+}
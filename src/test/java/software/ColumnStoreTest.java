@@ -0,0 +1,123 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ColumnStoreTest {
+
+	@Test
+	void keepsEveryRowAcrossChunks() {
+		ColumnStore store = new ColumnStore(3);
+		int nbRow = 3 * DoubleColumn.CHUNK_SIZE + 17;
+		double[] row = new double[3];
+		for (int r = 0; r < nbRow; r++) {
+			row[0] = r / 60.0;
+			row[1] = r * 2.5;
+			row[2] = -r;
+			/* the row is copied, so the caller can reuse it */
+			store.addRow(row);
+		}
+		assertEquals(nbRow, store.getRowCount());
+		assertEquals(3, store.getColumnCount());
+		for (int r = 0; r < nbRow; r++) {
+			assertEquals(r / 60.0, store.get(r, 0));
+			assertEquals(r * 2.5, store.get(r, 1));
+			assertEquals(-r, store.get(r, 2));
+		}
+	}
+
+	@Test
+	void sharesTheAbscissaOfAnOtherDataset() {
+		ColumnStore time = new ColumnStore(2);
+		ColumnStore rates = new ColumnStore(time, 3);
+		time.addRow(new double[] { 0.0, 1.0 });
+		time.addRow(new double[] { 0.5, 2.0 });
+		/* row[0] is ignored, row 0 of rates has the abscissa of row 0 of time */
+		rates.addRow(new double[] { 99.0, 10.0, 20.0 });
+
+		assertEquals(1, rates.getRowCount());
+		assertEquals(0.0, rates.get(0, 0));
+		assertEquals(10.0, rates.get(0, 1));
+		assertEquals(20.0, rates.get(0, 2));
+		assertEquals(0.5, time.get(1, 0));
+	}
+
+	@Test
+	void snapshotsSeeCompleteRowsWhileTheWriterAddsRows() throws InterruptedException {
+		ColumnStore time = new ColumnStore(2);
+		ColumnStore rates = new ColumnStore(time, 2);
+		int nbRow = 4 * DoubleColumn.CHUNK_SIZE;
+		Thread writer = new Thread(() -> {
+			double[] row = new double[2];
+			for (int r = 0; r < nbRow; r++) {
+				row[0] = r;
+				row[1] = 2 * r;
+				time.addRow(row);
+				rates.addRow(row);
+			}
+		});
+		writer.start();
+		int lastCount = 0;
+		while (lastCount < nbRow) {
+			ColumnStore snapshot = rates.snapshot();
+			int count = snapshot.getRowCount();
+			assertTrue(count >= lastCount);
+			/* every published row is complete, including the shared abscissa */
+			for (int r = lastCount; r < count; r++) {
+				assertEquals(r, snapshot.get(r, 0));
+				assertEquals(2 * r, snapshot.get(r, 1));
+			}
+			lastCount = count;
+		}
+		writer.join();
+	}
+
+	@Test
+	void snapshotIsReadOnlyAndFixed() {
+		ColumnStore store = new ColumnStore(2);
+		store.addRow(new double[] { 0.0, 1.0 });
+		ColumnStore snapshot = store.snapshot();
+		store.addRow(new double[] { 1.0, 2.0 });
+
+		assertEquals(1, snapshot.getRowCount());
+		assertEquals(2, store.getRowCount());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.addRow(new double[] { 2.0, 3.0 }));
+	}
+
+	@Test
+	void rangeMinMaxAndSumMatchAScanOfTheRows() {
+		ColumnStore store = new ColumnStore(2);
+		Random random = new Random(42);
+		int nbRow = 5000;
+		for (int r = 0; r < nbRow; r++) {
+			/* small integers: equal values test the first-row rule, sums are exact */
+			store.addRow(new double[] { r, random.nextInt(50) - 25 });
+		}
+		int[] result = new int[2];
+		for (int i = 0; i < 2000; i++) {
+			int first = random.nextInt(nbRow);
+			int last = first + random.nextInt(nbRow - first);
+			int rowOfMin = first;
+			int rowOfMax = first;
+			double sum = 0;
+			for (int r = first; r <= last; r++) {
+				sum += store.get(r, 1);
+				if (store.get(r, 1) < store.get(rowOfMin, 1)) {
+					rowOfMin = r;
+				}
+				if (store.get(r, 1) > store.get(rowOfMax, 1)) {
+					rowOfMax = r;
+				}
+			}
+			store.minMaxRows(1, first, last, result);
+			assertEquals(rowOfMin, result[0]);
+			assertEquals(rowOfMax, result[1]);
+			assertEquals(sum, store.sum(1, first, last));
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jfree.data.DomainOrder;
+import org.junit.jupiter.api.Test;
+
+class ColumnXYDatasetTest {
+
+	@Test
+	void readsTheColumnAndFiresOneEventPerBatch() {
+		ColumnStore data = new ColumnStore(3);
+		data.addRow(new double[] { 0.0, 1.0, 10.0 });
+		ColumnXYDataset curve = new ColumnXYDataset("O2", data.snapshot(), 2);
+		AtomicInteger events = new AtomicInteger();
+		curve.addChangeListener(event -> events.incrementAndGet());
+
+		for (int r = 1; r < 100; r++) {
+			data.addRow(new double[] { r, r + 1.0, 10.0 * (r + 1) });
+		}
+		/* the rows are displayed only once the dataset is given the new snapshot */
+		assertEquals(1, curve.getItemCount(0));
+		curve.setData(data.snapshot());
+
+		assertEquals(1, events.get());
+		assertEquals(100, curve.getItemCount(0));
+		assertEquals("O2", curve.getSeriesKey(0));
+		assertEquals(DomainOrder.ASCENDING, curve.getDomainOrder());
+		assertEquals(42.0, curve.getXValue(0, 42));
+		assertEquals(430.0, curve.getYValue(0, 42));
+		assertEquals(430.0, curve.getY(0, 42).doubleValue());
+	}
+
+	@Test
+	void keepsTheExtremesOfEachPixelAndEveryRowOnceZoomed() {
+		ColumnStore data = new ColumnStore(2);
+		int nbRow = 100_000;
+		for (int r = 0; r < nbRow; r++) {
+			/* a single spike in the middle of a slow ramp */
+			data.addRow(new double[] { r, r == 54_321 ? 1e6 : r * 1e-3 });
+		}
+		ColumnXYDataset curve = new ColumnXYDataset("H2", data, 1);
+		curve.setView(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 500);
+
+		int count = curve.getItemCount(0);
+		assertTrue(count <= ColumnXYDataset.ITEMS_PER_PIXEL * 500);
+		/* the whole experiment and the spike are still drawn */
+		assertEquals(0.0, curve.getXValue(0, 0));
+		assertEquals(nbRow - 1.0, curve.getXValue(0, count - 1));
+		boolean spike = false;
+		for (int item = 0; item < count; item++) {
+			spike |= curve.getYValue(0, item) == 1e6;
+			if (item > 0) {
+				assertTrue(curve.getXValue(0, item - 1) < curve.getXValue(0, item));
+			}
+		}
+		assertTrue(spike);
+		assertEquals(0.0, curve.getDomainLowerBound(false));
+		assertEquals(nbRow - 1.0, curve.getDomainUpperBound(false));
+
+		/* zoomed on 101 rows: every row, plus the row on each side */
+		curve.setView(1000, 1100, 500);
+		assertEquals(103, curve.getItemCount(0));
+		assertEquals(999.0, curve.getXValue(0, 0));
+		assertEquals(1101.0, curve.getXValue(0, 102));
+	}
+}
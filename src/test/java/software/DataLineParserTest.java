@@ -0,0 +1,92 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DataLineParserTest {
+
+	/**
+	 * Values the ingestion loop computed before DataLineParser existed: split the
+	 * line with Window.parseDataLine, then Double.parseDouble on each cell.
+	 */
+	private static double[] referenceParse(String line, int nbColumn) {
+		String[] cells = Window.parseDataLine(line);
+		double[] row = new double[nbColumn];
+		for (int i = 1; i < nbColumn; i++) {
+			row[i] = Double.parseDouble(cells[i]);
+		}
+		return row;
+	}
+
+	private static double[] fastParse(String line, int nbColumn) {
+		double[] row = new double[nbColumn];
+		new DataLineParser().parse(line.toCharArray(), 0, line.length(), row);
+		return row;
+	}
+
+	private static void assertSameValues(String line, int nbColumn) {
+		double[] expected = referenceParse(line, nbColumn);
+		double[] actual = fastParse(line, nbColumn);
+		for (int i = 1; i < nbColumn; i++) {
+			/* bit for bit, not within a delta */
+			assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]),
+					"column " + i + " of " + line);
+		}
+	}
+
+	@Test
+	void matchesReferenceOnExampleDataFile() throws IOException {
+		List<String> lines = Files.readAllLines(Paths.get("Data_File_exemple.csv"), StandardCharsets.ISO_8859_1);
+		/* header: "Time&Date;$Flags$;18;28;32;36;44;" -> time + 5 masses */
+		int nbColumn = Window.parseDataLine(lines.get(0)).length - 1;
+		for (String line : lines.subList(1, lines.size())) {
+			/* the file has windows line endings, which readAllLines already dropped */
+			assertSameValues(line + "\r", nbColumn);
+		}
+	}
+
+	@Test
+	void acceptsCommaAndDotDecimalSeparators() {
+		String line = "2019/07/12 16:14:55.74;;5,28E-11;-3.9035e+2;0,000125;42;-0;";
+		assertSameValues(line, 6);
+		double[] row = fastParse(line, 6);
+		assertEquals(5.28E-11, row[1]);
+		assertEquals(0.000125, row[3]);
+	}
+
+	@Test
+	void matchesReferenceOnRandomValues() {
+		Random random = new Random(42);
+		for (int n = 0; n < 20_000; n++) {
+			double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+			String text = Double.toString(value);
+			/* instruments configured in french write decimal commas */
+			if (random.nextBoolean()) {
+				text = text.replace('.', ',');
+			}
+			assertSameValues("2019/07/12 16:14:55.74;;" + text + ";" + random.nextInt(1000) + ";", 3);
+		}
+	}
+
+	@Test
+	void fallsBackOnUnusualNumbers() {
+		/* more than 18 significant digits, and a value Double.parseDouble spells out */
+		assertSameValues("t;;1.2345678901234567890123;NaN;1e300;", 4);
+	}
+
+	@Test
+	void rejectsMissingOrInvalidCells() {
+		assertThrows(NumberFormatException.class, () -> fastParse("t;;1.5;", 3));
+		assertThrows(NumberFormatException.class, () -> fastParse("t;;1.5;abc;", 3));
+		assertThrows(NumberFormatException.class, () -> fastParse("t;;1.5;;", 3));
+	}
+}
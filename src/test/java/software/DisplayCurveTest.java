@@ -2,9 +2,12 @@ package software;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.lang.reflect.InvocationTargetException;
 import java.text.ParseException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+
+import javax.swing.SwingUtilities;
 
 import org.junit.jupiter.api.Test;
 
@@ -32,11 +35,11 @@ class DisplayCurveTest {
 	 * calculateValue/calculateAverage without needing a real data file.
 	 */
 	private DisplayCurve newTestCurve() throws ParseException {
-		List<Double[]> data = new ArrayList<>();
-		data.add(new Double[] { 0.0, 10.0 });
-		data.add(new Double[] { 1.0, 20.0 });
-		data.add(new Double[] { 2.0, 30.0 });
-		data.add(new Double[] { 3.0, 40.0 });
+		ColumnStore data = new ColumnStore(2);
+		data.addRow(new double[] { 0.0, 10.0 });
+		data.addRow(new double[] { 1.0, 20.0 });
+		data.addRow(new double[] { 2.0, 30.0 });
+		data.addRow(new double[] { 3.0, 40.0 });
 		String[] column = { "Time (min)", "Value" };
 		List<String> heading = List.of("Molecule", "Min", "Max", "Value for T = ", "Average between ");
 		return new DisplayCurve(data, column, 2, heading, "Test Curve");
@@ -57,4 +60,40 @@ class DisplayCurveTest {
 		/* (10+20+30+40)/4 = 25 */
 		assertEquals(25.0, average.get(0));
 	}
+
+	@Test
+	void replaceDataSwapsTheRowsInPlace() throws ParseException, InterruptedException, InvocationTargetException {
+		DisplayCurve curve = newTestCurve();
+		ColumnStore smoothed = new ColumnStore(2);
+		smoothed.addRow(new double[] { 1.0, 2.0 });
+		smoothed.addRow(new double[] { 2.0, 4.0 });
+		curve.replaceData(smoothed);
+		/* the replacement runs on the EDT */
+		SwingUtilities.invokeAndWait(() -> {
+		});
+
+		assertEquals(smoothed, curve.data);
+		assertEquals(3.0, curve.calculateAverage(curve.data, 1.0, 2.0).get(0));
+	}
+
+	@Test
+	void indexedValueAndAverageMatchTheLinearScan() throws ParseException {
+		ColumnStore data = new ColumnStore(2);
+		Random random = new Random(7);
+		double time = 0;
+		for (int r = 0; r < 500; r++) {
+			/* some rows share their time, to check which row is the nearer */
+			time += random.nextInt(3) * 0.5;
+			data.addRow(new double[] { time, random.nextInt(100) });
+		}
+		String[] column = { "Time (min)", "Value" };
+		List<String> heading = List.of("Molecule", "Min", "Max", "Value for T = ", "Average between ");
+		DisplayCurve indexed = new DisplayCurve(data, column, 2, heading, "Indexed", true);
+		DisplayCurve scanned = new DisplayCurve(data, column, 2, heading, "Scanned", false);
+		for (double value = data.get(0, 0); value <= time; value += 0.25) {
+			assertEquals(scanned.calculateValue(data, value), indexed.calculateValue(data, value));
+			assertEquals(scanned.calculateAverage(data, value / 2, value),
+					indexed.calculateAverage(data, value / 2, value));
+		}
+	}
 }
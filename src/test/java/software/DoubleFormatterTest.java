@@ -0,0 +1,78 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DoubleFormatterTest {
+
+	private static String format(DoubleFormatter formatter, double value) {
+		ByteBuffer buffer = ByteBuffer.allocate(DoubleFormatter.MAX_LENGTH);
+		formatter.append(buffer, value);
+		return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	void writesLikeDoubleToString() {
+		DoubleFormatter formatter = new DoubleFormatter();
+		double[] values = { 0.1, 1, -2.5, 123456.75, 1234567, 0.001, 0.00125, 1.25E-10, -3.0E12, 0, -0.0,
+				Double.NaN, Double.NEGATIVE_INFINITY, 42.0 / 3 };
+		for (double value : values) {
+			assertEquals(Double.toString(value), format(formatter, value));
+		}
+	}
+
+	@Test
+	void writesTheMeasuresWithoutDoubleToString() {
+		DoubleFormatter formatter = new DoubleFormatter();
+		Random random = new Random(11);
+		ByteBuffer buffer = ByteBuffer.allocate(DoubleFormatter.MAX_LENGTH);
+		for (int i = 0; i < 100_000; i++) {
+			/* a time in min, a concentration, an amperometric value, a rate */
+			double[] values = { i / 60.0, 250 - Math.sqrt(i), random.nextDouble() * 1e-11 * (1 + i % 100),
+					(random.nextDouble() - 0.5) / 60 };
+			for (double value : values) {
+				buffer.clear();
+				assertTrue(formatter.appendDigits(buffer, value), Double.toString(value));
+				assertEquals(value, Double.parseDouble(
+						new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII)));
+			}
+		}
+	}
+
+		@Test
+	void givesEveryValueBack() {
+		DoubleFormatter formatter = new DoubleFormatter();
+		Random random = new Random(7);
+		for (int i = 0; i < 200_000; i++) {
+			double value;
+			switch (i % 4) {
+			case 0:
+				/* any double */
+				value = Double.longBitsToDouble(random.nextLong());
+				break;
+			case 1:
+				/* a measure with a few digits */
+				value = Math.round(random.nextGaussian() * 1e6) / 1e3;
+				break;
+			case 2:
+				/* an amperometric value */
+				value = random.nextDouble() * Math.pow(10, -12 + random.nextInt(6));
+				break;
+			default:
+				/* a rate */
+				value = (random.nextDouble() - 0.5) / 60;
+				break;
+			}
+			if (Double.isNaN(value)) {
+				continue;
+			}
+			assertEquals(value, Double.parseDouble(format(formatter, value)), Double.toString(value));
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExcelExportTest {
+
+	@Test
+	void writesEveryRowBeyondTheWindowInMemory(@TempDir Path folder) throws IOException {
+		ColumnStore data = new ColumnStore(3);
+		int nbRow = 4 * ExcelExport.ROW_WINDOW + 7;
+		for (int i = 0; i < nbRow; i++) {
+			data.addRow(new double[] { i * 0.25, Math.sqrt(i), -i });
+		}
+		String path = folder.resolve("data.xlsx").toString();
+		ExcelExport.write(path, new String[] { "time (min)", "O2 (µM)", "CO2 (µM)" }, data);
+
+		try (FileInputStream in = new FileInputStream(path); Workbook workbook = new XSSFWorkbook(in)) {
+			Sheet sheet = workbook.getSheetAt(0);
+			assertEquals("O2 (µM)", sheet.getRow(0).getCell(1).getStringCellValue());
+			assertEquals(nbRow, sheet.getLastRowNum());
+			for (int i = 0; i < nbRow; i++) {
+				for (int j = 0; j < 3; j++) {
+					assertEquals(data.get(i, j), sheet.getRow(i + 1).getCell(j).getNumericCellValue());
+				}
+			}
+			/* wide enough for the title, and for the numbers of the second column */
+			assertTrue(sheet.getColumnWidth(0) >= 13 * 256);
+			assertEquals(13 * 256, sheet.getColumnWidth(1));
+		}
+	}
+
+	@Test
+	void aStoppedExportLeavesNoFile(@TempDir Path folder) throws IOException {
+		ColumnStore data = new ColumnStore(2);
+		for (int i = 0; i < 5000; i++) {
+			data.addRow(new double[] { i, i * 2 });
+		}
+		Path path = folder.resolve("stopped.xlsx");
+		/* stopped after the first rows */
+		assertFalse(ExcelExport.write(path.toString(), new String[] { "time", "value" }, data,
+				(nbRowWritten, nbRow) -> nbRowWritten == 0));
+		assertFalse(Files.exists(path));
+	}
+
+	@Test
+	void writesEachDatasetInItsSheet(@TempDir Path folder) throws IOException {
+		List<ExcelExport.Table> tables = Arrays.asList(
+				new ExcelExport.Table("first", new String[] { "time", "a" }, rows(3000, 2)),
+				new ExcelExport.Table("second", new String[] { "time", "b", "c" }, rows(10, 3)),
+				new ExcelExport.Table("empty", new String[] { "time" }, rows(0, 1)));
+		String path = folder.resolve("all.xlsx").toString();
+		AtomicInteger last = new AtomicInteger();
+		assertTrue(ExcelExport.write(path, tables, (nbRowWritten, nbRow) -> {
+			last.accumulateAndGet(nbRowWritten, Math::max);
+			assertEquals(3010, nbRow);
+			return true;
+		}));
+		assertEquals(3010, last.get());
+
+		try (FileInputStream in = new FileInputStream(path); Workbook workbook = new XSSFWorkbook(in)) {
+			assertEquals(3, workbook.getNumberOfSheets());
+			for (int s = 0; s < tables.size(); s++) {
+				ExcelExport.Table table = tables.get(s);
+				Sheet sheet = workbook.getSheetAt(s);
+				assertEquals(table.name, sheet.getSheetName());
+				assertEquals(table.columns[table.columns.length - 1],
+						sheet.getRow(0).getCell(table.columns.length - 1).getStringCellValue());
+				assertEquals(table.data.getRowCount(), sheet.getLastRowNum());
+				for (int i = 0; i < table.data.getRowCount(); i++) {
+					for (int j = 0; j < table.columns.length; j++) {
+						assertEquals(table.data.get(i, j), sheet.getRow(i + 1).getCell(j).getNumericCellValue());
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void theWritingOfTheFileCanBeStoppedToo(@TempDir Path folder) throws IOException {
+		ColumnStore data = new ColumnStore(3);
+		for (int i = 0; i < 100_000; i++) {
+			data.addRow(new double[] { i / 60.0, 250 - Math.sqrt(i), 1e-11 * i });
+		}
+		Path path = folder.resolve("data.xlsx");
+		Files.write(path, new byte[] { 1, 2, 3 });
+		/* every row is written once, then stopped while the file is written */
+		AtomicInteger complete = new AtomicInteger();
+		assertFalse(ExcelExport.write(path.toString(), new String[] { "time", "O2", "current" }, data,
+				(nbRowWritten, nbRow) -> nbRowWritten < nbRow || complete.incrementAndGet() < 2));
+		assertEquals(2, complete.get());
+		assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, Files.readAllBytes(path)));
+		try (Stream<Path> files = Files.list(folder)) {
+			assertEquals(1, files.count());
+		}
+	}
+
+	private static ColumnStore rows(int nbRow, int nbColumn) {
+		ColumnStore data = new ColumnStore(nbColumn);
+		double[] row = new double[nbColumn];
+		for (int i = 0; i < nbRow; i++) {
+			for (int j = 0; j < nbColumn; j++) {
+				row[j] = i + j / 10.0;
+			}
+			data.addRow(row);
+		}
+		return data;
+	}
+}
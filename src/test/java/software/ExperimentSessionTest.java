@@ -0,0 +1,108 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ExperimentSessionTest {
+
+	private static ExperimentSession newSession(String header, boolean hideH2O, boolean ci, double pKa1,
+			double normalization) throws IOException {
+		ExperimentSession session = lazySession(header, hideH2O, ci, pKa1, normalization);
+		session.activate(ExperimentSession.Dataset.values());
+		return session;
+	}
+
+	/* a session whose datasets are only computed once activated */
+	private static ExperimentSession lazySession(String header, boolean hideH2O, boolean ci, double pKa1,
+			double normalization) throws IOException {
+		Map<Integer, String[]> factor = FactorFile.read("Factor_File_exemple.csv");
+		return new ExperimentSession(Window.parseDataLine(header), factor, ExperimentSession.denoisedMass(factor),
+				hideH2O, ci, pKa1, 10.3, normalization);
+	}
+
+	private static void addRows(ExperimentSession session, List<String> lines, int from, int to)
+			throws ParseException {
+		for (int i = from; i < to; i++) {
+			char[] chars = lines.get(i).toCharArray();
+			session.addRow(chars, chars.length);
+		}
+	}
+
+	private static void assertSameRows(ExperimentSession expected, ExperimentSession actual) {
+		for (ExperimentSession.Dataset dataset : ExperimentSession.Dataset.values()) {
+			ColumnStore expectedRows = expected.getData(dataset);
+			ColumnStore actualRows = actual.getData(dataset);
+			assertEquals(expectedRows.getRowCount(), actualRows.getRowCount(), dataset.fileName);
+			assertEquals(expectedRows.getColumnCount(), actualRows.getColumnCount(), dataset.fileName);
+			for (int row = 0; row < expectedRows.getRowCount(); row++) {
+				for (int column = 0; column < expectedRows.getColumnCount(); column++) {
+					assertEquals(expectedRows.get(row, column), actualRows.get(row, column), dataset.fileName);
+				}
+			}
+		}
+	}
+
+	@Test
+	void otherParametersGiveTheDatasetsOfANewReading() throws IOException, ParseException {
+		List<String> lines = Files.readAllLines(Paths.get("Data_File_exemple.csv"), StandardCharsets.ISO_8859_1);
+		ExperimentSession session = newSession(lines.get(0), true, true, 6.4, 1);
+		addRows(session, lines, 1, lines.size());
+
+		/* new normalization and pKa, H2O shown and no Ci (other columns) */
+		ExperimentSession recomputed = session.withParameters(false, false, 6.1, 10.3, 2.5);
+		assertSame(session.amperometricData, recomputed.amperometricData);
+		ExperimentSession reread = newSession(lines.get(0), false, false, 6.1, 2.5);
+		addRows(reread, lines, 1, lines.size());
+		assertSameRows(reread, recomputed);
+	}
+
+	@Test
+	void catchesUpWithTheRowsReadMeanwhile() throws IOException, ParseException {
+		List<String> lines = Files.readAllLines(Paths.get("Data_File_exemple.csv"), StandardCharsets.ISO_8859_1);
+		ExperimentSession session = newSession(lines.get(0), true, true, 6.4, 1);
+		addRows(session, lines, 1, 100);
+		ExperimentSession recomputed = session.withParameters(true, true, 6.4, 10.3, 3);
+
+		/* rows read while the datasets were computed again */
+		addRows(session, lines, 100, 150);
+		recomputed.catchUp(session);
+		addRows(recomputed, lines, 150, lines.size());
+
+		ExperimentSession reread = newSession(lines.get(0), true, true, 6.4, 3);
+		addRows(reread, lines, 1, lines.size());
+		assertSameRows(reread, recomputed);
+	}
+
+	@Test
+	void datasetsActivatedLaterAreTheOnesComputedFromTheStart() throws IOException, ParseException {
+		List<String> lines = Files.readAllLines(Paths.get("Data_File_exemple.csv"), StandardCharsets.ISO_8859_1);
+		ExperimentSession session = lazySession(lines.get(0), true, true, 6.4, 1);
+		addRows(session, lines, 1, 100);
+		/* only the rows of the data file are kept until a dataset is activated */
+		assertEquals(99, session.amperometricData.getRowCount());
+		assertEquals(0, session.gasConcentrationData.getRowCount());
+		assertEquals(0, session.gasExchangeRatesData.getRowCount());
+
+		session.activate(ExperimentSession.Dataset.CUMULATED_GAS_EXCHANGE);
+		addRows(session, lines, 100, 150);
+		/* its inputs are computed, but not added */
+		assertEquals(0, session.gasExchangeRatesData.getRowCount());
+		assertEquals(0, session.o2ExchangeData.getRowCount());
+		session.activate(ExperimentSession.Dataset.O2_EXCHANGE);
+		addRows(session, lines, 150, lines.size());
+
+		ExperimentSession eager = newSession(lines.get(0), true, true, 6.4, 1);
+		addRows(eager, lines, 1, lines.size());
+		assertSameRows(eager, session);
+	}
+}
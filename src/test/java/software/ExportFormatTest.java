@@ -0,0 +1,176 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExportFormatTest {
+
+	private static final String[] COLUMNS = { "time (min)", "O2 (µM)", "rate, \"denoised\"" };
+
+	private static ColumnStore data(int nbRow) {
+		ColumnStore data = new ColumnStore(3);
+		for (int i = 0; i < nbRow; i++) {
+			data.addRow(new double[] { i / 60.0, 250 - Math.sqrt(i), 1e-11 * i });
+		}
+		return data;
+	}
+
+	@Test
+	void formatOfTheFileName() {
+		assertSame(ExportFormat.XLSX, ExportFormat.of("data.XLS"));
+		assertSame(ExportFormat.CSV, ExportFormat.of("/tmp/data.csv"));
+		assertSame(ExportFormat.COLUMNS, ExportFormat.named("bin"));
+		assertEquals(null, ExportFormat.of("data.txt"));
+		assertEquals("/tmp/run.1_amperometric.arrow", ExportFormat.ARROW.path("/tmp/run.1.arrow", "amperometric"));
+	}
+
+	@Test
+	void csvGivesEveryValueBack(@TempDir Path folder) throws IOException {
+		ColumnStore data = data(50_000);
+		Path path = folder.resolve("data.csv");
+		ExportFormat.CSV.write(path.toString(), COLUMNS, data);
+
+		List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+		assertEquals("time (min),O2 (µM),\"rate, \"\"denoised\"\"\"", lines.get(0));
+		assertEquals(data.getRowCount() + 1, lines.size());
+		for (int i = 0; i < data.getRowCount(); i++) {
+			String[] values = lines.get(i + 1).split(",");
+			for (int j = 0; j < 3; j++) {
+				assertEquals(data.get(i, j), Double.parseDouble(values[j]));
+			}
+		}
+	}
+
+	@Test
+	void binaryColumnsAreReadInPlace(@TempDir Path folder) throws IOException {
+		ColumnStore data = data(1000);
+		Path path = folder.resolve("data.bin");
+		ExportFormat.COLUMNS.write(path.toString(), COLUMNS, data);
+
+		ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] magic = new byte[8];
+		file.get(magic);
+		assertEquals("MIMSDATA", new String(magic, StandardCharsets.US_ASCII));
+		assertEquals(1, file.getInt());
+		assertEquals(3, file.getInt());
+		assertEquals(1000, file.getLong());
+		for (String column : COLUMNS) {
+			byte[] name = new byte[file.getInt()];
+			file.get(name);
+			assertEquals(column, new String(name, StandardCharsets.UTF_8));
+		}
+		int start = (file.position() + 7) & ~7;
+		assertEquals(start + 3 * 1000 * 8, file.capacity());
+		for (int j = 0; j < 3; j++) {
+			for (int i = 0; i < 1000; i++) {
+				assertEquals(data.get(i, j), file.getDouble(start + 8 * (j * 1000 + i)));
+			}
+		}
+	}
+
+	/* position of the object referred to by the offset at a position of a flatbuffer */
+	private static int object(ByteBuffer buffer, int position) {
+		return position + buffer.getInt(position);
+	}
+
+	/* position of a field of a flatbuffer table */
+	private static int field(ByteBuffer buffer, int table, int slot) {
+		int vtable = table - buffer.getInt(table);
+		assertTrue(4 + 2 * slot < buffer.getShort(vtable));
+		return table + buffer.getShort(vtable + 4 + 2 * slot);
+	}
+
+	private static String text(ByteBuffer buffer, int position) {
+		int text = object(buffer, position);
+		byte[] bytes = new byte[buffer.getInt(text)];
+		((ByteBuffer) buffer.duplicate().position(text + 4)).get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static ByteBuffer slice(ByteBuffer file, int position, int length) {
+		return ((ByteBuffer) file.duplicate().position(position).limit(position + length)).slice()
+				.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Test
+	void arrowFileIsReadThroughItsFooter(@TempDir Path folder) throws IOException {
+		ColumnStore data = data(1000);
+		Path path = folder.resolve("data.arrow");
+		ExportFormat.ARROW.write(path.toString(), COLUMNS, data);
+
+		ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+		int size = file.capacity();
+		assertEquals("ARROW1\0\0", new String(file.array(), 0, 8, StandardCharsets.US_ASCII));
+		assertEquals("ARROW1", new String(file.array(), size - 6, 6, StandardCharsets.US_ASCII));
+
+		/* the footer: the schema, then the record batch */
+		int footerLength = file.getInt(size - 10);
+		assertEquals(0, (size - 10 - footerLength) % 8);
+		ByteBuffer footer = slice(file, size - 10 - footerLength, footerLength);
+		int root = object(footer, 0);
+		int fields = object(footer, field(footer, object(footer, field(footer, root, 1)), 1));
+		assertEquals(3, footer.getInt(fields));
+		for (int j = 0; j < 3; j++) {
+			int column = object(footer, fields + 4 + 4 * j);
+			assertEquals(COLUMNS[j], text(footer, field(footer, column, 0)));
+			/* FloatingPoint, DOUBLE */
+			assertEquals(3, footer.get(field(footer, column, 2)));
+			assertEquals(2, footer.getShort(field(footer, object(footer, field(footer, column, 3)), 0)));
+		}
+		int blocks = object(footer, field(footer, root, 3));
+		assertEquals(1, footer.getInt(blocks));
+		long offset = footer.getLong(blocks + 4);
+		int metadataLength = footer.getInt(blocks + 12);
+		long bodyLength = footer.getLong(blocks + 20);
+
+		/* the record batch message, then its body */
+		assertEquals(-1, file.getInt((int) offset));
+		assertEquals(metadataLength - 8, file.getInt((int) offset + 4));
+		ByteBuffer message = slice(file, (int) offset + 8, metadataLength - 8);
+		int header = object(message, 0);
+		assertEquals(3, message.get(field(message, header, 1)));
+		assertEquals(bodyLength, message.getLong(field(message, header, 3)));
+		int batch = object(message, field(message, header, 2));
+		assertEquals(1000, message.getLong(field(message, batch, 0)));
+		int buffers = object(message, field(message, batch, 2));
+		assertEquals(6, message.getInt(buffers));
+		int body = (int) offset + metadataLength;
+		for (int j = 0; j < 3; j++) {
+			int start = body + (int) message.getLong(buffers + 4 + 16 * (2 * j + 1));
+			assertEquals(0, start % 64);
+			assertEquals(1000 * 8, message.getLong(buffers + 4 + 16 * (2 * j + 1) + 8));
+			for (int i = 0; i < 1000; i++) {
+				assertEquals(data.get(i, j), file.getDouble(start + 8 * i));
+			}
+		}
+	}
+
+	@Test
+	void aStoppedExportLeavesTheFileAsItWas(@TempDir Path folder) throws IOException {
+		Path path = folder.resolve("data.csv");
+		Files.write(path, "previous".getBytes(StandardCharsets.US_ASCII));
+		for (ExportFormat format : ExportFormat.values()) {
+			assertFalse(format.write(path.toString(), COLUMNS, data(100_000),
+					(nbRowWritten, nbRow) -> nbRowWritten == 0));
+			assertEquals("previous", new String(Files.readAllBytes(path), StandardCharsets.US_ASCII));
+		}
+		/* only the file itself is left */
+		try (Stream<Path> files = Files.list(folder)) {
+			assertEquals(1, files.count());
+		}
+	}
+}
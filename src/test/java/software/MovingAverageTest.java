@@ -0,0 +1,54 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class MovingAverageTest {
+
+	@Test
+	void matchesTheWindowSumWhileRowsArrive() {
+		int step = 3;
+		ColumnStore rates = new ColumnStore(3);
+		MovingAverage average = new MovingAverage(3, step);
+		double[] row = new double[3];
+		for (int r = 0; r < 200; r++) {
+			row[0] = r * 0.25;
+			row[1] = Math.sin(r) * 1e3;
+			row[2] = r % 7 == 0 ? 1e8 : 1e-3 * r;
+			rates.addRow(row);
+			/* rows arrive one by one, sometimes several before an update */
+			if (r % 5 != 1) {
+				average.update(rates.snapshot());
+			}
+		}
+		average.update(rates.snapshot());
+
+		ColumnStore data = average.getData();
+		assertEquals(200 - 2 * step, data.getRowCount());
+		for (int j = 0; j < data.getRowCount(); j++) {
+			int center = j + step;
+			assertEquals(rates.get(center, 0), data.get(j, 0));
+			for (int i = 1; i < 3; i++) {
+				double sum = 0;
+				for (int k = -step; k <= step; k++) {
+					sum += rates.get(center + k, i);
+				}
+				assertEquals(sum / (2 * step + 1), data.get(j, i), 1e-9 * Math.abs(sum) + 1e-12);
+			}
+		}
+	}
+
+	@Test
+	void stepZeroKeepsTheRows() {
+		ColumnStore rates = new ColumnStore(2);
+		MovingAverage average = new MovingAverage(2, 0);
+		rates.addRow(new double[] { 1.0, 5.0 });
+		assertEquals(1, average.update(rates));
+		assertEquals(0, average.update(rates));
+		rates.addRow(new double[] { 2.0, 7.0 });
+		assertEquals(1, average.update(rates));
+		assertEquals(7.0, average.getData().get(1, 1));
+		assertEquals(2.0, average.getData().get(1, 0));
+	}
+}
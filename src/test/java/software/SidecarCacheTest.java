@@ -0,0 +1,116 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SidecarCacheTest {
+
+	private static final String DATA_FILE = "Data_File_exemple.csv";
+
+	private static ExperimentSession load(Path data) throws IOException, ParseException {
+		Map<Integer, String[]> factor = FactorFile.read("Factor_File_exemple.csv");
+		String header = Files.readAllLines(data, StandardCharsets.ISO_8859_1).get(0);
+		ExperimentSession session = new ExperimentSession(Window.parseDataLine(header), factor,
+				ExperimentSession.denoisedMass(factor), true, true, 6.3, 10.3, 1);
+		session.activate(ExperimentSession.Dataset.values());
+		SidecarCache.load(session, data.toString(), header, header.length() + 1);
+		return session;
+	}
+
+	/* length of the data file covered by the rows of its copy */
+	private static long covered(Path data) throws IOException {
+		byte[] header = Files.readAllBytes(Paths.get(SidecarCache.cacheAddress(data.toString())));
+		return ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).getLong(12);
+	}
+
+	private static void assertSameRows(ExperimentSession expected, ExperimentSession actual) {
+		for (ExperimentSession.Dataset dataset : ExperimentSession.Dataset.values()) {
+			ColumnStore expectedRows = expected.getData(dataset);
+			ColumnStore actualRows = actual.getData(dataset);
+			assertEquals(expectedRows.getRowCount(), actualRows.getRowCount());
+			for (int row = 0; row < expectedRows.getRowCount(); row++) {
+				for (int column = 0; column < expectedRows.getColumnCount(); column++) {
+					assertEquals(expectedRows.get(row, column), actualRows.get(row, column));
+				}
+			}
+		}
+	}
+
+	@Test
+	void reopensAnUnchangedFileFromTheColumns(@TempDir Path folder) throws IOException, ParseException {
+		List<String> lines = Files.readAllLines(Paths.get(DATA_FILE), StandardCharsets.ISO_8859_1);
+		Path data = folder.resolve("data.csv");
+		Files.write(data, lines, StandardCharsets.ISO_8859_1);
+		ExperimentSession parsed = load(data);
+		assertTrue(Files.isRegularFile(Paths.get(SidecarCache.cacheAddress(data.toString()))));
+
+		/* same size and time: the text isn't parsed again (it couldn't be) */
+		FileTime modified = Files.getLastModifiedTime(data);
+		lines.set(50, lines.get(50).replace(';', ','));
+		Files.write(data, lines, StandardCharsets.ISO_8859_1);
+		Files.setLastModifiedTime(data, modified);
+		assertSameRows(parsed, load(data));
+	}
+
+	@Test
+	void onlyParsesTheRowsAppendedSince(@TempDir Path folder) throws IOException, ParseException {
+		List<String> lines = Files.readAllLines(Paths.get(DATA_FILE), StandardCharsets.ISO_8859_1);
+		Path data = folder.resolve("data.csv");
+		Files.write(data, lines.subList(0, 120), StandardCharsets.ISO_8859_1);
+		assertEquals(119, load(data).getRowCount());
+
+		/* the MIMS wrote the other rows */
+		Files.write(data, lines, StandardCharsets.ISO_8859_1);
+		ExperimentSession reopened = load(data);
+		Path copy = folder.resolve("copy.csv");
+		Files.write(copy, lines, StandardCharsets.ISO_8859_1);
+		assertSameRows(load(copy), reopened);
+	}
+
+	@Test
+	void updatesTheColumnsEachTimeTheFileGrew(@TempDir Path folder) throws IOException, ParseException {
+		List<String> lines = Files.readAllLines(Paths.get(DATA_FILE), StandardCharsets.ISO_8859_1);
+		Path data = folder.resolve("data.csv");
+		Files.write(data, lines.subList(0, 80), StandardCharsets.ISO_8859_1);
+		load(data);
+		long first = covered(data);
+
+		/* the copy read when reopening is replaced by the longer one */
+		Files.write(data, lines.subList(0, 160), StandardCharsets.ISO_8859_1);
+		assertEquals(159, load(data).getRowCount());
+		long second = covered(data);
+		assertTrue(second > first);
+
+		Files.write(data, lines, StandardCharsets.ISO_8859_1);
+		assertEquals(lines.size() - 1, load(data).getRowCount());
+		assertTrue(covered(data) > second);
+		assertEquals(Files.size(data), covered(data));
+	}
+
+	@Test
+	void ignoresTheColumnsOfAnOtherFile(@TempDir Path folder) throws IOException, ParseException {
+		List<String> lines = Files.readAllLines(Paths.get(DATA_FILE), StandardCharsets.ISO_8859_1);
+		Path data = folder.resolve("data.csv");
+		Files.write(data, lines, StandardCharsets.ISO_8859_1);
+		load(data);
+
+		/* rewritten with other rows: the end of the file doesn't match */
+		Files.write(data, lines.subList(0, 200), StandardCharsets.ISO_8859_1);
+		assertEquals(199, load(data).getRowCount());
+	}
+}
@@ -0,0 +1,36 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+
+import org.junit.jupiter.api.Test;
+
+class TableDataTest {
+
+	@Test
+	void newValuesRepaintTheRowsWithoutRebuildingTheColumns() {
+		List<String> heading = List.of("Molecule", "Min", "Max", "Value for T = 1.0", "Average between 0.0 and 2.0");
+		String[] caption = { "Time (min)", "O2", "CO2" };
+		TableData model = new TableData(heading, 3, caption, List.of(1.0, 2.0), List.of(3.0, 4.0),
+				List.of(2.0, 3.0), List.of(2.0, 3.0));
+		List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+		model.addTableModelListener(events::add);
+
+		model.updateData(new ArrayList<String>(heading), List.of(0.5, 2.0), List.of(3.0, 4.0), List.of(2.0, 3.0),
+				List.of(2.0, 3.0));
+		assertEquals(1, events.size());
+		assertEquals(0, events.get(0).getFirstRow());
+		assertEquals(1, events.get(0).getLastRow());
+		assertEquals(0.5, model.getValueAt(0, 1));
+
+		/* the user entered an other value: the heading changes */
+		model.updateData(List.of("Molecule", "Min", "Max", "Value for T = 1.5", "Average between 0.0 and 2.0"),
+				List.of(0.5, 2.0), List.of(3.0, 4.0), List.of(2.5, 3.5), List.of(2.0, 3.0));
+		assertEquals(TableModelEvent.HEADER_ROW, events.get(1).getFirstRow());
+		assertEquals("Value for T = 1.5", model.getColumnName(3));
+	}
+}
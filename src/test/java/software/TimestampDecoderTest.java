@@ -0,0 +1,92 @@
+package software;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+class TimestampDecoderTest {
+
+	/* a zone with daylight saving changes, whatever the zone of the machine running the tests */
+	private static final TimeZone PARIS = TimeZone.getTimeZone("Europe/Paris");
+
+	private static long reference(String timestamp) throws ParseException {
+		SimpleDateFormat format = new SimpleDateFormat(TimestampDecoder.PATTERN);
+		format.setTimeZone(PARIS);
+		return format.parse(timestamp).getTime();
+	}
+
+	@Test
+	void matchesSimpleDateFormatOnExampleDataFile() throws IOException, ParseException {
+		List<String> lines = Files.readAllLines(Paths.get("Data_File_exemple.csv"), StandardCharsets.ISO_8859_1);
+		TimestampDecoder decoder = new TimestampDecoder(PARIS);
+		for (String line : lines.subList(1, lines.size())) {
+			String timestamp = line.substring(0, line.indexOf(';'));
+			assertEquals(reference(timestamp), decoder.parseMillis(timestamp), timestamp);
+		}
+	}
+
+	@Test
+	void readsDigitsAfterTheDotAsMilliseconds() throws ParseException {
+		TimestampDecoder decoder = new TimestampDecoder(PARIS);
+		long base = decoder.parseMillis("2019/07/12 16:14:55.0");
+		assertEquals(base + 74, decoder.parseMillis("2019/07/12 16:14:55.74"));
+		assertEquals(base + 7, decoder.parseMillis("2019/07/12 16:14:55.7"));
+	}
+
+	@Test
+	void matchesSimpleDateFormatAcrossDaysAndDaylightSavingChanges() throws ParseException {
+		TimestampDecoder decoder = new TimestampDecoder(PARIS);
+		Random random = new Random(7);
+		/* 2019/03/31 and 2019/10/27 are the daylight saving changes in Paris */
+		String[] days = { "2019/03/30", "2019/03/31", "2019/04/01", "2019/10/27", "2019/12/31", "2020/01/01",
+				"2020/02/29" };
+		for (int n = 0; n < 5_000; n++) {
+			String timestamp = String.format("%s %02d:%02d:%02d.%d", days[random.nextInt(days.length)],
+					random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000));
+			assertEquals(reference(timestamp), decoder.parseMillis(timestamp), timestamp);
+		}
+	}
+
+	@Test
+	void acceptsOtherLayoutsLikeSimpleDateFormat() throws ParseException {
+		TimestampDecoder decoder = new TimestampDecoder(PARIS);
+		assertEquals(reference("2019/7/2 6:04:05.3"), decoder.parseMillis("2019/7/2 6:04:05.3"));
+		assertThrows(ParseException.class, () -> decoder.parseMillis("Time&Date"));
+	}
+
+	@Test
+	void canBeSharedBetweenThreads() throws InterruptedException {
+		TimestampDecoder decoder = new TimestampDecoder(PARIS);
+		Thread[] threads = new Thread[4];
+		Throwable[] failure = new Throwable[1];
+		for (int t = 0; t < threads.length; t++) {
+			String day = "2019/07/1" + t;
+			threads[t] = new Thread(() -> {
+				try {
+					for (int n = 0; n < 2_000; n++) {
+						String timestamp = String.format("%s 12:%02d:00.0", day, n % 60);
+						assertEquals(reference(timestamp), decoder.parseMillis(timestamp));
+					}
+				} catch (Throwable e) {
+					failure[0] = e;
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(null, failure[0]);
+	}
+}